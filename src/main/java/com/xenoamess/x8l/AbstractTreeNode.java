@@ -46,6 +46,20 @@ import org.jetbrains.annotations.Nullable;
  */
 public abstract class AbstractTreeNode implements AutoCloseable {
     private ContentNode parent;
+    /**
+     * where this node might be in the children of parent.
+     * only ChangeTrackingList reads and writes it.
+     */
+    private int indexHint;
+    /**
+     * hash of what equals compares, or 0 if not computed.
+     * if it is not 0, structuralHash of every node in this node is not 0 either.
+     */
+    private int structuralHash;
+    /**
+     * if this node can not be changed any more.
+     */
+    private boolean frozen;
 
     /**
      * <p>Constructor for AbstractTreeNode.</p>
@@ -162,6 +176,82 @@ public abstract class AbstractTreeNode implements AutoCloseable {
         return this.changeParentAndRegister(contentNode, -1);
     }
 
+    /**
+     * called every time the content of this node is changed,
+     * to drop the caches of this node and its parents.
+     */
+    protected void contentChanged() {
+        this.checkNotFrozen();
+        this.invalidateStructuralHash();
+        this.invalidateParentSerializedCache();
+    }
+
+    /**
+     * make this node and all nodes in it unable to be changed any more,
+     * after compacting them and computing their hashes.
+     * it shall only be called on a node not seen by other threads yet.
+     *
+     * @param symbolTable equal strings in the nodes are made the same one by it.
+     * @see X8lTree#freeze()
+     */
+    protected void freeze(@NotNull X8lSymbolTable symbolTable) {
+        this.hashCode();
+        this.frozen = true;
+    }
+
+    /**
+     * <p>isFrozen.</p>
+     *
+     * @return if this node can not be changed any more.
+     * @see X8lTree#freeze()
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * called before this node is changed.
+     *
+     * @throws UnsupportedOperationException if this node is frozen.
+     */
+    protected void checkNotFrozen() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("a frozen node can not be changed");
+        }
+    }
+
+    /**
+     * drop the cached structural hash of this node and all its parents.
+     */
+    protected void invalidateStructuralHash() {
+        // a node without hash has no parent with hash.
+        for (AbstractTreeNode nowNode = this; nowNode != null && nowNode.structuralHash != 0;
+             nowNode = nowNode.getParent()) {
+            nowNode.structuralHash = 0;
+        }
+    }
+
+    /**
+     * compute the hash of what equals compares.
+     * it is only called when the cached one is dropped.
+     *
+     * @return the hash.
+     */
+    protected int computeStructuralHash() {
+        return this.toString().hashCode();
+    }
+
+    /**
+     * drop the serialized cache of the parent and its parents, as this node is changed.
+     *
+     * @see ContentNode#invalidateSerializedCache()
+     */
+    protected void invalidateParentSerializedCache() {
+        if (this.getParent() != null) {
+            this.getParent().invalidateSerializedCache();
+        }
+    }
+
     /**
      * write this AbstractTreeNode's data to a writer.
      *
@@ -191,10 +281,41 @@ public abstract class AbstractTreeNode implements AutoCloseable {
      */
     public abstract void format(int space);
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * it is cached, and only computed again after this node or a node in it is changed.
+     */
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        int res = this.structuralHash;
+        if (res == 0) {
+            res = this.computeStructuralHash();
+            if (res == 0) {
+                res = 1;
+            }
+            this.structuralHash = res;
+        }
+        return res;
+    }
+
+    /**
+     * take the cached hash of original, which must be equal to this.
+     * every node in this must have its hash cached too, if there is any.
+     *
+     * @param original the node this is copied from.
+     */
+    void copyCachedHashCode(@NotNull AbstractTreeNode original) {
+        this.structuralHash = original.structuralHash;
+    }
+
+    /**
+     * <p>getCachedHashCode.</p>
+     *
+     * @return hashCode() if it is cached, or 0 if not.
+     */
+    protected int getCachedHashCode() {
+        return this.structuralHash;
     }
 
     /** {@inheritDoc} */
@@ -247,9 +368,18 @@ public abstract class AbstractTreeNode implements AutoCloseable {
      * @param parent a {@link com.xenoamess.x8l.ContentNode} object.
      */
     public void setParent(ContentNode parent) {
+        this.checkNotFrozen();
         this.parent = parent;
     }
 
+    int getIndexHint() {
+        return indexHint;
+    }
+
+    void setIndexHint(int indexHint) {
+        this.indexHint = indexHint;
+    }
+
     //---fetch---
 
     /**
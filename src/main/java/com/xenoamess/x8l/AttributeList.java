@@ -0,0 +1,688 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * AttributeList
+ * the attributes of a ContentNode, in order, as parallel arrays of keys, values and segments.
+ * <p>
+ * most nodes have only a few attributes, so keys are found by a linear scan,
+ * and a hashed index is only kept when there are more than INDEX_THRESHOLD of them.
+ * segments are only kept when they differ from the default ones,
+ * that is, a " " after each attribute but "" after the last one.
+ * <p>
+ * ContentNode.getAttributes(), getAttributesKeyList() and getAttributeSegments() are views of it,
+ * and every change through them tells the owner ContentNode,
+ * so that the caches of the owner can be invalidated,
+ * and a change of the first key, which is the name of the owner, is told too.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see ContentNode#contentChanged()
+ */
+final class AttributeList {
+    private static final String[] EMPTY = new String[0];
+
+    /**
+     * a hashed index is kept if there are more attributes than it.
+     */
+    static final int INDEX_THRESHOLD = 8;
+
+    private final ContentNode owner;
+    private String[] keys = EMPTY;
+    private String[] values = EMPTY;
+    /**
+     * segments after each attribute, or null if they are all default ones.
+     */
+    private String[] segments;
+    private int size;
+    /**
+     * key to its index, or null if there are not more than INDEX_THRESHOLD attributes.
+     * it is never built lazily, so reading a node that is not being changed from several threads is safe.
+     */
+    private HashMap<String, Integer> index;
+    /**
+     * if the arrays and index are the ones of a frozen AttributeList,
+     * and so must be copied before changed.
+     */
+    private boolean shared;
+
+    AttributeList(@NotNull ContentNode owner) {
+        this.owner = owner;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String getKey(int i) {
+        checkIndex(i);
+        return keys[i];
+    }
+
+    String getValue(int i) {
+        checkIndex(i);
+        return values[i];
+    }
+
+    String getSegment(int i) {
+        checkIndex(i);
+        if (segments == null) {
+            return defaultSegment(i);
+        }
+        return segments[i];
+    }
+
+    /**
+     * @return if segments are all default ones, and not kept.
+     */
+    boolean isDefaultSegments() {
+        return segments == null;
+    }
+
+    int indexOf(Object key) {
+        if (index != null) {
+            final Integer res = index.get(key);
+            return res == null ? -1 : res;
+        }
+        if (key == null) {
+            return -1;
+        }
+        // keys canonicalized by a X8lSymbolTable end at the identity check.
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    String get(Object key) {
+        final int i = this.indexOf(key);
+        return i < 0 ? null : values[i];
+    }
+
+    /**
+     * set the value of key, or add it at last if not found.
+     * for a new key, the segment after the attribute before it becomes " " if it were "".
+     *
+     * @param segment segment after the new attribute. not used if key is found.
+     * @return the old value, or null if key is new.
+     */
+    String put(@NotNull String key, @NotNull String value, @NotNull String segment) {
+        owner.contentChanged();
+        this.unshare();
+        final int i = this.indexOf(key);
+        if (i >= 0) {
+            final String res = values[i];
+            values[i] = value;
+            return res;
+        }
+        if (segments == null && !segment.equals(ContentNode.EMPTY_SEGMENT_VALUE)) {
+            this.makeSegments();
+        }
+        this.ensureCapacity(size + 1);
+        keys[size] = key;
+        values[size] = value;
+        if (segments != null) {
+            if (size > 0 && segments[size - 1].equals(ContentNode.EMPTY_SEGMENT_VALUE)) {
+                segments[size - 1] = ContentNode.DEFAULT_SEGMENT_VALUE;
+            }
+            segments[size] = segment;
+        }
+        size++;
+        if (index != null) {
+            index.put(key, size - 1);
+        } else if (size > INDEX_THRESHOLD) {
+            this.buildIndex();
+        }
+        if (size == 1) {
+            this.nameChanged("");
+        }
+        return null;
+    }
+
+    /**
+     * add a key at an index, with the default value and segment.
+     */
+    void insert(int i, @NotNull String key) {
+        if (i < 0 || i > size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        if (this.indexOf(key) >= 0) {
+            throw new IllegalArgumentException("attribute key already exists : " + key);
+        }
+        if (i == size) {
+            this.put(key, ContentNode.DEFAULT_ATTRIBUTE_VALUE, ContentNode.EMPTY_SEGMENT_VALUE);
+            return;
+        }
+        owner.contentChanged();
+        this.unshare();
+        this.ensureCapacity(size + 1);
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(values, i, values, i + 1, size - i);
+        keys[i] = key;
+        values[i] = ContentNode.DEFAULT_ATTRIBUTE_VALUE;
+        if (segments != null) {
+            System.arraycopy(segments, i, segments, i + 1, size - i);
+            segments[i] = ContentNode.DEFAULT_SEGMENT_VALUE;
+        }
+        size++;
+        this.resetIndex();
+        if (i == 0) {
+            this.nameChanged(size == 1 ? "" : keys[1]);
+        }
+    }
+
+    String setValue(int i, @NotNull String value) {
+        checkIndex(i);
+        owner.contentChanged();
+        this.unshare();
+        final String res = values[i];
+        values[i] = value;
+        return res;
+    }
+
+    String setKey(int i, @NotNull String key) {
+        checkIndex(i);
+        final int found = this.indexOf(key);
+        if (found >= 0 && found != i) {
+            throw new IllegalArgumentException("attribute key already exists : " + key);
+        }
+        owner.contentChanged();
+        this.unshare();
+        final String res = keys[i];
+        keys[i] = key;
+        if (index != null) {
+            index.remove(res);
+            index.put(key, i);
+        }
+        if (i == 0) {
+            this.nameChanged(res);
+        }
+        return res;
+    }
+
+    String setSegment(int i, @NotNull String segment) {
+        final String res = this.getSegment(i);
+        if (segments == null && segment.equals(res)) {
+            return res;
+        }
+        owner.contentChanged();
+        this.unshare();
+        if (segments == null) {
+            this.makeSegments();
+        }
+        segments[i] = segment;
+        return res;
+    }
+
+    /**
+     * remove the attribute at an index, with the segment after it.
+     * the segment after the attribute before it is kept, even if it becomes the last one.
+     */
+    void remove(int i) {
+        checkIndex(i);
+        owner.contentChanged();
+        this.unshare();
+        if (segments == null && i == size - 1 && i > 0) {
+            // the default segment after the new last attribute would be "" but it is " ".
+            this.makeSegments();
+        }
+        final String oldName = keys[0];
+        final int moved = size - i - 1;
+        System.arraycopy(keys, i + 1, keys, i, moved);
+        System.arraycopy(values, i + 1, values, i, moved);
+        if (segments != null) {
+            System.arraycopy(segments, i + 1, segments, i, moved);
+            segments[size - 1] = null;
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        this.resetIndex();
+        if (i == 0) {
+            this.nameChanged(oldName);
+        }
+    }
+
+    void clear() {
+        owner.contentChanged();
+        final String oldName = this.name();
+        keys = EMPTY;
+        values = EMPTY;
+        segments = null;
+        size = 0;
+        index = null;
+        shared = false;
+        this.nameChanged(oldName);
+    }
+
+    /**
+     * drop all segments, so default ones are used.
+     */
+    void omitSegments() {
+        if (segments != null) {
+            owner.contentChanged();
+            segments = null;
+        }
+    }
+
+    /**
+     * copy all attributes of another one into this, which must be empty.
+     * the arrays of a frozen one are shared, and only copied when this is changed.
+     */
+    void copyFrom(@NotNull AttributeList other) {
+        owner.contentChanged();
+        final String oldName = this.name();
+        size = other.size;
+        if (other.owner.isFrozen()) {
+            keys = other.keys;
+            values = other.values;
+            segments = other.segments;
+            index = other.index;
+            shared = true;
+        } else {
+            keys = size == 0 ? EMPTY : Arrays.copyOf(other.keys, size);
+            values = size == 0 ? EMPTY : Arrays.copyOf(other.values, size);
+            segments = other.segments == null ? null : Arrays.copyOf(other.segments, size);
+            index = other.index == null ? null : new HashMap<>(other.index);
+            shared = false;
+        }
+        this.nameChanged(oldName);
+    }
+
+    /**
+     * make the arrays of exactly the number of attributes,
+     * and canonicalize keys, short values and segments by symbolTable.
+     * it does not change the content, so the owner is not told.
+     */
+    void compact(@NotNull X8lSymbolTable symbolTable) {
+        if (shared) {
+            // the ones of a frozen AttributeList are compacted already.
+            return;
+        }
+        if (keys.length != size) {
+            keys = size == 0 ? EMPTY : Arrays.copyOf(keys, size);
+            values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+            if (segments != null) {
+                segments = Arrays.copyOf(segments, size);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            keys[i] = symbolTable.intern(keys[i]);
+            values[i] = symbolTable.internValue(values[i]);
+            if (segments != null) {
+                segments[i] = symbolTable.internValue(segments[i]);
+            }
+        }
+        if (index != null) {
+            this.buildIndex();
+        }
+    }
+
+    int structuralHash() {
+        int res = size;
+        for (int i = 0; i < size; i++) {
+            res = 31 * (31 * res + keys[i].hashCode()) + values[i].hashCode();
+        }
+        return res;
+    }
+
+    boolean contentEquals(@NotNull AttributeList other) {
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!keys[i].equals(other.keys[i]) || !values[i].equals(other.values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the first key, or "" if there is no attribute.
+     */
+    String name() {
+        return size == 0 ? "" : keys[0];
+    }
+
+    private void nameChanged(String oldName) {
+        if (!oldName.equals(this.name())) {
+            owner.nameChanged(oldName);
+        }
+    }
+
+    private static String defaultSegment(int i, int size) {
+        return i == size - 1 ? ContentNode.EMPTY_SEGMENT_VALUE : ContentNode.DEFAULT_SEGMENT_VALUE;
+    }
+
+    private String defaultSegment(int i) {
+        return defaultSegment(i, size);
+    }
+
+    private void makeSegments() {
+        final String[] res = new String[keys.length];
+        for (int i = 0; i < size; i++) {
+            res[i] = defaultSegment(i);
+        }
+        segments = res;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) {
+            return;
+        }
+        // exact for the few attributes most nodes have.
+        final int newCapacity = Math.max(capacity, capacity <= 4 ? capacity : keys.length + (keys.length >> 1));
+        keys = Arrays.copyOf(keys, newCapacity);
+        values = Arrays.copyOf(values, newCapacity);
+        if (segments != null) {
+            segments = Arrays.copyOf(segments, newCapacity);
+        }
+    }
+
+    private void unshare() {
+        if (!shared) {
+            return;
+        }
+        keys = keys.clone();
+        values = values.clone();
+        if (segments != null) {
+            segments = segments.clone();
+        }
+        if (index != null) {
+            index = new HashMap<>(index);
+        }
+        shared = false;
+    }
+
+    private void resetIndex() {
+        index = null;
+        if (size > INDEX_THRESHOLD) {
+            this.buildIndex();
+        }
+    }
+
+    private void buildIndex() {
+        final HashMap<String, Integer> res = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            res.put(keys[i], i);
+        }
+        index = res;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+
+    /**
+     * @return a Map view of it, keeping the order.
+     * a put of a new key adds it at last.
+     */
+    @NotNull Map<String, String> asMap() {
+        return new MapView();
+    }
+
+    /**
+     * @return a List view of the keys.
+     * adding a key adds an attribute with the default value, and removing one removes the attribute.
+     */
+    @NotNull List<String> keyList() {
+        return new KeyListView();
+    }
+
+    /**
+     * @return a List view of the segments, which can be set but not resized.
+     */
+    @NotNull List<String> segmentList() {
+        return new SegmentListView();
+    }
+
+    private final class MapView extends AbstractMap<String, String> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public String get(Object key) {
+            return AttributeList.this.get(key);
+        }
+
+        @Override
+        public String put(String key, String value) {
+            return AttributeList.this.put(
+                    key,
+                    value == null ? ContentNode.DEFAULT_ATTRIBUTE_VALUE : value,
+                    ContentNode.EMPTY_SEGMENT_VALUE
+            );
+        }
+
+        @Override
+        public String remove(Object key) {
+            final int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            final String res = values[i];
+            AttributeList.this.remove(i);
+            return res;
+        }
+
+        @Override
+        public void clear() {
+            AttributeList.this.clear();
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    AttributeList.this.clear();
+                }
+
+                @Override
+                public @NotNull Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+            };
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new Entry(keys[last]);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            AttributeList.this.remove(last);
+            next = last;
+            last = -1;
+        }
+    }
+
+    private final class Entry implements Map.Entry<String, String> {
+        private final String key;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return get(key);
+        }
+
+        @Override
+        public String setValue(String value) {
+            final int i = indexOf(key);
+            if (i < 0) {
+                throw new IllegalStateException("attribute removed : " + key);
+            }
+            return AttributeList.this.setValue(i, value == null ? ContentNode.DEFAULT_ATTRIBUTE_VALUE : value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return key.equals(entry.getKey()) && Objects.equals(this.getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(this.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + this.getValue();
+        }
+    }
+
+    private final class KeyListView extends AbstractList<String> implements RandomAccess {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String get(int i) {
+            return getKey(i);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return AttributeList.this.indexOf(o);
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            return AttributeList.this.indexOf(o);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return AttributeList.this.indexOf(o) >= 0;
+        }
+
+        @Override
+        public String set(int i, String key) {
+            return setKey(i, key);
+        }
+
+        @Override
+        public void add(int i, String key) {
+            insert(i, key);
+        }
+
+        @Override
+        public String remove(int i) {
+            final String res = getKey(i);
+            AttributeList.this.remove(i);
+            return res;
+        }
+
+        @Override
+        public void clear() {
+            AttributeList.this.clear();
+        }
+    }
+
+    private final class SegmentListView extends AbstractList<String> implements RandomAccess {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String get(int i) {
+            return getSegment(i);
+        }
+
+        @Override
+        public String set(int i, String segment) {
+            return setSegment(i, segment == null ? ContentNode.EMPTY_SEGMENT_VALUE : segment);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * ChangeTrackingList
+ * an ArrayList that tells its owner ContentNode every time it is changed,
+ * so that the serialized cache and the child name index of the owner can be kept up to date.
+ * <p>
+ * adding at last and removing at an index tell which element is changed,
+ * and any other change just tells that the list is changed.
+ * <p>
+ * iterators change the list through the methods here, so they are tracked too,
+ * and so does a subList, which is a view changing the list only through them.
+ * getting an iterator or a subList only to read is no change.
+ * <p>
+ * every element keeps a hint of its index, so indexOfIdentity costs no scan most of the time.
+ * hints are made right again in one pass, from the first index a change might have moved.
+ * an element in more than one list keeps only the hint of the last, so the others find it by a scan.
+ *
+ * @param <E> type of elements.
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see ContentNode#childrenChanged()
+ */
+class ChangeTrackingList<E extends AbstractTreeNode> extends ArrayList<E> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * not serialized, so serializing the list does not pull in the whole tree of the owner.
+     * a deserialized list has no owner, and can only be read.
+     */
+    private final transient ContentNode owner;
+    /**
+     * hints of elements before it are right.
+     */
+    private int hintedSize;
+
+    ChangeTrackingList(@NotNull ContentNode owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * the owner is not told of the elements it starts with.
+     */
+    ChangeTrackingList(@NotNull ContentNode owner, @NotNull Collection<? extends E> elements) {
+        super(elements);
+        this.owner = owner;
+    }
+
+    /**
+     * find an element by identity.
+     *
+     * @param o the element.
+     * @return index of it, or -1 if not found.
+     */
+    int indexOfIdentity(Object o) {
+        if (!(o instanceof AbstractTreeNode)) {
+            return -1;
+        }
+        final AbstractTreeNode node = (AbstractTreeNode) o;
+        // a hint not known to be right might still be.
+        int res = node.getIndexHint();
+        if (res >= 0 && res < this.size() && this.get(res) == node) {
+            return res;
+        }
+        if (hintedSize != this.size()) {
+            for (int i = hintedSize; i < this.size(); i++) {
+                this.get(i).setIndexHint(i);
+            }
+            hintedSize = this.size();
+            res = node.getIndexHint();
+            if (res >= 0 && res < this.size() && this.get(res) == node) {
+                return res;
+            }
+        }
+        // an element put into another list too has its hint moved by that list.
+        for (int i = 0; i < this.size(); i++) {
+            if (this.get(i) == node) {
+                node.setIndexHint(i);
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void moved(int fromIndex) {
+        hintedSize = Math.min(hintedSize, fromIndex);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        owner.childrenChanged();
+        final E res = super.set(index, element);
+        element.setIndexHint(index);
+        return res;
+    }
+
+    @Override
+    public boolean add(E e) {
+        super.add(e);
+        e.setIndexHint(this.size() - 1);
+        if (hintedSize == this.size() - 1) {
+            hintedSize++;
+        }
+        owner.childAdded(e);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index == this.size()) {
+            this.add(element);
+            return;
+        }
+        owner.childrenChanged();
+        super.add(index, element);
+        this.moved(index);
+    }
+
+    @Override
+    public E remove(int index) {
+        final E res = super.remove(index);
+        this.moved(index);
+        owner.childRemoved(res);
+        return res;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        final int index = this.indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        this.remove(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        owner.childrenChanged();
+        super.clear();
+        hintedSize = 0;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        owner.childrenChanged();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        owner.childrenChanged();
+        this.moved(index);
+        return super.addAll(index, c);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        owner.childrenChanged();
+        this.moved(fromIndex);
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        owner.childrenChanged();
+        hintedSize = 0;
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        owner.childrenChanged();
+        hintedSize = 0;
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        owner.childrenChanged();
+        hintedSize = 0;
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        owner.childrenChanged();
+        hintedSize = 0;
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c) {
+        owner.childrenChanged();
+        hintedSize = 0;
+        super.sort(c);
+    }
+
+    @Override
+    public @NotNull List<E> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > this.size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + this.size());
+        }
+        return new SubList(fromIndex, toIndex);
+    }
+
+    /**
+     * a range of the list, whose changes are done by the tracked methods of the list.
+     */
+    private class SubList extends AbstractList<E> implements RandomAccess {
+        private final int offset;
+        private int size;
+        private int expectedModCount;
+
+        private SubList(int fromIndex, int toIndex) {
+            this.offset = fromIndex;
+            this.size = toIndex - fromIndex;
+            this.expectedModCount = ChangeTrackingList.this.modCount;
+        }
+
+        @Override
+        public E get(int index) {
+            this.checkIndex(index, size - 1);
+            return ChangeTrackingList.this.get(offset + index);
+        }
+
+        @Override
+        public int size() {
+            this.checkModCount();
+            return size;
+        }
+
+        @Override
+        public E set(int index, E element) {
+            this.checkIndex(index, size - 1);
+            final E res = ChangeTrackingList.this.set(offset + index, element);
+            this.expectedModCount = ChangeTrackingList.this.modCount;
+            return res;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            this.checkIndex(index, size);
+            ChangeTrackingList.this.add(offset + index, element);
+            this.changed(1);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends E> c) {
+            this.checkIndex(index, size);
+            final int added = c.size();
+            if (added == 0) {
+                return false;
+            }
+            ChangeTrackingList.this.addAll(offset + index, c);
+            this.changed(added);
+            return true;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> c) {
+            return this.addAll(size, c);
+        }
+
+        @Override
+        public E remove(int index) {
+            this.checkIndex(index, size - 1);
+            final E res = ChangeTrackingList.this.remove(offset + index);
+            this.changed(-1);
+            return res;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            this.checkModCount();
+            if (fromIndex >= toIndex) {
+                return;
+            }
+            ChangeTrackingList.this.removeRange(offset + fromIndex, offset + toIndex);
+            this.changed(fromIndex - toIndex);
+        }
+
+        private void changed(int sizeChange) {
+            this.size += sizeChange;
+            this.expectedModCount = ChangeTrackingList.this.modCount;
+            this.modCount++;
+        }
+
+        private void checkIndex(int index, int max) {
+            this.checkModCount();
+            if (index < 0 || index > max) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+
+        private void checkModCount() {
+            if (ChangeTrackingList.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
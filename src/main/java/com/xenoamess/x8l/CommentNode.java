@@ -24,6 +24,8 @@
 
 package com.xenoamess.x8l;
 
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
 /**
  * CommentNode
  * CommentNode means some nodes with content.
@@ -33,6 +35,12 @@ package com.xenoamess.x8l;
  */
 public class CommentNode extends AbstractTreeNode {
     private String textContent;
+    /**
+     * the text content as it is in x8l, if known.
+     * it is always the same as X8lTree.transcodeComment(textContent),
+     * and textContent is only untranscoded from it when first used.
+     */
+    private String transcodedTextContent;
 
     /**
      * <p>Constructor for CommentNode.</p>
@@ -85,7 +93,12 @@ public class CommentNode extends AbstractTreeNode {
     /** {@inheritDoc} */
     @Override
     public CommentNode copy(ContentNode parent) {
-        return new CommentNode(parent, this.textContent);
+        CommentNode res = new CommentNode(parent, this.textContent);
+        // textContent might not be untranscoded yet, so set it again rather than let it be "".
+        res.textContent = this.textContent;
+        res.transcodedTextContent = this.transcodedTextContent;
+        res.copyCachedHashCode(this);
+        return res;
     }
 
     /** {@inheritDoc} */
@@ -97,7 +110,36 @@ public class CommentNode extends AbstractTreeNode {
         if (!treeNode.getClass().equals(this.getClass())) {
             return false;
         }
-        return textContent.equals(((CommentNode) treeNode).textContent);
+        return this.getTextContent().equals(((CommentNode) treeNode).getTextContent());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * short texts are canonicalized by symbolTable.
+     * if the text content differs from the transcoded one, only the transcoded one is kept,
+     * and the text content is untranscoded from it again when used.
+     */
+    @Override
+    protected void freeze(@NotNull X8lSymbolTable symbolTable) {
+        super.freeze(symbolTable);
+        if (this.transcodedTextContent == null) {
+            if (this.textContent != null) {
+                this.textContent = symbolTable.internValue(this.textContent);
+            }
+        } else if (this.textContent == this.transcodedTextContent) {
+            this.textContent = symbolTable.internValue(this.textContent);
+            this.transcodedTextContent = this.textContent;
+        } else {
+            this.textContent = null;
+            this.transcodedTextContent = symbolTable.internValue(this.transcodedTextContent);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int computeStructuralHash() {
+        return 31 * CommentNode.class.getName().hashCode() + Objects.hashCode(this.getTextContent());
     }
 
     /**
@@ -106,6 +148,9 @@ public class CommentNode extends AbstractTreeNode {
      * @return a {@link java.lang.String} object.
      */
     public String getTextContent() {
+        if (textContent == null && transcodedTextContent != null) {
+            textContent = X8lTree.untranscode(transcodedTextContent);
+        }
         return textContent;
     }
 
@@ -115,7 +160,32 @@ public class CommentNode extends AbstractTreeNode {
      * @param textContent a {@link java.lang.String} object.
      */
     public void setTextContent(String textContent) {
+        this.contentChanged();
         this.textContent = textContent;
+        this.transcodedTextContent = null;
+    }
+
+    /**
+     * <p>Getter for the field <code>transcodedTextContent</code>.</p>
+     *
+     * @return the text content as it is in x8l, or null if not known.
+     */
+    public String getTranscodedTextContent() {
+        return transcodedTextContent;
+    }
+
+    /**
+     * set the text content from its form in x8l.
+     * it is kept as it is, and only untranscoded when getTextContent is called.
+     *
+     * @param transcodedTextContent must be the same as X8lTree.transcodeComment(textContent).
+     * @param escaped               false if there is no % in transcodedTextContent,
+     *                              thus it is the text content itself.
+     */
+    public void setTranscodedTextContent(String transcodedTextContent, boolean escaped) {
+        this.contentChanged();
+        this.textContent = escaped ? null : transcodedTextContent;
+        this.transcodedTextContent = transcodedTextContent;
     }
 
 
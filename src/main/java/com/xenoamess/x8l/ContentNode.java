@@ -27,18 +27,21 @@ package com.xenoamess.x8l;
 import com.xenoamess.x8l.dealers.LanguageDealer;
 import com.xenoamess.x8l.dealers.X8lDealer;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * ContentNode
@@ -58,11 +61,37 @@ public class ContentNode extends AbstractTreeNode {
     /** Constant <code>EMPTY_SEGMENT_VALUE=""</code> */
     public static final String EMPTY_SEGMENT_VALUE = "";
 
-    private final List<AbstractTreeNode> children = new ArrayList<>();
-    private final Map<String, String> attributes = new HashMap<>();
-    private final List<String> attributesKeyList = new ArrayList<>();
+    /**
+     * a ChangeTrackingList, or a FrozenList after this node is frozen.
+     */
+    private List<AbstractTreeNode> children = new ChangeTrackingList<>(this);
+    /**
+     * a frozen node whose children are the ones of this, but not copied into children yet, or null.
+     * they are copied at the first use of children, one level at a time,
+     * so copying a frozen tree costs nothing until it is used, and changing it only copies the nodes on the way.
+     */
+    private ContentNode childrenSource;
+    /**
+     * attributes, with their keys in order and the segments after them.
+     * default segments are not kept.
+     */
+    private final AttributeList attributeList = new AttributeList(this);
+
+    /**
+     * this node written by X8lDealer, or null if not cached.
+     * if it is not null, serializedCache of every ContentNode in this node is not null either.
+     */
+    private String serializedCache;
+    private boolean serializedCacheEnabled;
 
-    private final List<String> attributeSegments = new ArrayList<>();
+    /**
+     * name to ContentNodes in children of that name, in order, or null if not built.
+     * it is only built by getContentNodesFromChildrenThatNameIs, when there are more children than
+     * CHILD_NAME_INDEX_THRESHOLD, and dropped by any change it cannot follow cheaply.
+     * like the rest of the tree, it is not synchronized, and is changed in place as children are changed.
+     * a frozen node builds it when frozen, so it is never written after the node is published.
+     */
+    private Map<String, List<ContentNode>> childNameIndex;
 
     /**
      * <p>Constructor for ContentNode.</p>
@@ -97,21 +126,15 @@ public class ContentNode extends AbstractTreeNode {
         if (segment == null) {
             segment = EMPTY_SEGMENT_VALUE;
         }
-        boolean addKey = !this.getAttributes().containsKey(key);
-        if (addKey) {
-            getAttributesKeyList().add(key);
-        }
-        getAttributes().put(key, value);
+        this.attributeList.put(key, value, segment);
+    }
 
-        if (addKey) {
-            if (!getAttributeSegments().isEmpty()) {
-                int size = getAttributeSegments().size();
-                if (getAttributeSegments().get(size - 1).equals(EMPTY_SEGMENT_VALUE)) {
-                    getAttributeSegments().set(size - 1, DEFAULT_SEGMENT_VALUE);
-                }
-            }
-            getAttributeSegments().add(segment);
-        }
+    /**
+     * drop all attribute segments.
+     * default ones are used instead.
+     */
+    public void omitAttributeSegments() {
+        this.attributeList.omitSegments();
     }
 
     /**
@@ -140,6 +163,17 @@ public class ContentNode extends AbstractTreeNode {
      * @param attributeExpressionString a {@link java.lang.String} object.
      */
     public void addAttributeFromTranscodedExpression(String attributeExpressionString) {
+        this.addAttributeFromTranscodedExpression(attributeExpressionString, null);
+    }
+
+    /**
+     * <p>addAttributeFromTranscodedExpression.</p>
+     *
+     * @param attributeExpressionString a {@link java.lang.String} object.
+     * @param symbolTable if not null, the key and short values are canonicalized by it.
+     */
+    public void addAttributeFromTranscodedExpression(String attributeExpressionString,
+                                                     @Nullable X8lSymbolTable symbolTable) {
         int index1 = 0;
         final int len = attributeExpressionString.length();
 
@@ -157,18 +191,21 @@ public class ContentNode extends AbstractTreeNode {
             }
         }
 
-        this.addAttribute(
-                StringUtils.substring(
-                        attributeExpressionString,
-                        0,
-                        index1
-                ),
-                StringUtils.substring(
-                        attributeExpressionString,
-                        index1 + 1,
-                        attributeExpressionString.length()
-                )
+        String key = StringUtils.substring(
+                attributeExpressionString,
+                0,
+                index1
+        );
+        String value = StringUtils.substring(
+                attributeExpressionString,
+                index1 + 1,
+                attributeExpressionString.length()
         );
+        if (symbolTable != null) {
+            key = symbolTable.intern(key);
+            value = symbolTable.internValue(value);
+        }
+        this.addAttribute(key, value);
     }
 
     /**
@@ -177,10 +214,10 @@ public class ContentNode extends AbstractTreeNode {
      * @param attributeString a {@link java.lang.String} object.
      */
     public void removeAttribute(String attributeString) {
-        int index = this.getAttributesKeyList().indexOf(attributeString);
-        getAttributeSegments().remove(index);
-        this.getAttributes().remove(attributeString);
-        this.getAttributesKeyList().remove(attributeString);
+        int index = this.attributeList.indexOf(attributeString);
+        if (index >= 0) {
+            this.attributeList.remove(index);
+        }
     }
 
     /** {@inheritDoc} */
@@ -206,36 +243,32 @@ public class ContentNode extends AbstractTreeNode {
     /** {@inheritDoc} */
     @Override
     public void clear() {
-        List<AbstractTreeNode> tmpChildren = new ArrayList<>(this.getChildren());
-        for (AbstractTreeNode au : tmpChildren) {
-            au.close();
+        this.checkNotFrozen();
+        // no need to copy children only to clear them.
+        this.childrenSource = null;
+        // the same as closing every child, but they are detached all at once,
+        // instead of each removing itself from children.
+        for (AbstractTreeNode au : this.getChildren()) {
+            au.clear();
+            au.setParent(null);
         }
         this.getChildren().clear();
-        this.getAttributes().clear();
-        this.getAttributesKeyList().clear();
+        this.attributeList.clear();
     }
 
     /**
      * <p>trimAttributeSegments.</p>
      */
     public void trimAttributeSegments() {
-        for (int i = 0; i < this.getAttributeSegments().size(); i++) {
-            this.getAttributeSegments().replaceAll(
-                    s -> DEFAULT_SEGMENT_VALUE
-            );
-        }
-        if (!this.getAttributeSegments().isEmpty()) {
-            this.getAttributeSegments().set(
-                    this.getAttributeSegments().size() - 1,
-                    ""
-            );
-        }
+        // trimmed ones are the default ones.
+        this.attributeList.omitSegments();
     }
 
     /**
      * <p>trim.</p>
      */
     public void trim() {
+        this.checkNotFrozen();
         trimAttributeSegments();
 
         List<AbstractTreeNode> newChildren = new ArrayList<>();
@@ -262,6 +295,7 @@ public class ContentNode extends AbstractTreeNode {
      * <p>trimForce.</p>
      */
     public void trimForce() {
+        this.checkNotFrozen();
         trimAttributeSegments();
 
         List<AbstractTreeNode> newChildren = new ArrayList<>();
@@ -303,7 +337,7 @@ public class ContentNode extends AbstractTreeNode {
      */
     public void formatAttributeSegments(int space) {
         this.trimAttributeSegments();
-        if (this.getAttributesKeyList().size() <= MAXIMAL_IGNORE_FORMAT_ATTRIBUTE_NUM) {
+        if (this.attributeList.size() <= MAXIMAL_IGNORE_FORMAT_ATTRIBUTE_NUM) {
             return;
         }
         StringBuilder stringBuilder = new StringBuilder();
@@ -311,16 +345,17 @@ public class ContentNode extends AbstractTreeNode {
             stringBuilder.append("    ");
         }
         String segment1 = "\n" + stringBuilder.toString() + "    ";
-        for (int i = 0; i < this.getAttributesKeyList().size() - 1; i++) {
-            this.getAttributeSegments().set(i, segment1);
+        for (int i = 0; i < this.attributeList.size() - 1; i++) {
+            this.attributeList.setSegment(i, segment1);
         }
         String segment2 = "\n" + stringBuilder.toString();
-        this.getAttributeSegments().set(this.getAttributesKeyList().size() - 1, segment2);
+        this.attributeList.setSegment(this.attributeList.size() - 1, segment2);
     }
 
     /** {@inheritDoc} */
     @Override
     public void format(int space) {
+        this.checkNotFrozen();
         formatAttributeSegments(space);
         //notice that space can less than 0 here.
         //thus this loop can never be changed to String.repeat().
@@ -453,17 +488,105 @@ public class ContentNode extends AbstractTreeNode {
         return res;
     }
 
+    private static final int CHILD_NAME_INDEX_THRESHOLD = 32;
+
+    private @Nullable Map<String, List<ContentNode>> getChildNameIndex() {
+        Map<String, List<ContentNode>> res = this.childNameIndex;
+        if (res != null || this.getChildren().size() <= CHILD_NAME_INDEX_THRESHOLD) {
+            return res;
+        }
+        res = new HashMap<>();
+        for (AbstractTreeNode child : this.getChildren()) {
+            if (child instanceof ContentNode) {
+                res.computeIfAbsent(((ContentNode) child).getName(), k -> new ArrayList<>())
+                        .add((ContentNode) child);
+            }
+        }
+        this.childNameIndex = res;
+        return res;
+    }
+
+    /**
+     * called by children when they are changed.
+     */
+    void childrenChanged() {
+        this.contentChanged();
+        this.childNameIndex = null;
+    }
+
+    /**
+     * called by children when child is added at last.
+     */
+    void childAdded(Object child) {
+        this.contentChanged();
+        final Map<String, List<ContentNode>> index = this.childNameIndex;
+        if (index != null && child instanceof ContentNode) {
+            index.computeIfAbsent(((ContentNode) child).getName(), k -> new ArrayList<>()).add((ContentNode) child);
+        }
+    }
+
+    /**
+     * called by children when child is removed.
+     */
+    void childRemoved(Object child) {
+        this.contentChanged();
+        final Map<String, List<ContentNode>> index = this.childNameIndex;
+        if (index != null && child instanceof ContentNode) {
+            this.removeFromChildNameIndex(index, (ContentNode) child, ((ContentNode) child).getName());
+        }
+    }
+
+    /**
+     * called by attributes when the name, that is, the first attribute key, is changed.
+     */
+    void nameChanged(String oldName) {
+        final ContentNode parent = this.getParent();
+        if (parent == null) {
+            return;
+        }
+        final Map<String, List<ContentNode>> index = parent.childNameIndex;
+        if (index == null) {
+            return;
+        }
+        final List<AbstractTreeNode> siblings = parent.getChildren();
+        // the order among the others of the new name is only known for the last child.
+        if (parent.removeFromChildNameIndex(index, this, oldName)
+                && siblings.get(siblings.size() - 1) == this) {
+            index.computeIfAbsent(this.getName(), k -> new ArrayList<>()).add(this);
+        } else {
+            parent.childNameIndex = null;
+        }
+    }
+
+    private boolean removeFromChildNameIndex(Map<String, List<ContentNode>> index, ContentNode child, String name) {
+        final List<ContentNode> list = index.get(name);
+        if (list != null) {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                if (list.get(i) == child) {
+                    list.remove(i);
+                    if (list.isEmpty()) {
+                        index.remove(name);
+                    }
+                    return true;
+                }
+            }
+        }
+        this.childNameIndex = null;
+        return false;
+    }
+
+    private static boolean isSameName(String nowName, String name, int nameHash) {
+        return nowName == name || (nowName.hashCode() == nameHash && nowName.equals(name));
+    }
+
     /**
      * <p>getName.</p>
      *
      * @return a {@link java.lang.String} object.
      */
     public String getName() {
-        if (!this.getAttributesKeyList().isEmpty()) {
-            return this.getAttributesKeyList().get(0);
-        } else {
-            return "";
-        }
+        // a new node is added to its parent in the constructor of AbstractTreeNode, before attributeList is made.
+        return this.attributeList == null ? "" : this.attributeList.name();
     }
 
     /**
@@ -478,15 +601,28 @@ public class ContentNode extends AbstractTreeNode {
 
     /**
      * <p>getContentNodesFromChildrenThatNameIs.</p>
+     * for a node with many children, an index from name to children is built at the first call,
+     * so later calls cost no scan.
      *
      * @param name a {@link java.lang.String} object.
      * @param maxSize a int.
      * @return a {@link java.util.List} object.
      */
     public List<ContentNode> getContentNodesFromChildrenThatNameIs(String name, int maxSize) {
+        final Map<String, List<ContentNode>> index = this.getChildNameIndex();
+        if (index != null) {
+            final List<ContentNode> found = index.get(name);
+            if (found == null) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(maxSize > 0 && maxSize < found.size() ? found.subList(0, maxSize) : found);
+        }
         List<ContentNode> res = new ArrayList<>();
+        // names canonicalized by a X8lSymbolTable end at the identity check,
+        // and the cached hashes of keys rule out most of the others without comparing chars.
+        final int nameHash = name.hashCode();
         for (AbstractTreeNode au : this.getChildren()) {
-            if (au instanceof ContentNode && ((ContentNode) au).getName().equals(name)) {
+            if (au instanceof ContentNode && isSameName(((ContentNode) au).getName(), name, nameHash)) {
                 res.add((ContentNode) au);
                 if (res.size() == maxSize) {
                     return res;
@@ -508,6 +644,7 @@ public class ContentNode extends AbstractTreeNode {
         if (abstractTreeNode == null) {
             return;
         }
+        this.checkNotFrozen();
         abstractTreeNode.setParent(this);
         this.getChildren().add(abstractTreeNode);
     }
@@ -556,6 +693,102 @@ public class ContentNode extends AbstractTreeNode {
         languageDealer.read(reader, this);
     }
 
+    /**
+     * <p>read.</p>
+     *
+     * @param charSequence a {@link java.lang.CharSequence} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull CharSequence charSequence) throws IOException {
+        this.read(charSequence, X8lDealer.INSTANCE);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param charSequence a {@link java.lang.CharSequence} object.
+     * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull CharSequence charSequence, @NotNull LanguageDealer languageDealer) throws IOException {
+        languageDealer.read(charSequence, this);
+    }
+
+    /**
+     * read utf-8 bytes from an InputStream.
+     * will not close the inputStream after reading.
+     *
+     * @param inputStream a {@link java.io.InputStream} object.
+     * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull InputStream inputStream, @NotNull LanguageDealer languageDealer) throws IOException {
+        languageDealer.read(inputStream, this);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param reader a {@link java.io.Reader} object.
+     * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull Reader reader, @NotNull LanguageDealer languageDealer,
+                     @NotNull ParseOptions parseOptions) throws IOException {
+        languageDealer.read(reader, this, parseOptions);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param charSequence a {@link java.lang.CharSequence} object.
+     * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull CharSequence charSequence, @NotNull LanguageDealer languageDealer,
+                     @NotNull ParseOptions parseOptions) throws IOException {
+        languageDealer.read(charSequence, this, parseOptions);
+    }
+
+    /**
+     * read utf-8 bytes from an InputStream.
+     * will not close the inputStream after reading.
+     *
+     * @param inputStream a {@link java.io.InputStream} object.
+     * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull InputStream inputStream, @NotNull LanguageDealer languageDealer,
+                     @NotNull ParseOptions parseOptions) throws IOException {
+        languageDealer.read(inputStream, this, parseOptions);
+    }
+
+    /**
+     * read the remaining utf-8 bytes of a ByteBuffer.
+     *
+     * @param byteBuffer a {@link java.nio.ByteBuffer} object.
+     * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull ByteBuffer byteBuffer, @NotNull LanguageDealer languageDealer) throws IOException {
+        languageDealer.read(byteBuffer, this);
+    }
+
+    /**
+     * read utf-8 bytes of a file, from its current position.
+     * will not close the fileChannel after reading.
+     *
+     * @param fileChannel a {@link java.nio.channels.FileChannel} object.
+     * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @throws java.io.IOException if any.
+     */
+    public void read(@NotNull FileChannel fileChannel, @NotNull LanguageDealer languageDealer) throws IOException {
+        languageDealer.read(fileChannel, this);
+    }
+
 
     /**
      * <p>applyToAllNodes.</p>
@@ -597,9 +830,63 @@ public class ContentNode extends AbstractTreeNode {
      * @return a {@link java.util.List} object.
      */
     public List<AbstractTreeNode> getChildren() {
+        if (this.childrenSource != null) {
+            this.copyChildrenFromSource();
+        }
         return children;
     }
 
+    /**
+     * get the children only to read them.
+     * unlike getChildren, children shared with a frozen node are not copied,
+     * so the list and the children in it may be the frozen ones, and must not be changed.
+     *
+     * @return a {@link java.util.List} object.
+     */
+    public List<AbstractTreeNode> getChildrenToRead() {
+        if (this.childrenSource != null) {
+            return this.childrenSource.getChildrenToRead();
+        }
+        return children;
+    }
+
+    /**
+     * make the children of this the ones of original, which must be frozen, while this must have no child.
+     * they are not copied until children of this are used.
+     *
+     * @param original the frozen node to share children with.
+     */
+    void shareChildrenFrom(@NotNull ContentNode original) {
+        this.contentChanged();
+        this.childrenSource = original;
+        if (this.getClass().equals(original.getClass())) {
+            this.copyCachedHashCode(original);
+        }
+    }
+
+    private void copyChildrenFromSource() {
+        final List<AbstractTreeNode> sourceChildren = this.childrenSource.getChildren();
+        this.childrenSource = null;
+        final List<AbstractTreeNode> copies = new ArrayList<>(sourceChildren.size());
+        boolean hashed = true;
+        for (AbstractTreeNode child : sourceChildren) {
+            final AbstractTreeNode copy = child.copy(null);
+            copy.setParent(this);
+            hashed &= copy.getCachedHashCode() != 0;
+            copies.add(copy);
+        }
+        // they are the same children, so caches are still right.
+        this.children = new ChangeTrackingList<>(this, copies);
+        if (!hashed) {
+            // a node with cached hash must not have any node without it.
+            this.invalidateStructuralHash();
+        }
+        if (this.serializedCache != null) {
+            // the same for the serialized cache, which copies have not.
+            this.invalidateSerializedCache();
+        }
+    }
+
     /**
      * if find child in this.children then remove it and return true;
      * otherwise return false.
@@ -608,31 +895,68 @@ public class ContentNode extends AbstractTreeNode {
      * @return if remove success.
      */
     public boolean removeChild(AbstractTreeNode child) {
-        Iterator<AbstractTreeNode> iterator = this.getChildren().iterator();
-        while (iterator.hasNext()) {
-            if (iterator.next() == child) {
-                iterator.remove();
-                return true;
-            }
+        this.checkNotFrozen();
+        // children keep hints of their indexes, so it seldom scans.
+        final int index = ((ChangeTrackingList<AbstractTreeNode>) this.getChildren()).indexOfIdentity(child);
+        if (index < 0) {
+            return false;
+        }
+        this.children.remove(index);
+        return true;
+    }
+
+    /**
+     * remove children in a range from this node, and set their parent to null.
+     * it costs time linear in the size of children, however many are removed.
+     *
+     * @param fromIndex index of the first child to remove, inclusive.
+     * @param toIndex   index of the last child to remove, exclusive.
+     * @return the removed children, in order.
+     */
+    public List<AbstractTreeNode> removeChildren(int fromIndex, int toIndex) {
+        this.checkNotFrozen();
+        final List<AbstractTreeNode> range = this.getChildren().subList(fromIndex, toIndex);
+        final List<AbstractTreeNode> res = new ArrayList<>(range);
+        range.clear();
+        for (AbstractTreeNode au : res) {
+            au.setParent(null);
+        }
+        return res;
+    }
+
+    /**
+     * move children in a range from this node into another node.
+     * it costs time linear in the size of children of both nodes, however many are moved.
+     *
+     * @param fromIndex   index of the first child to move, inclusive.
+     * @param toIndex     index of the last child to move, exclusive.
+     * @param target      the node to move them into. it can be this node.
+     * @param targetIndex index in the children of target to insert them at, counted after they are removed,
+     *                    or -1 to append them.
+     */
+    public void moveChildren(int fromIndex, int toIndex, @NotNull ContentNode target, int targetIndex) {
+        target.checkNotFrozen();
+        final List<AbstractTreeNode> moved = this.removeChildren(fromIndex, toIndex);
+        for (AbstractTreeNode au : moved) {
+            au.setParent(target);
+        }
+        if (targetIndex == -1) {
+            target.getChildren().addAll(moved);
+        } else {
+            target.getChildren().addAll(targetIndex, moved);
         }
-        return false;
     }
 
     /** {@inheritDoc} */
     @Override
     public ContentNode copy(@NotNull ContentNode parent) {
         ContentNode res = new ContentNode(parent);
-        // Deep copy attributes
-        for (Map.Entry<String, String> entry : this.getAttributes().entrySet()) {
-            res.getAttributes().put(entry.getKey(), entry.getValue());
-        }
-        // Deep copy attributesKeyList
-        for (String key : this.getAttributesKeyList()) {
-            res.getAttributesKeyList().add(key);
-        }
-        // Deep copy attributeSegments
-        for (String segment : this.getAttributeSegments()) {
-            res.getAttributeSegments().add(segment);
+        // Deep copy attributes, with their segments
+        res.copyAttributesFrom(this);
+        if (this.isFrozen()) {
+            // nothing in a frozen node changes, so it is shared until the copy is changed.
+            res.shareChildrenFrom(this);
+            return res;
         }
 
         // Deep copy children
@@ -651,6 +975,22 @@ public class ContentNode extends AbstractTreeNode {
         return res;
     }
 
+    /**
+     * copy all attributes of original, with their segments, into this, which must have no attribute.
+     *
+     * @param original the node to copy attributes from.
+     */
+    void copyAttributesFrom(@NotNull ContentNode original) {
+        this.attributeList.copyFrom(original.attributeList);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        final String res = this.serializedCache;
+        return res != null ? res : super.toString();
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean equals(Object treeNode) {
@@ -660,38 +1000,230 @@ public class ContentNode extends AbstractTreeNode {
         if (!treeNode.getClass().equals(this.getClass())) {
             return false;
         }
+        if (treeNode == this) {
+            return true;
+        }
         ContentNode contentNode = (ContentNode) treeNode;
+        // children not copied yet from the same node are equal.
+        final ContentNode source = this.childrenSource != null ? this.childrenSource : this;
+        if (source == (contentNode.childrenSource != null ? contentNode.childrenSource : contentNode)) {
+            return this.attributeList.contentEquals(contentNode.attributeList);
+        }
+        // reject cheaply before comparing all nodes in them.
+        final int hash = this.getCachedHashCode();
+        final int otherHash = contentNode.getCachedHashCode();
+        if (hash != 0 && otherHash != 0 && hash != otherHash) {
+            return false;
+        }
+        if (this.getChildren().size() != contentNode.getChildren().size()) {
+            return false;
+        }
 
-        return this.getAttributesKeyList().equals(contentNode.getAttributesKeyList())
-                && this.getAttributes().equals(contentNode.getAttributes())
+        return this.attributeList.contentEquals(contentNode.attributeList)
                 && this.getChildren().equals(contentNode.getChildren());
     }
 
     /**
-     * <p>Getter for the field <code>attributes</code>.</p>
+     * get the attributes, as a view keeping their order.
+     * putting a new key adds it as the last attribute, and removing a key removes the attribute.
      *
      * @return a {@link java.util.Map} object.
      */
     public Map<String, String> getAttributes() {
-        return attributes;
+        return this.attributeList.asMap();
     }
 
     /**
-     * <p>Getter for the field <code>attributesKeyList</code>.</p>
+     * get the keys of attributes, as a view.
+     * adding a key adds an attribute with the default value, and removing a key removes the attribute.
      *
      * @return a {@link java.util.List} object.
      */
     public List<String> getAttributesKeyList() {
-        return attributesKeyList;
+        return this.attributeList.keyList();
     }
 
     /**
-     * <p>Getter for the field <code>attributeSegments</code>.</p>
+     * get the segments after each attribute, as a view.
+     * segments can be set, but not added or removed, as they come with attributes.
      *
      * @return a {@link java.util.List} object.
      */
     public List<String> getAttributeSegments() {
-        return attributeSegments;
+        return this.attributeList.segmentList();
+    }
+
+    /**
+     * <p>getAttributeNum.</p>
+     *
+     * @return how many attributes there are.
+     */
+    public int getAttributeNum() {
+        return this.attributeList.size();
+    }
+
+    /**
+     * <p>getAttributeKey.</p>
+     *
+     * @param index index of the attribute.
+     * @return the key of the attribute.
+     */
+    public String getAttributeKey(int index) {
+        return this.attributeList.getKey(index);
+    }
+
+    /**
+     * <p>getAttributeValue.</p>
+     *
+     * @param index index of the attribute.
+     * @return the value of the attribute.
+     */
+    public String getAttributeValue(int index) {
+        return this.attributeList.getValue(index);
+    }
+
+    /**
+     * get the value of an attribute, without making a view.
+     *
+     * @param key key of the attribute.
+     * @return the value, or null if not found.
+     */
+    public String getAttribute(String key) {
+        return this.attributeList.get(key);
+    }
+
+    /**
+     * get the segment after an attribute.
+     *
+     * @param index index of the attribute.
+     * @return the segment, or the default one if segments are omitted.
+     */
+    public String getAttributeSegment(int index) {
+        return this.attributeList.getSegment(index);
+    }
+
+    /**
+     * enable or disable caching of the serialized form for this node and all nodes in it.
+     * <p>
+     * when enabled, every ContentNode written by X8lDealer keeps what it is written as,
+     * and the cache is dropped from the node and all its parents whenever the node is changed,
+     * so writing a tree again only writes the changed parts, and copies the cached ones.
+     * toString() of a cached node costs nothing.
+     * <p>
+     * disabling it drops all caches in this node.
+     *
+     * @param serializedCacheEnabled if caching be enabled.
+     */
+    public void setSerializedCacheEnabled(boolean serializedCacheEnabled) {
+        this.serializedCacheEnabled = serializedCacheEnabled;
+        if (!serializedCacheEnabled) {
+            // parents must not keep a cache that this node has not.
+            this.invalidateSerializedCache();
+            this.dropSerializedCaches();
+        }
+    }
+
+    /**
+     * <p>Getter for the field <code>serializedCacheEnabled</code>.</p>
+     *
+     * @return if caching of the serialized form is enabled on this node itself.
+     */
+    public boolean isSerializedCacheEnabled() {
+        return serializedCacheEnabled;
+    }
+
+    /**
+     * <p>isSerializedCacheEnabledWithParents.</p>
+     *
+     * @return if caching of the serialized form is enabled on this node or any of its parents.
+     */
+    public boolean isSerializedCacheEnabledWithParents() {
+        for (ContentNode nowNode = this; nowNode != null; nowNode = nowNode.getParent()) {
+            if (nowNode.serializedCacheEnabled) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>Getter for the field <code>serializedCache</code>.</p>
+     *
+     * @return this node written by X8lDealer, or null if not cached.
+     */
+    public @Nullable String getSerializedCache() {
+        return serializedCache;
+    }
+
+    /**
+     * <p>Setter for the field <code>serializedCache</code>.</p>
+     * only X8lWriter shall set it, after every ContentNode in this node is cached.
+     *
+     * @param serializedCache must be the same as this node written by X8lDealer.
+     */
+    public void setSerializedCache(@Nullable String serializedCache) {
+        this.serializedCache = serializedCache;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void contentChanged() {
+        this.checkNotFrozen();
+        this.invalidateStructuralHash();
+        this.invalidateSerializedCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * children are kept in an array of exactly their number.
+     */
+    @Override
+    protected void freeze(@NotNull X8lSymbolTable symbolTable) {
+        if (this.isFrozen()) {
+            return;
+        }
+        for (AbstractTreeNode child : this.getChildren()) {
+            child.freeze(symbolTable);
+        }
+        this.attributeList.compact(symbolTable);
+        this.children = FrozenList.of(this.children);
+        // built now, so that readers on other threads never write it.
+        this.getChildNameIndex();
+        super.freeze(symbolTable);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int computeStructuralHash() {
+        int res = 31 * this.getClass().getName().hashCode() + this.attributeList.structuralHash();
+        // children not copied yet have the same hashes as their copies.
+        for (AbstractTreeNode child : this.getChildrenToRead()) {
+            res = 31 * res + child.hashCode();
+        }
+        return res;
+    }
+
+    /**
+     * drop the serialized cache of this node and all its parents.
+     * it is called every time the node is changed.
+     */
+    public void invalidateSerializedCache() {
+        // a node without cache has no parent with cache.
+        for (ContentNode nowNode = this; nowNode != null && nowNode.serializedCache != null;
+             nowNode = nowNode.getParent()) {
+            nowNode.serializedCache = null;
+        }
+    }
+
+    private void dropSerializedCaches() {
+        this.serializedCache = null;
+        // children not copied yet have no cache.
+        for (AbstractTreeNode child : this.children) {
+            if (child instanceof ContentNode) {
+                ((ContentNode) child).dropSerializedCaches();
+            }
+        }
     }
 
     /**
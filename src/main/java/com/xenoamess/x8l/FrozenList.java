@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * FrozenList
+ * the children of a frozen ContentNode, as an array of exactly their number.
+ * <p>
+ * every change throws UnsupportedOperationException.
+ * the array is a final field, so the nodes in it are seen completely by any thread that sees the list.
+ *
+ * @param <E> type of elements.
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see ContentNode#freeze()
+ */
+final class FrozenList<E> extends AbstractList<E> implements RandomAccess {
+    private static final FrozenList<?> EMPTY = new FrozenList<>(new Object[0]);
+
+    private final Object[] elements;
+
+    private FrozenList(@NotNull Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * @param collection the elements, in order.
+     * @param <E>        type of elements.
+     * @return a FrozenList of them.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> FrozenList<E> of(@NotNull Collection<? extends E> collection) {
+        if (collection.isEmpty()) {
+            return (FrozenList<E>) EMPTY;
+        }
+        return new FrozenList<>(collection.toArray());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+}
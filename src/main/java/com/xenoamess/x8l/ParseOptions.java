@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.xenoamess.x8l;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * ParseOptions
+ * things to leave out of a tree while loading it, for consumers that never look at them.
+ * <p>
+ * with X8lDealer they are left out by the parser itself, so the tree comes out compact,
+ * without allocating them first and trimming them later.
+ * a skipped comment is scanned without being copied,
+ * and a whitespace-only text is dropped before any String is made for it.
+ * with other dealers, the tree is compacted the same way right after reading.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lTree#load(String, com.xenoamess.x8l.dealers.LanguageDealer, ParseOptions)
+ */
+public class ParseOptions {
+    private boolean skipComments;
+    private boolean skipWhitespaceTexts;
+    private boolean omitAttributeSegments;
+    private X8lSymbolTable symbolTable;
+
+    /**
+     * <p>Constructor for ParseOptions.</p>
+     * nothing is left out by default.
+     */
+    public ParseOptions() {
+    }
+
+    /**
+     * <p>Constructor for ParseOptions.</p>
+     *
+     * @param skipComments          do not build CommentNodes.
+     * @param skipWhitespaceTexts   do not build TextNodes that are empty or whitespace only,
+     *                              the same ones ContentNode.trim() removes.
+     * @param omitAttributeSegments do not keep attribute segments. default ones are used when needed.
+     */
+    public ParseOptions(boolean skipComments, boolean skipWhitespaceTexts, boolean omitAttributeSegments) {
+        this.skipComments = skipComments;
+        this.skipWhitespaceTexts = skipWhitespaceTexts;
+        this.omitAttributeSegments = omitAttributeSegments;
+    }
+
+    /**
+     * options for the most compact tree: everything that can be left out is left out.
+     *
+     * @return a new ParseOptions.
+     */
+    public static @NotNull ParseOptions compact() {
+        return new ParseOptions(true, true, true);
+    }
+
+    /**
+     * compact a tree that is already built, the same way as these options compact a tree while parsing.
+     * only TextNodes and CommentNodes of exactly these classes are removed.
+     *
+     * @param contentNode the node to compact, with everything in it.
+     */
+    public void apply(@NotNull ContentNode contentNode) {
+        if (omitAttributeSegments) {
+            contentNode.omitAttributeSegments();
+        }
+        List<AbstractTreeNode> newChildren = null;
+        final List<AbstractTreeNode> children = contentNode.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            AbstractTreeNode au = children.get(i);
+            boolean keep = true;
+            if (au instanceof ContentNode) {
+                this.apply((ContentNode) au);
+            } else if (skipWhitespaceTexts && au.getClass().equals(TextNode.class)) {
+                keep = !StringUtils.isBlank(((TextNode) au).getTextContent());
+            } else if (skipComments && au.getClass().equals(CommentNode.class)) {
+                keep = false;
+            }
+            if (!keep && newChildren == null) {
+                newChildren = new ArrayList<>(children.subList(0, i));
+            } else if (keep && newChildren != null) {
+                newChildren.add(au);
+            }
+        }
+        if (newChildren != null) {
+            children.clear();
+            children.addAll(newChildren);
+        }
+    }
+
+    /**
+     * <p>isSkipComments.</p>
+     *
+     * @return true if CommentNodes are not built.
+     */
+    public boolean isSkipComments() {
+        return skipComments;
+    }
+
+    /**
+     * <p>Setter for the field <code>skipComments</code>.</p>
+     *
+     * @param skipComments do not build CommentNodes.
+     */
+    public void setSkipComments(boolean skipComments) {
+        this.skipComments = skipComments;
+    }
+
+    /**
+     * <p>isSkipWhitespaceTexts.</p>
+     *
+     * @return true if TextNodes that are empty or whitespace only are not built.
+     */
+    public boolean isSkipWhitespaceTexts() {
+        return skipWhitespaceTexts;
+    }
+
+    /**
+     * <p>Setter for the field <code>skipWhitespaceTexts</code>.</p>
+     *
+     * @param skipWhitespaceTexts do not build TextNodes that are empty or whitespace only.
+     */
+    public void setSkipWhitespaceTexts(boolean skipWhitespaceTexts) {
+        this.skipWhitespaceTexts = skipWhitespaceTexts;
+    }
+
+    /**
+     * <p>isOmitAttributeSegments.</p>
+     *
+     * @return true if attribute segments are not kept.
+     */
+    public boolean isOmitAttributeSegments() {
+        return omitAttributeSegments;
+    }
+
+    /**
+     * <p>Setter for the field <code>omitAttributeSegments</code>.</p>
+     *
+     * @param omitAttributeSegments do not keep attribute segments. default ones are used when needed.
+     */
+    public void setOmitAttributeSegments(boolean omitAttributeSegments) {
+        this.omitAttributeSegments = omitAttributeSegments;
+    }
+
+    /**
+     * <p>Getter for the field <code>symbolTable</code>.</p>
+     *
+     * @return the symbol table to canonicalize attribute keys and short values with, or null.
+     */
+    public @Nullable X8lSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * <p>Setter for the field <code>symbolTable</code>.</p>
+     *
+     * @param symbolTable the symbol table to canonicalize attribute keys and short values with, or null.
+     *                    only used by X8lDealer.
+     */
+    public void setSymbolTable(@Nullable X8lSymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+}
@@ -24,9 +24,6 @@
 
 package com.xenoamess.x8l;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -67,17 +64,12 @@ public class RootNode extends ContentNode {
         }
         RootNode res = new RootNode(null); // RootNode typically has a null parent.
 
-        // Deep copy attributes from this (which is a RootNode, extending ContentNode)
-        for (Map.Entry<String, String> entry : this.getAttributes().entrySet()) {
-            res.getAttributes().put(entry.getKey(), entry.getValue());
-        }
-        // Deep copy attributesKeyList
-        for (String key : this.getAttributesKeyList()) {
-            res.getAttributesKeyList().add(key);
-        }
-        // Deep copy attributeSegments
-        for (String segment : this.getAttributeSegments()) {
-            res.getAttributeSegments().add(segment);
+        // Deep copy attributes from this (which is a RootNode, extending ContentNode), with their segments
+        res.copyAttributesFrom(this);
+        if (this.isFrozen()) {
+            // shared until changed.
+            res.shareChildrenFrom(this);
+            return res;
         }
 
         // Deep copy children
@@ -97,36 +89,16 @@ public class RootNode extends ContentNode {
     public void copyFrom(@NotNull RootNode original) {
         // Clear current state of this RootNode
         this.getAttributes().clear();
-        this.getAttributesKeyList().clear();
-        this.getAttributeSegments().clear();
         // Clear children, ensuring they are detached from this node first
-        List<AbstractTreeNode> childrenToDetach = new ArrayList<>(this.getChildren());
-        for (AbstractTreeNode child : childrenToDetach) {
-            child.setParent(null); // Detach from this node
-        }
-        this.getChildren().clear();
+        this.removeChildren(0, this.getChildren().size());
 
-        // Deep copy attributes from original
-        // Ensure segments are copied correctly, matching the logic in ContentNode's addAttribute
-        for (int i = 0; i < original.getAttributesKeyList().size(); i++) {
-            String key = original.getAttributesKeyList().get(i);
-            String value = original.getAttributes().get(key);
-            String segment = "";
-            if (i < original.getAttributeSegments().size()) {
-                segment = original.getAttributeSegments().get(i);
-            }
-            // Use the existing addAttribute that handles map, keyList, and segments
-            this.addAttribute(key, value, segment);
+        // Deep copy attributes from original, with their segments
+        this.copyAttributesFrom(original);
+        if (original.isFrozen()) {
+            // shared until changed.
+            this.shareChildrenFrom(original);
+            return;
         }
-        // Ensure the last segment is correctly set if it was empty in the original
-        if (!original.getAttributesKeyList().isEmpty() && original.getAttributeSegments().size() == original.getAttributesKeyList().size()) {
-            if (original.getAttributeSegments().get(original.getAttributeSegments().size() - 1).isEmpty()) {
-                 if (!this.getAttributeSegments().isEmpty()) {
-                    this.getAttributeSegments().set(this.getAttributeSegments().size() - 1, "");
-                 }
-            }
-        }
-
 
         // Deep copy children
         for (AbstractTreeNode abstractTreeNode : original.getChildren()) {
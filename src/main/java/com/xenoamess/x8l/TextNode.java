@@ -24,6 +24,8 @@
 
 package com.xenoamess.x8l;
 
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
 /**
  * TextNode
  * TextNode means some nodes with text.
@@ -33,6 +35,12 @@ package com.xenoamess.x8l;
  */
 public class TextNode extends AbstractTreeNode {
     private String textContent;
+    /**
+     * the text content as it is in x8l, if known.
+     * it is always the same as X8lTree.transcodeText(textContent),
+     * and textContent is only untranscoded from it when first used.
+     */
+    private String transcodedTextContent;
 
     /**
      * <p>Constructor for TextNode.</p>
@@ -86,7 +94,12 @@ public class TextNode extends AbstractTreeNode {
     /** {@inheritDoc} */
     @Override
     public TextNode copy(ContentNode parent) {
-        return new TextNode(parent, this.textContent);
+        TextNode res = new TextNode(parent, this.textContent);
+        // textContent might not be untranscoded yet, so set it again rather than let it be "".
+        res.textContent = this.textContent;
+        res.transcodedTextContent = this.transcodedTextContent;
+        res.copyCachedHashCode(this);
+        return res;
     }
 
     /** {@inheritDoc} */
@@ -98,7 +111,36 @@ public class TextNode extends AbstractTreeNode {
         if (!treeNode.getClass().equals(this.getClass())) {
             return false;
         }
-        return textContent.equals(((TextNode) treeNode).textContent);
+        return this.getTextContent().equals(((TextNode) treeNode).getTextContent());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * short texts are canonicalized by symbolTable.
+     * if the text content differs from the transcoded one, only the transcoded one is kept,
+     * and the text content is untranscoded from it again when used.
+     */
+    @Override
+    protected void freeze(@NotNull X8lSymbolTable symbolTable) {
+        super.freeze(symbolTable);
+        if (this.transcodedTextContent == null) {
+            if (this.textContent != null) {
+                this.textContent = symbolTable.internValue(this.textContent);
+            }
+        } else if (this.textContent == this.transcodedTextContent) {
+            this.textContent = symbolTable.internValue(this.textContent);
+            this.transcodedTextContent = this.textContent;
+        } else {
+            this.textContent = null;
+            this.transcodedTextContent = symbolTable.internValue(this.transcodedTextContent);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int computeStructuralHash() {
+        return 31 * TextNode.class.getName().hashCode() + Objects.hashCode(this.getTextContent());
     }
 
     /**
@@ -107,6 +149,9 @@ public class TextNode extends AbstractTreeNode {
      * @return a {@link java.lang.String} object.
      */
     public String getTextContent() {
+        if (textContent == null && transcodedTextContent != null) {
+            textContent = X8lTree.untranscode(transcodedTextContent);
+        }
         return textContent;
     }
 
@@ -116,6 +161,31 @@ public class TextNode extends AbstractTreeNode {
      * @param textContent a {@link java.lang.String} object.
      */
     public void setTextContent(String textContent) {
+        this.contentChanged();
         this.textContent = textContent;
+        this.transcodedTextContent = null;
+    }
+
+    /**
+     * <p>Getter for the field <code>transcodedTextContent</code>.</p>
+     *
+     * @return the text content as it is in x8l, or null if not known.
+     */
+    public String getTranscodedTextContent() {
+        return transcodedTextContent;
+    }
+
+    /**
+     * set the text content from its form in x8l.
+     * it is kept as it is, and only untranscoded when getTextContent is called.
+     *
+     * @param transcodedTextContent must be the same as X8lTree.transcodeText(textContent).
+     * @param escaped               false if there is no % in transcodedTextContent,
+     *                              thus it is the text content itself.
+     */
+    public void setTranscodedTextContent(String transcodedTextContent, boolean escaped) {
+        this.contentChanged();
+        this.textContent = escaped ? null : transcodedTextContent;
+        this.transcodedTextContent = transcodedTextContent;
     }
 }
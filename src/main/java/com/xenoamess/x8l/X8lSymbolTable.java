@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * X8lSymbolTable
+ * canonicalizes repeated Strings (attribute keys, node names, short values) while parsing.
+ * <p>
+ * data files repeat the same keys thousands of times.
+ * with a symbol table every occurrence is the same String instance,
+ * so a loaded tree keeps only one copy of each,
+ * and name comparisons usually end at the identity check.
+ * the hash of every symbol is computed once, when it is added.
+ * <p>
+ * use one table per parse, or share one table between parses of similar files.
+ * it is thread safe, and it never forgets a symbol, so do not share it with unbounded inputs.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ */
+public final class X8lSymbolTable {
+    /** Constant <code>DEFAULT_MAX_VALUE_LENGTH=32</code> */
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 32;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxValueLength;
+
+    /**
+     * open addressing with linear probing. length is a power of 2, and at most half used.
+     */
+    private String[] symbols = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * <p>Constructor for X8lSymbolTable.</p>
+     */
+    public X8lSymbolTable() {
+        this(DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * <p>Constructor for X8lSymbolTable.</p>
+     *
+     * @param maxValueLength attribute values not longer than this are canonicalized too. 0 means never.
+     */
+    public X8lSymbolTable(int maxValueLength) {
+        this.maxValueLength = maxValueLength;
+    }
+
+    /**
+     * get the canonical instance of string.
+     *
+     * @param string string
+     * @return the String in this table that equals string. string itself if it is new.
+     */
+    public synchronized @NotNull String intern(@NotNull String string) {
+        final int hash = string.hashCode();
+        final int mask = symbols.length - 1;
+        int index = mix(hash) & mask;
+        String symbol;
+        while ((symbol = symbols[index]) != null) {
+            if (symbol == string || (hashes[index] == hash && symbol.equals(string))) {
+                return symbol;
+            }
+            index = (index + 1) & mask;
+        }
+        symbols[index] = string;
+        hashes[index] = hash;
+        if (++size << 1 > symbols.length) {
+            this.grow();
+        }
+        return string;
+    }
+
+    /**
+     * get the canonical instance of an attribute value, if it is short enough.
+     *
+     * @param value value
+     * @return the canonical instance, or value itself if it is longer than maxValueLength.
+     */
+    public @NotNull String internValue(@NotNull String value) {
+        return value.length() <= maxValueLength ? this.intern(value) : value;
+    }
+
+    /**
+     * <p>size.</p>
+     *
+     * @return count of symbols in this table.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * <p>Getter for the field <code>maxValueLength</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+
+    private void grow() {
+        final String[] oldSymbols = symbols;
+        final int[] oldHashes = hashes;
+        symbols = new String[oldSymbols.length << 1];
+        hashes = new int[oldSymbols.length << 1];
+        final int mask = symbols.length - 1;
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] != null) {
+                int index = mix(oldHashes[i]) & mask;
+                while (symbols[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                symbols[index] = oldSymbols[i];
+                hashes[index] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * spread the bits of String.hashCode, which is weak in low bits for short strings.
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -26,13 +26,18 @@ package com.xenoamess.x8l;
 
 import com.xenoamess.commons.as_final_field.AsFinalField;
 import com.xenoamess.x8l.databind.X8lDataBeanFieldScheme;
+import com.xenoamess.x8l.databind.x8lpath.X8lPathProjection;
 import com.xenoamess.x8l.dealers.JsonDealer;
 import com.xenoamess.x8l.dealers.LanguageDealer;
 import com.xenoamess.x8l.dealers.X8lDealer;
+import com.xenoamess.x8l.dealers.X8lParallelParser;
+import com.xenoamess.x8l.dealers.X8lParallelWriter;
+import com.xenoamess.x8l.dealers.X8lParser;
+import com.xenoamess.x8l.dealers.X8lStreamWriter;
 import com.xenoamess.x8l.dealers.XmlDealer;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -45,12 +50,16 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Serializable;
-import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -89,6 +98,11 @@ public class X8lTree implements AutoCloseable, Serializable {
 
     @AsFinalField
     private transient @NotNull RootNode root = new RootNode(null);
+    /**
+     * the root if this tree is frozen, or null if not.
+     * it is final, so the whole frozen tree is seen by any thread that sees this tree.
+     */
+    private final transient @Nullable RootNode frozenRoot;
     private transient Reader reader;
 
     private static final List<LanguageDealer> LANGUAGE_DEALER_LIST =
@@ -156,7 +170,8 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @return a {@link com.xenoamess.x8l.RootNode} object.
      */
     public @NotNull RootNode getRoot() {
-        return root;
+        final RootNode res = this.frozenRoot;
+        return res != null ? res : root;
     }
 
     /*
@@ -177,9 +192,33 @@ public class X8lTree implements AutoCloseable, Serializable {
         }
         X8lTree res;
         try (
-                Reader reader = Files.newBufferedReader(path)
+                InputStream inputStream = Files.newInputStream(path)
         ) {
-            res = load(reader, dealer);
+            res = load(inputStream, dealer);
+        }
+        return res;
+    }
+
+    /**
+     * <p>load.</p>
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @param dealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see ParseOptions
+     */
+    public static @NotNull X8lTree load(@Nullable Path path, @NotNull LanguageDealer dealer,
+                                        @NotNull ParseOptions parseOptions) throws IOException {
+        if (path == null || !Files.isReadable(path)) {
+            throw new FileNotFoundException(path == null ? "null" : path.toString());
+        }
+        X8lTree res;
+        try (
+                InputStream inputStream = Files.newInputStream(path)
+        ) {
+            res = load(inputStream, dealer, parseOptions);
         }
         return res;
     }
@@ -219,6 +258,157 @@ public class X8lTree implements AutoCloseable, Serializable {
         return load(path, suspectDealer(path.toString(), getLanguageDealerListCopy()));
     }
 
+    /**
+     * load by mapping the file into memory instead of reading it through heap buffers.
+     * with X8lDealer, the bytes are parsed straight from the mapping,
+     * and files larger than 2 GB are mapped one window after another.
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @param dealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     */
+    public static @NotNull X8lTree loadMapped(@Nullable Path path, @NotNull LanguageDealer dealer) throws IOException {
+        if (path == null || !Files.isReadable(path)) {
+            throw new FileNotFoundException(path == null ? "null" : path.toString());
+        }
+        X8lTree res = new X8lTree(null, dealer);
+        try (
+                FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)
+        ) {
+            res.read(fileChannel, dealer);
+        }
+        return res;
+    }
+
+    /**
+     * load by mapping the file into memory instead of reading it through heap buffers.
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @param possibleDealerList a {@link java.util.List} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see #loadMapped(Path, LanguageDealer)
+     */
+    public static @NotNull X8lTree loadMapped(@Nullable Path path, @NotNull List<LanguageDealer> possibleDealerList) throws IOException {
+        if (path == null || !Files.isReadable(path)) {
+            throw new FileNotFoundException(path == null ? "null" : path.toString());
+        }
+        for (LanguageDealer dealer : possibleDealerList) {
+            try {
+                return loadMapped(path, dealer);
+            } catch (Exception e) {
+                LOGGER.debug("Try to use a dealer to load a X8lTree but failed. dealer:{}, path:{}", dealer,
+                        path, e);
+            }
+        }
+        throw new X8lGrammarException("None of my dealers can parse this. Sorry. details are in the log.");
+    }
+
+    /**
+     * load by mapping the file into memory instead of reading it through heap buffers.
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see #loadMapped(Path, LanguageDealer)
+     */
+    public static @NotNull X8lTree loadMapped(@Nullable Path path) throws IOException {
+        if (path == null || !Files.isReadable(path)) {
+            throw new FileNotFoundException(path == null ? "null" : path.toString());
+        }
+        return loadMapped(path, suspectDealer(path.toString(), getLanguageDealerListCopy()));
+    }
+
+    /**
+     * load a x8l file on several threads of the common ForkJoinPool.
+     * files too large for a byte[] are loaded by loadMapped instead.
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see X8lParallelParser
+     */
+    public static @NotNull X8lTree loadParallel(@Nullable Path path) throws IOException {
+        if (path == null || !Files.isReadable(path)) {
+            throw new FileNotFoundException(path == null ? "null" : path.toString());
+        }
+        if (Files.size(path) > Integer.MAX_VALUE - 8) {
+            return loadMapped(path, X8lDealer.INSTANCE);
+        }
+        X8lTree res = new X8lTree();
+        new X8lParallelParser().parse(Files.readAllBytes(path), res.getRoot());
+        return res;
+    }
+
+    /**
+     * load a x8l document on several threads of the common ForkJoinPool.
+     *
+     * @param charSequence a {@link java.lang.CharSequence} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @see X8lParallelParser
+     */
+    public static @NotNull X8lTree loadParallel(@NotNull CharSequence charSequence) {
+        X8lTree res = new X8lTree();
+        new X8lParallelParser().parse(charSequence, res.getRoot());
+        return res;
+    }
+
+    /**
+     * load only what the x8lPaths can reach, from a x8l file.
+     * everything else is skipped while parsing, without any node built.
+     * fetching the same x8lPaths from the result gives the same as from a full load.
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @param x8lPaths an array of x8lPath
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see X8lPathProjection
+     */
+    public static @NotNull X8lTree loadProjected(@Nullable Path path, @NotNull String[] x8lPaths) throws IOException {
+        if (path == null || !Files.isReadable(path)) {
+            throw new FileNotFoundException(path == null ? "null" : path.toString());
+        }
+        X8lTree res = new X8lTree();
+        try (
+                FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)
+        ) {
+            new X8lParser(new X8lPathProjection(res.getRoot(), x8lPaths)).parse(fileChannel);
+        }
+        return res;
+    }
+
+    /**
+     * load only what the x8lPaths can reach, from utf-8 bytes of x8l.
+     *
+     * @param inputStream a {@link java.io.InputStream} object.
+     * @param x8lPaths an array of x8lPath
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see #loadProjected(Path, String[])
+     */
+    public static @NotNull X8lTree loadProjected(@NotNull InputStream inputStream, @NotNull String[] x8lPaths) throws IOException {
+        X8lTree res = new X8lTree();
+        try (InputStream autoCloseInputStream = inputStream) {
+            new X8lParser(new X8lPathProjection(res.getRoot(), x8lPaths)).parse(autoCloseInputStream);
+        }
+        return res;
+    }
+
+    /**
+     * load only what the x8lPaths can reach, from x8l.
+     *
+     * @param charSequence a {@link java.lang.CharSequence} object.
+     * @param x8lPaths an array of x8lPath
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @see #loadProjected(Path, String[])
+     */
+    public static @NotNull X8lTree loadProjected(@NotNull CharSequence charSequence, @NotNull String[] x8lPaths) {
+        X8lTree res = new X8lTree();
+        new X8lParser(new X8lPathProjection(res.getRoot(), x8lPaths)).parse(charSequence);
+        return res;
+    }
+
     /**
      * <p>save.</p>
      *
@@ -235,10 +425,42 @@ public class X8lTree implements AutoCloseable, Serializable {
             Files.createFile(path);
         }
 
+        save(Files.newOutputStream(path), x8lTree);
+    }
+
+    /**
+     * save by mapping the file into memory instead of writing it through heap buffers.
+     * with X8lDealer, utf-8 bytes are encoded straight into the mapping, one window after another.
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @param x8lTree a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     */
+    public static void saveMapped(@NotNull Path path, @NotNull X8lTree x8lTree) throws IOException {
         try (
-                Writer writer = Files.newBufferedWriter(path)
+                FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
         ) {
-            x8lTree.write(writer);
+            x8lTree.write(fileChannel, x8lTree.getLanguageDealer());
+        }
+    }
+
+    /**
+     * save on several threads of the common ForkJoinPool.
+     * only trees of X8lDealer are written in parallel, others are just saved.
+     *
+     * @param path a {@link java.nio.file.Path} object.
+     * @param x8lTree a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see X8lParallelWriter
+     */
+    public static void saveParallel(@NotNull Path path, @NotNull X8lTree x8lTree) throws IOException {
+        if (x8lTree.getLanguageDealer() != X8lDealer.INSTANCE) {
+            save(path, x8lTree);
+            return;
+        }
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            new X8lParallelWriter().write(x8lTree.getRoot(), outputStream);
         }
     }
 
@@ -344,6 +566,12 @@ public class X8lTree implements AutoCloseable, Serializable {
             throw new FileNotFoundException(file == null ? "null" : file.getAbsolutePath());
         }
         X8lTree res;
+        if (StandardCharsets.UTF_8.equals(Charset.defaultCharset())) {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                res = load(inputStream, dealer);
+            }
+            return res;
+        }
         try (Reader reader = buffer(new FileReader(file))) {
             res = load(reader, dealer);
         }
@@ -417,11 +645,30 @@ public class X8lTree implements AutoCloseable, Serializable {
      */
     public static @NotNull X8lTree load(@NotNull String string, @NotNull LanguageDealer dealer) {
         X8lTree res;
-        try (
-                StringReader stringReader = new StringReader(string)
-        ) {
-            res = new X8lTree(stringReader, dealer);
-            res.parse();
+        try {
+            res = new X8lTree(null, dealer);
+            res.read(string, dealer);
+        } catch (Exception e) {
+            throw new X8lGrammarException("X8lTree.load(X8lTree x8lTree) fails. Really dom't know why.", e);
+        }
+        return res;
+    }
+
+    /**
+     * <p>load.</p>
+     *
+     * @param string a {@link java.lang.String} object.
+     * @param dealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @see ParseOptions
+     */
+    public static @NotNull X8lTree load(@NotNull String string, @NotNull LanguageDealer dealer,
+                                        @NotNull ParseOptions parseOptions) {
+        X8lTree res;
+        try {
+            res = new X8lTree(null, dealer);
+            res.read(string, dealer, parseOptions);
         } catch (Exception e) {
             throw new X8lGrammarException("X8lTree.load(X8lTree x8lTree) fails. Really dom't know why.", e);
         }
@@ -437,11 +684,9 @@ public class X8lTree implements AutoCloseable, Serializable {
      */
     public static @NotNull X8lTree load(@NotNull String string, @NotNull List<LanguageDealer> possibleDealerList) {
         for (LanguageDealer dealer : possibleDealerList) {
-            try (
-                    StringReader stringReader = new StringReader(string)
-            ) {
-                X8lTree res = new X8lTree(stringReader, dealer);
-                res.parse();
+            try {
+                X8lTree res = new X8lTree(null, dealer);
+                res.read(string, dealer);
                 return res;
             } catch (Exception e) {
                 LOGGER.debug("Try to use a dealer to load a X8lTree but failed. dealer:{}, treeString:{}", dealer,
@@ -493,9 +738,28 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @throws java.io.IOException if any.
      */
     public static @NotNull X8lTree load(@NotNull InputStream inputStream, @NotNull LanguageDealer dealer) throws IOException {
-        X8lTree x8lTree;
-        try (Reader reader = buffer(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            x8lTree = load(reader, dealer);
+        X8lTree x8lTree = new X8lTree(null, dealer);
+        try (InputStream autoCloseInputStream = inputStream) {
+            x8lTree.read(autoCloseInputStream, dealer);
+        }
+        return x8lTree;
+    }
+
+    /**
+     * <p>load.</p>
+     *
+     * @param inputStream a {@link java.io.InputStream} object.
+     * @param dealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     * @see ParseOptions
+     */
+    public static @NotNull X8lTree load(@NotNull InputStream inputStream, @NotNull LanguageDealer dealer,
+                                        @NotNull ParseOptions parseOptions) throws IOException {
+        X8lTree x8lTree = new X8lTree(null, dealer);
+        try (InputStream autoCloseInputStream = inputStream) {
+            x8lTree.read(autoCloseInputStream, dealer, parseOptions);
         }
         return x8lTree;
     }
@@ -532,14 +796,51 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @throws java.io.IOException if any.
      */
     public static void save(@NotNull OutputStream outputStream, @NotNull X8lTree x8lTree) throws IOException {
-        try (
-                BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-                Writer writer = new OutputStreamWriter(bufferedOutputStream, StandardCharsets.UTF_8)
-        ) {
-            x8lTree.write(writer);
+        try (OutputStream autoCloseOutputStream = outputStream) {
+            x8lTree.write(autoCloseOutputStream, x8lTree.getLanguageDealer());
         }
     }
 
+    /*
+     * ByteBuffer
+     */
+
+    /**
+     * load from the remaining utf-8 bytes of a ByteBuffer.
+     *
+     * @param byteBuffer a {@link java.nio.ByteBuffer} object.
+     * @param dealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     * @throws java.io.IOException if any.
+     */
+    public static @NotNull X8lTree load(@NotNull ByteBuffer byteBuffer, @NotNull LanguageDealer dealer) throws IOException {
+        X8lTree x8lTree = new X8lTree(null, dealer);
+        x8lTree.read(byteBuffer, dealer);
+        return x8lTree;
+    }
+
+    /**
+     * load from the remaining utf-8 bytes of a ByteBuffer.
+     *
+     * @param byteBuffer a {@link java.nio.ByteBuffer} object.
+     * @param possibleDealerList a {@link java.util.List} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     */
+    public static @NotNull X8lTree load(@NotNull ByteBuffer byteBuffer,
+                                        @NotNull List<LanguageDealer> possibleDealerList) {
+        return load(StandardCharsets.UTF_8.decode(byteBuffer).toString(), possibleDealerList);
+    }
+
+    /**
+     * load from the remaining utf-8 bytes of a ByteBuffer.
+     *
+     * @param byteBuffer a {@link java.nio.ByteBuffer} object.
+     * @return a {@link com.xenoamess.x8l.X8lTree} object.
+     */
+    public static @NotNull X8lTree load(@NotNull ByteBuffer byteBuffer) {
+        return load(byteBuffer, getLanguageDealerListCopy());
+    }
+
     /*
      * Reader,Writer
      */
@@ -606,6 +907,7 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
      */
     public X8lTree(@Nullable Reader reader, @NotNull LanguageDealer languageDealer) {
+        this.frozenRoot = null;
         this.setReader(reader);
         this.setLanguageDealer(languageDealer);
     }
@@ -619,6 +921,7 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @throws java.io.IOException if any.
      */
     public X8lTree(@Nullable Reader reader, @NotNull LanguageDealer languageDealer, boolean readItNow) throws IOException {
+        this.frozenRoot = null;
         this.setReader(reader);
         this.setLanguageDealer(languageDealer);
         if (readItNow) {
@@ -636,6 +939,7 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @param original a {@link com.xenoamess.x8l.X8lTree} object.
      */
     public X8lTree(@Nullable X8lTree original) {
+        this.frozenRoot = null;
         this.setReader(null);
         if (original != null) {
             this.setLanguageDealer(original.getLanguageDealer());
@@ -648,6 +952,45 @@ public class X8lTree implements AutoCloseable, Serializable {
         }
     }
 
+    private X8lTree(@NotNull LanguageDealer languageDealer, @NotNull RootNode frozenRoot) {
+        this.frozenRoot = frozenRoot;
+        this.root = frozenRoot;
+        this.languageDealer = languageDealer;
+    }
+
+    /**
+     * make an immutable snapshot of this tree.
+     * <p>
+     * every node in it is compacted, that is, children and attributes are kept in arrays of exactly their number,
+     * segments of attributes are only kept if they are not the default ones,
+     * and equal keys and short texts and values in it are made the same string.
+     * hashes of all nodes are computed at once.
+     * all read methods work on it as on this tree, like fetch, getContentNodesFromChildren, asStringMap and write,
+     * but any change to it, or to a node in it, throws UnsupportedOperationException.
+     * <p>
+     * it can be published to other threads without synchronization.
+     * to change it, copy() it into a mutable tree, which is cheap as nodes are shared until changed.
+     *
+     * @return a frozen copy of this tree, or this tree itself if it is frozen already.
+     */
+    public @NotNull X8lTree freeze() {
+        if (this.isFrozen()) {
+            return this;
+        }
+        final RootNode res = this.getRoot().copy((ContentNode) null);
+        res.freeze(new X8lSymbolTable());
+        return new X8lTree(this.getLanguageDealer(), res);
+    }
+
+    /**
+     * <p>isFrozen.</p>
+     *
+     * @return if this tree is made by freeze(), and can not be changed.
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return this.frozenRoot != null;
+    }
 
     /**
      * <p>clear.</p>
@@ -720,6 +1063,96 @@ public class X8lTree implements AutoCloseable, Serializable {
         this.getRoot().read(reader, languageDealer);
     }
 
+    /**
+     * read from a CharSequence directly, without wrapping it into a Reader.
+     *
+     * @param charSequence   charSequence
+     * @param languageDealer languageDealer
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void read(@NotNull CharSequence charSequence, @NotNull LanguageDealer languageDealer) throws IOException {
+        this.getRoot().read(charSequence, languageDealer);
+    }
+
+    /**
+     * read utf-8 bytes from an InputStream.
+     * will not close the inputStream after reading.
+     *
+     * @param inputStream    inputStream
+     * @param languageDealer languageDealer
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void read(@NotNull InputStream inputStream, @NotNull LanguageDealer languageDealer) throws IOException {
+        this.getRoot().read(inputStream, languageDealer);
+    }
+
+    /**
+     * will not close the reader after reading.
+     * leaves out what parseOptions tells.
+     *
+     * @param reader         reader
+     * @param languageDealer languageDealer
+     * @param parseOptions   parseOptions
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void read(@NotNull Reader reader, @NotNull LanguageDealer languageDealer,
+                     @NotNull ParseOptions parseOptions) throws IOException {
+        this.getRoot().read(reader, languageDealer, parseOptions);
+    }
+
+    /**
+     * read from a CharSequence directly, without wrapping it into a Reader.
+     * leaves out what parseOptions tells.
+     *
+     * @param charSequence   charSequence
+     * @param languageDealer languageDealer
+     * @param parseOptions   parseOptions
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void read(@NotNull CharSequence charSequence, @NotNull LanguageDealer languageDealer,
+                     @NotNull ParseOptions parseOptions) throws IOException {
+        this.getRoot().read(charSequence, languageDealer, parseOptions);
+    }
+
+    /**
+     * read utf-8 bytes from an InputStream.
+     * will not close the inputStream after reading.
+     * leaves out what parseOptions tells.
+     *
+     * @param inputStream    inputStream
+     * @param languageDealer languageDealer
+     * @param parseOptions   parseOptions
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void read(@NotNull InputStream inputStream, @NotNull LanguageDealer languageDealer,
+                     @NotNull ParseOptions parseOptions) throws IOException {
+        this.getRoot().read(inputStream, languageDealer, parseOptions);
+    }
+
+    /**
+     * read the remaining utf-8 bytes of a ByteBuffer.
+     *
+     * @param byteBuffer     byteBuffer
+     * @param languageDealer languageDealer
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void read(@NotNull ByteBuffer byteBuffer, @NotNull LanguageDealer languageDealer) throws IOException {
+        this.getRoot().read(byteBuffer, languageDealer);
+    }
+
+    /**
+     * read utf-8 bytes of a file, from its current position.
+     * X8lDealer maps the file into memory for this.
+     * will not close the fileChannel after reading.
+     *
+     * @param fileChannel    fileChannel
+     * @param languageDealer languageDealer
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void read(@NotNull FileChannel fileChannel, @NotNull LanguageDealer languageDealer) throws IOException {
+        this.getRoot().read(fileChannel, languageDealer);
+    }
+
 
     /**
      * <p>write.</p>
@@ -743,6 +1176,102 @@ public class X8lTree implements AutoCloseable, Serializable {
         writer.close();
     }
 
+    /**
+     * write utf-8 bytes to an OutputStream.
+     * X8lDealer encodes them by itself, without a Writer.
+     * will not close the outputStream after writing.
+     *
+     * @param outputStream   outputStream
+     * @param languageDealer languageDealer
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void write(@NotNull OutputStream outputStream, @NotNull LanguageDealer languageDealer) throws IOException {
+        languageDealer.write(outputStream, this.getRoot());
+    }
+
+    /**
+     * write utf-8 bytes to a WritableByteChannel.
+     * X8lDealer encodes them by itself, without a Writer.
+     * will not close the channel after writing.
+     *
+     * @param channel        channel
+     * @param languageDealer languageDealer
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void write(@NotNull WritableByteChannel channel, @NotNull LanguageDealer languageDealer) throws IOException {
+        languageDealer.write(channel, this.getRoot());
+    }
+
+    /**
+     * write utf-8 bytes to a file, from its current position.
+     * X8lDealer maps the file into memory for this.
+     * will not close the fileChannel after writing.
+     *
+     * @param fileChannel    fileChannel
+     * @param languageDealer languageDealer
+     * @throws java.io.IOException java.io.IOException
+     */
+    public void write(@NotNull FileChannel fileChannel, @NotNull LanguageDealer languageDealer) throws IOException {
+        languageDealer.write(fileChannel, this.getRoot());
+    }
+
+    /**
+     * write the tree as if it is formatted, but without changing it.
+     * the output is the same as format() then write(writer), while the tree stays untouched.
+     * X8lDealer computes the indents while writing; other dealers format a copy of the tree.
+     * close the writer after writing.
+     *
+     * @param writer writer
+     * @throws java.io.IOException java.io.IOException
+     * @see #format()
+     */
+    public void writeFormatted(@NotNull Writer writer) throws IOException {
+        if (this.getLanguageDealer() == X8lDealer.INSTANCE) {
+            try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(writer, true)) {
+                x8lStreamWriter.write(this.getRoot());
+            }
+        } else {
+            this.copy().format().write(writer);
+        }
+    }
+
+    /**
+     * write utf-8 bytes of the tree as if it is formatted, but without changing it.
+     * will not close the outputStream after writing.
+     *
+     * @param outputStream outputStream
+     * @throws java.io.IOException java.io.IOException
+     * @see #writeFormatted(Writer)
+     */
+    public void writeFormatted(@NotNull OutputStream outputStream) throws IOException {
+        if (this.getLanguageDealer() == X8lDealer.INSTANCE) {
+            X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(outputStream, true);
+            x8lStreamWriter.write(this.getRoot());
+            x8lStreamWriter.endDocument();
+        } else {
+            this.copy().format().write(outputStream, this.getLanguageDealer());
+        }
+    }
+
+    /**
+     * <p>toFormattedString.</p>
+     *
+     * @return the same as copy().format().toString(), without copying the tree.
+     * @see #writeFormatted(Writer)
+     */
+    public @NotNull String toFormattedString() {
+        String res;
+        try (
+                StringWriter stringWriter = new StringWriter()
+        ) {
+            this.writeFormatted(stringWriter);
+            res = stringWriter.toString();
+        } catch (IOException e) {
+            throw new X8lGrammarException("X8lTree.toFormattedString() fails.", e);
+        }
+        return res;
+    }
+
 
     /**
      * <p>parse.</p>
@@ -789,6 +1318,20 @@ public class X8lTree implements AutoCloseable, Serializable {
         return this;
     }
 
+    /**
+     * enable or disable caching of the serialized form of every ContentNode in the tree.
+     * when enabled, writing the tree again by X8lDealer only writes the parts changed since last write.
+     *
+     * @param serializedCacheEnabled if caching be enabled.
+     * @return the original X8lTree is changed and then returned.
+     * @see ContentNode#setSerializedCacheEnabled(boolean)
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public @NotNull X8lTree setSerializedCacheEnabled(boolean serializedCacheEnabled) {
+        this.getRoot().setSerializedCacheEnabled(serializedCacheEnabled);
+        return this;
+    }
+
     /**
      * format the tree.
      * notice that format will trim every text content in text nodes and comment nodes.
@@ -909,6 +1452,12 @@ public class X8lTree implements AutoCloseable, Serializable {
     /** {@inheritDoc} */
     @Override
     public @NotNull String toString() {
+        if (this.getLanguageDealer() == X8lDealer.INSTANCE) {
+            final String serializedCache = this.getRoot().getSerializedCache();
+            if (serializedCache != null) {
+                return serializedCache;
+            }
+        }
         return save(this);
     }
 
@@ -933,10 +1482,14 @@ public class X8lTree implements AutoCloseable, Serializable {
                 && this.getRoot().equals(x8lTree.getRoot());
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * it is the cached structural hash of the root.
+     */
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        return this.getRoot().hashCode();
     }
 
     /**
@@ -1019,6 +1572,7 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @param languageDealer a {@link com.xenoamess.x8l.dealers.LanguageDealer} object.
      */
     public void setLanguageDealer(@NotNull LanguageDealer languageDealer) {
+        this.checkNotFrozen();
         this.languageDealer = languageDealer;
     }
 
@@ -1037,11 +1591,21 @@ public class X8lTree implements AutoCloseable, Serializable {
      * @param reader a {@link java.io.Reader} object.
      */
     public void setReader(@Nullable Reader reader) {
+        this.checkNotFrozen();
         this.reader = reader;
     }
 
+    private void checkNotFrozen() {
+        if (this.isFrozen()) {
+            throw new UnsupportedOperationException("a frozen tree can not be changed");
+        }
+    }
+
     /**
      * make a deep copy of this X8lTree.
+     * <p>
+     * if this tree is frozen, the copy shares nodes with it, and only copies them on the way to where it is used,
+     * so copying costs no more than one node, and a change costs about the depth of the changed node.
      *
      * @return a deep copy of this
      */
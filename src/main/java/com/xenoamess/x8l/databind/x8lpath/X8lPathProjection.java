@@ -0,0 +1,234 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.xenoamess.x8l.databind.x8lpath;
+
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.dealers.X8lEventHandler;
+import com.xenoamess.x8l.dealers.X8lTreeBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * X8lPathProjection
+ * a X8lEventHandler that only builds what some x8lPaths can reach.
+ * <p>
+ * the leading steps of a x8lPath that pick ContentNodes by name and range
+ * (CONTENT_NODE(name)[range], CONTENT_NODE[range] or name[range]) are pushed down into parsing.
+ * for each PARENT step later in the x8lPath, one step less is pushed down.
+ * ContentNodes on the way are built with their attributes only,
+ * and a ContentNode picked by the last of these steps is built with everything in it.
+ * all other ContentNodes are rejected, so X8lParser skips them without building anything,
+ * and texts and comments on the way are dropped.
+ * <p>
+ * ContentNodes before the range of a step are kept (without children), and ones after it are skipped,
+ * so fetching the same x8lPaths from the built tree gives the same result as from a full load.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see com.xenoamess.x8l.X8lTree#loadProjected(CharSequence, String[])
+ */
+public class X8lPathProjection implements X8lEventHandler {
+    private final X8lTreeBuilder builder;
+    /**
+     * the leading ContentNode picking steps of each x8lPath.
+     */
+    private final X8lPathStep[][] steps;
+    /**
+     * frames of ContentNodes on the way. the last one is of the ContentNode being built now.
+     */
+    private final List<Frame> frames = new ArrayList<>();
+    private Frame acceptedFrame;
+    /**
+     * depth inside a ContentNode built with everything, or 0.
+     */
+    private int fullDepth;
+
+    /**
+     * <p>Constructor for X8lPathProjection.</p>
+     *
+     * @param contentNode the node to build into.
+     * @param x8lPaths    the x8lPaths to keep things for.
+     */
+    public X8lPathProjection(@NotNull ContentNode contentNode, @NotNull String... x8lPaths) {
+        this.builder = new X8lTreeBuilder(contentNode);
+        this.steps = new X8lPathStep[x8lPaths.length][];
+        Frame root = new Frame(x8lPaths.length);
+        for (int i = 0; i < x8lPaths.length; i++) {
+            List<X8lPathStep> stepList = new ArrayList<>();
+            boolean picking = true;
+            int parentCount = 0;
+            for (X8lPathStep step : X8lPathStep.readAll(x8lPaths[i])) {
+                picking = picking && step.picksContentNodes();
+                if (picking) {
+                    stepList.add(step);
+                } else if ("PARENT".equals(step.operation)) {
+                    parentCount++;
+                }
+            }
+            // each PARENT step later climbs out one level, so start building fully that much higher.
+            stepList = stepList.subList(0, Math.max(0, stepList.size() - parentCount));
+            if (stepList.isEmpty()) {
+                // this x8lPath can reach anything.
+                fullDepth = 1;
+            }
+            steps[i] = stepList.toArray(new X8lPathStep[0]);
+            root.add(i, 0);
+        }
+        frames.add(root);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean acceptContentNode(@NotNull List<String> attributesKeyList,
+                                     @NotNull List<String> attributesValueList) {
+        if (fullDepth > 0) {
+            return true;
+        }
+        final String name = attributesKeyList.isEmpty() ? "" : attributesKeyList.get(0);
+        final Frame frame = frames.get(frames.size() - 1);
+        Frame res = null;
+        boolean counted = false;
+        for (int i = 0; i < frame.size; i++) {
+            final int path = frame.paths[i];
+            final X8lPathStep step = steps[path][frame.stepIndexes[i]];
+            final String stepName = step.contentNodeName();
+            if (stepName != null && !stepName.equals(name)) {
+                continue;
+            }
+            final int index = frame.counts[i]++;
+            if (step.endIndexInclusive != -1 && index > step.endIndexInclusive) {
+                continue;
+            }
+            counted = true;
+            if (index < step.beginIndexInclusive) {
+                continue;
+            }
+            if (res == null) {
+                res = new Frame(frame.size);
+            }
+            res.add(path, frame.stepIndexes[i] + 1);
+        }
+        if (res == null) {
+            // kept only if it takes a place in a range.
+            acceptedFrame = counted ? new Frame(0) : null;
+            return counted;
+        }
+        for (int i = 0; i < res.size; i++) {
+            if (res.stepIndexes[i] == steps[res.paths[i]].length) {
+                res.full = true;
+                break;
+            }
+        }
+        acceptedFrame = res;
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startContentNode(@NotNull List<String> attributesKeyList,
+                                 @NotNull List<String> attributesValueList) {
+        builder.startContentNode(attributesKeyList, attributesValueList);
+        if (fullDepth > 0) {
+            fullDepth++;
+        } else if (acceptedFrame.full) {
+            fullDepth = 1;
+        } else {
+            frames.add(acceptedFrame);
+        }
+        acceptedFrame = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endContentNode() {
+        builder.endContentNode();
+        if (fullDepth > 0) {
+            fullDepth--;
+        } else {
+            frames.remove(frames.size() - 1);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void text(@NotNull String textContent) {
+        if (fullDepth > 0) {
+            builder.text(textContent);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void comment(@NotNull String textContent) {
+        if (fullDepth > 0) {
+            builder.comment(textContent);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void transcodedText(@NotNull String transcodedTextContent, boolean escaped) {
+        if (fullDepth > 0) {
+            builder.transcodedText(transcodedTextContent, escaped);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void transcodedComment(@NotNull String transcodedTextContent, boolean escaped) {
+        if (fullDepth > 0) {
+            builder.transcodedComment(transcodedTextContent, escaped);
+        }
+    }
+
+    /**
+     * steps of x8lPaths still to match against children of a ContentNode, with counts of matched children.
+     */
+    private static final class Frame {
+        private int[] paths;
+        private int[] stepIndexes;
+        private int[] counts;
+        private int size;
+        private boolean full;
+
+        private Frame(int capacity) {
+            this.paths = new int[capacity];
+            this.stepIndexes = new int[capacity];
+            this.counts = new int[capacity];
+        }
+
+        private void add(int path, int stepIndex) {
+            if (size == paths.length) {
+                paths = Arrays.copyOf(paths, size + 1);
+                stepIndexes = Arrays.copyOf(stepIndexes, size + 1);
+                counts = Arrays.copyOf(counts, size + 1);
+            }
+            paths[size] = path;
+            stepIndexes[size] = stepIndex;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.xenoamess.x8l.databind.x8lpath;
+
+import com.xenoamess.x8l.X8lGrammarException;
+import com.xenoamess.x8l.X8lTree;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * X8lPathStep
+ * one step of a x8lPath, between two unescaped "&gt;".
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lPathUtil
+ */
+final class X8lPathStep {
+    final @NotNull String operation;
+    final @Nullable String name;
+    final int beginIndexInclusive;
+    /**
+     * -1 means to the end.
+     */
+    final int endIndexInclusive;
+    /**
+     * true if this is the last step of the x8lPath.
+     */
+    final boolean finished;
+
+    private X8lPathStep(
+            @NotNull String operation,
+            @Nullable String name,
+            int beginIndexInclusive,
+            int endIndexInclusive,
+            boolean finished
+    ) {
+        this.operation = operation;
+        this.name = name;
+        this.beginIndexInclusive = beginIndexInclusive;
+        this.endIndexInclusive = endIndexInclusive;
+        this.finished = finished;
+    }
+
+    /**
+     * read the next step from reader.
+     *
+     * @param reader reader of a x8lPath
+     * @return the step
+     * @throws java.io.IOException reader.read
+     */
+    static @NotNull X8lPathStep read(@NotNull Reader reader) throws IOException {
+        boolean finished = false;
+
+        StringBuilder stringBuilder = new StringBuilder();
+        boolean lastCharIsModulus = false;
+        char nowChar;
+        int nowInt;
+        String operation = null;
+        String name = null;
+        String range = null;
+
+        int beginIndexInclusive = 0;
+        int endIndexInclusive = -1;
+        while (true) {
+            nowInt = reader.read();
+            nowChar = (char) nowInt;
+            if (nowInt == -1) {
+                finished = true;
+
+                if (operation == null) {
+                    operation = stringBuilder.toString();
+                }
+                break;
+            } else if (lastCharIsModulus) {
+                stringBuilder.append(nowChar);
+                lastCharIsModulus = false;
+            } else if (nowChar == '%') {
+                lastCharIsModulus = true;
+            } else if (nowChar == '>') {
+                if (operation == null) {
+                    operation = stringBuilder.toString();
+                }
+                break;
+            } else if (nowChar == '(') {
+                if (operation == null) {
+                    operation = stringBuilder.toString();
+                }
+                stringBuilder = new StringBuilder();
+            } else if (nowChar == ')') {
+                name = stringBuilder.toString();
+                stringBuilder = new StringBuilder();
+            } else if (nowChar == '[') {
+                if (operation == null) {
+                    operation = stringBuilder.toString();
+                }
+                stringBuilder = new StringBuilder();
+            } else if (nowChar == ']') {
+                range = stringBuilder.toString();
+                stringBuilder = new StringBuilder();
+            } else {
+                stringBuilder.append(nowChar);
+            }
+        }
+
+        operation = X8lTree.untranscode(operation);
+
+        if (name != null) {
+            name = X8lTree.untranscode(name);
+        }
+        if (range != null) {
+            int separatorIndex = range.indexOf(',');
+            if (separatorIndex == -1) {
+                endIndexInclusive = beginIndexInclusive = Integer.parseInt(range.trim());
+            } else {
+                String beginString = range.substring(0, separatorIndex);
+                if (StringUtils.isNotBlank(beginString)) {
+                    beginIndexInclusive = Integer.parseInt(beginString);
+                }
+                String endString = range.substring(separatorIndex + 1);
+                if (StringUtils.isNotBlank(endString)) {
+                    endIndexInclusive = Integer.parseInt(endString);
+                }
+            }
+        }
+        return new X8lPathStep(operation, name, beginIndexInclusive, endIndexInclusive, finished);
+    }
+
+    /**
+     * read all steps of a x8lPath.
+     *
+     * @param x8lPath x8lPath
+     * @return the steps
+     */
+    static @NotNull List<X8lPathStep> readAll(@NotNull String x8lPath) {
+        List<X8lPathStep> res = new ArrayList<>();
+        try (StringReader stringReader = new StringReader(x8lPath)) {
+            X8lPathStep step;
+            do {
+                step = read(stringReader);
+                res.add(step);
+            } while (!step.finished);
+        } catch (IOException e) {
+            throw new X8lGrammarException("fetch fails.", e);
+        }
+        return res;
+    }
+
+    /**
+     * <p>picksContentNodes.</p>
+     *
+     * @return true if this step only picks ContentNodes from children, by contentNodeName and range.
+     */
+    boolean picksContentNodes() {
+        switch (operation) {
+            case "CONTENT_NODE":
+                return true;
+            case "PARENT":
+            case "CHILD":
+            case "TEXT_NODE":
+            case "COMMENT_NODE":
+            case "ATTRIBUTE":
+            case "TEXT_CONTENT":
+                return false;
+            default:
+                return name == null;
+        }
+    }
+
+    /**
+     * <p>contentNodeName.</p>
+     *
+     * @return name of ContentNodes this step picks, or null for any ContentNode.
+     */
+    @Nullable String contentNodeName() {
+        return "CONTENT_NODE".equals(operation) ? name : operation;
+    }
+}
@@ -29,14 +29,12 @@ import com.xenoamess.x8l.CommentNode;
 import com.xenoamess.x8l.ContentNode;
 import com.xenoamess.x8l.TextNode;
 import com.xenoamess.x8l.X8lGrammarException;
-import com.xenoamess.x8l.X8lTree;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -193,79 +191,12 @@ public class X8lPathUtil {
             @NotNull Reader reader,
             @NotNull List<Object> resultList
     ) throws IOException {
-        boolean finished = false;
-
-        StringBuilder stringBuilder = new StringBuilder();
-        boolean lastCharIsModulus = false;
-        char nowChar;
-        int nowInt;
-        String operation = null;
-        String name = null;
-        String range = null;
-
-        int beginIndexInclusive = 0;
-        int endIndexInclusive = -1;
-        while (true) {
-            nowInt = reader.read();
-            nowChar = (char) nowInt;
-            if (nowInt == -1) {
-                finished = true;
-
-                if (operation == null) {
-                    operation = stringBuilder.toString();
-                }
-                break;
-            } else if (lastCharIsModulus) {
-                stringBuilder.append(nowChar);
-                lastCharIsModulus = false;
-            } else if (nowChar == '%') {
-                lastCharIsModulus = true;
-            } else if (nowChar == '>') {
-                if (operation == null) {
-                    operation = stringBuilder.toString();
-                }
-                break;
-            } else if (nowChar == '(') {
-                if (operation == null) {
-                    operation = stringBuilder.toString();
-                }
-                stringBuilder = new StringBuilder();
-            } else if (nowChar == ')') {
-                name = stringBuilder.toString();
-                stringBuilder = new StringBuilder();
-            } else if (nowChar == '[') {
-                if (operation == null) {
-                    operation = stringBuilder.toString();
-                }
-                stringBuilder = new StringBuilder();
-            } else if (nowChar == ']') {
-                range = stringBuilder.toString();
-                stringBuilder = new StringBuilder();
-            } else {
-                stringBuilder.append(nowChar);
-            }
-        }
-
-        operation = X8lTree.untranscode(operation);
-
-        if (name != null) {
-            name = X8lTree.untranscode(name);
-        }
-        if (range != null) {
-            int separatorIndex = range.indexOf(',');
-            if (separatorIndex == -1) {
-                endIndexInclusive = beginIndexInclusive = Integer.parseInt(range.trim());
-            } else {
-                String beginString = range.substring(0, separatorIndex);
-                if (StringUtils.isNotBlank(beginString)) {
-                    beginIndexInclusive = Integer.parseInt(beginString);
-                }
-                String endString = range.substring(separatorIndex + 1);
-                if (StringUtils.isNotBlank(endString)) {
-                    endIndexInclusive = Integer.parseInt(endString);
-                }
-            }
-        }
+        X8lPathStep step = X8lPathStep.read(reader);
+        final boolean finished = step.finished;
+        final String operation = step.operation;
+        final String name = step.name;
+        final int beginIndexInclusive = step.beginIndexInclusive;
+        final int endIndexInclusive = step.endIndexInclusive;
 
         for (AbstractTreeNode originalNode : originalNodes) {
             switch (operation) {
@@ -350,7 +281,7 @@ public class X8lPathUtil {
                         break;
                     }
                     resultList.add(
-                            ((ContentNode) originalNode).getAttributes().get(name)
+                            ((ContentNode) originalNode).getAttribute(name)
                     );
                     break;
                 case "TEXT_CONTENT":
@@ -25,11 +25,24 @@
 package com.xenoamess.x8l.dealers;
 
 import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.ParseOptions;
 import com.xenoamess.x8l.X8lGrammarException;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.input.CharSequenceReader;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -51,6 +64,131 @@ public interface AbstractLanguageDealerHandler<T extends AbstractTreeNode> exten
      */
     boolean read(@NotNull Reader reader, @NotNull T t) throws IOException, X8lGrammarException;
 
+    /**
+     * read AbstractTreeNode from a CharSequence.
+     * <p>
+     * handlers able to parse a CharSequence by index can override this to skip the Reader.
+     *
+     * @param charSequence charSequence
+     * @param t            AbstractTreeNode to read
+     * @return if read succeed
+     * @throws java.io.IOException reader.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean read(@NotNull CharSequence charSequence, @NotNull T t) throws IOException, X8lGrammarException {
+        return this.read(new CharSequenceReader(charSequence), t);
+    }
+
+    /**
+     * read AbstractTreeNode from utf-8 bytes of an InputStream.
+     * will not close the inputStream.
+     * <p>
+     * handlers able to parse bytes directly can override this to skip decoding.
+     *
+     * @param inputStream inputStream
+     * @param t           AbstractTreeNode to read
+     * @return if read succeed
+     * @throws java.io.IOException inputStream.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean read(@NotNull InputStream inputStream, @NotNull T t) throws IOException, X8lGrammarException {
+        return this.read(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)), t);
+    }
+
+    /**
+     * read AbstractTreeNode from the remaining utf-8 bytes of a ByteBuffer.
+     * <p>
+     * handlers able to parse bytes directly can override this to skip decoding.
+     *
+     * @param byteBuffer byteBuffer
+     * @param t          AbstractTreeNode to read
+     * @return if read succeed
+     * @throws java.io.IOException reader.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean read(@NotNull ByteBuffer byteBuffer, @NotNull T t) throws IOException, X8lGrammarException {
+        return this.read(StandardCharsets.UTF_8.decode(byteBuffer), t);
+    }
+
+    /**
+     * read AbstractTreeNode from utf-8 bytes of a file, from its current position.
+     * will not close the fileChannel.
+     * <p>
+     * handlers able to parse bytes directly can override this to map the file into memory.
+     *
+     * @param fileChannel fileChannel
+     * @param t           AbstractTreeNode to read
+     * @return if read succeed
+     * @throws java.io.IOException fileChannel.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean read(@NotNull FileChannel fileChannel, @NotNull T t) throws IOException, X8lGrammarException {
+        return this.read(new BufferedReader(Channels.newReader(fileChannel, StandardCharsets.UTF_8.newDecoder(), -1)), t);
+    }
+
+    /**
+     * read AbstractTreeNode, leaving out what parseOptions tells.
+     * <p>
+     * the default one reads everything, then compacts the read nodes.
+     * handlers able to leave them out while parsing can override this.
+     *
+     * @param reader       reader
+     * @param t            AbstractTreeNode to read
+     * @param parseOptions parseOptions
+     * @return if read succeed
+     * @throws java.io.IOException reader.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean read(@NotNull Reader reader, @NotNull T t, @NotNull ParseOptions parseOptions) throws IOException,
+            X8lGrammarException {
+        boolean res = this.read(reader, t);
+        if (t instanceof ContentNode) {
+            parseOptions.apply((ContentNode) t);
+        }
+        return res;
+    }
+
+    /**
+     * read AbstractTreeNode from a CharSequence, leaving out what parseOptions tells.
+     *
+     * @param charSequence charSequence
+     * @param t            AbstractTreeNode to read
+     * @param parseOptions parseOptions
+     * @return if read succeed
+     * @throws java.io.IOException reader.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     * @see #read(Reader, AbstractTreeNode, ParseOptions)
+     */
+    default boolean read(@NotNull CharSequence charSequence, @NotNull T t, @NotNull ParseOptions parseOptions) throws
+            IOException, X8lGrammarException {
+        boolean res = this.read(charSequence, t);
+        if (t instanceof ContentNode) {
+            parseOptions.apply((ContentNode) t);
+        }
+        return res;
+    }
+
+    /**
+     * read AbstractTreeNode from utf-8 bytes of an InputStream, leaving out what parseOptions tells.
+     * will not close the inputStream.
+     *
+     * @param inputStream  inputStream
+     * @param t            AbstractTreeNode to read
+     * @param parseOptions parseOptions
+     * @return if read succeed
+     * @throws java.io.IOException inputStream.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     * @see #read(Reader, AbstractTreeNode, ParseOptions)
+     */
+    default boolean read(@NotNull InputStream inputStream, @NotNull T t, @NotNull ParseOptions parseOptions) throws
+            IOException, X8lGrammarException {
+        boolean res = this.read(inputStream, t);
+        if (t instanceof ContentNode) {
+            parseOptions.apply((ContentNode) t);
+        }
+        return res;
+    }
+
     /**
      * write AbstractTreeNode
      *
@@ -61,4 +199,58 @@ public interface AbstractLanguageDealerHandler<T extends AbstractTreeNode> exten
      * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
      */
     boolean write(@NotNull Writer writer, @NotNull T t) throws IOException, X8lGrammarException;
+
+    /**
+     * write AbstractTreeNode as utf-8 bytes to an OutputStream.
+     * will not close the outputStream.
+     * <p>
+     * handlers able to encode by themselves can override this to skip the Writer.
+     *
+     * @param outputStream outputStream
+     * @param t            AbstractTreeNode to write
+     * @return if write succeed
+     * @throws java.io.IOException outputStream.write
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean write(@NotNull OutputStream outputStream, @NotNull T t) throws IOException, X8lGrammarException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        boolean res = this.write(writer, t);
+        writer.flush();
+        return res;
+    }
+
+    /**
+     * write AbstractTreeNode as utf-8 bytes to a WritableByteChannel.
+     * will not close the channel.
+     * <p>
+     * handlers able to encode by themselves can override this to skip the Writer.
+     *
+     * @param channel channel
+     * @param t       AbstractTreeNode to write
+     * @return if write succeed
+     * @throws java.io.IOException channel.write
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean write(@NotNull WritableByteChannel channel, @NotNull T t) throws IOException, X8lGrammarException {
+        Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1);
+        boolean res = this.write(writer, t);
+        writer.flush();
+        return res;
+    }
+
+    /**
+     * write AbstractTreeNode as utf-8 bytes to a file, from its current position.
+     * will not close the fileChannel.
+     * <p>
+     * handlers able to encode by themselves can override this to map the file into memory.
+     *
+     * @param fileChannel fileChannel
+     * @param t           AbstractTreeNode to write
+     * @return if write succeed
+     * @throws java.io.IOException fileChannel.write
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    default boolean write(@NotNull FileChannel fileChannel, @NotNull T t) throws IOException, X8lGrammarException {
+        return this.write((WritableByteChannel) fileChannel, t);
+    }
 }
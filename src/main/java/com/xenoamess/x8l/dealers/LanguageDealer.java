@@ -25,10 +25,16 @@
 package com.xenoamess.x8l.dealers;
 
 import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.ParseOptions;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashMap;
 import java.util.Map;
 import org.jetbrains.annotations.NotNull;
@@ -100,6 +106,152 @@ public class LanguageDealer implements Serializable {
         return handler.read(reader, abstractTreeNode);
     }
 
+    /**
+     * <p>read.</p>
+     *
+     * @param charSequence a {@link java.lang.CharSequence} object.
+     * @param abstractTreeNode a T object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean read(@NotNull CharSequence charSequence, @NotNull T abstractTreeNode) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.read(charSequence, abstractTreeNode);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param inputStream a {@link java.io.InputStream} object.
+     * @param abstractTreeNode a T object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean read(@NotNull InputStream inputStream, @NotNull T abstractTreeNode) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.read(inputStream, abstractTreeNode);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param reader a {@link java.io.Reader} object.
+     * @param abstractTreeNode a T object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean read(@NotNull Reader reader, @NotNull T abstractTreeNode,
+                                                     @NotNull ParseOptions parseOptions) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.read(reader, abstractTreeNode, parseOptions);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param charSequence a {@link java.lang.CharSequence} object.
+     * @param abstractTreeNode a T object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean read(@NotNull CharSequence charSequence, @NotNull T abstractTreeNode,
+                                                     @NotNull ParseOptions parseOptions) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.read(charSequence, abstractTreeNode, parseOptions);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param inputStream a {@link java.io.InputStream} object.
+     * @param abstractTreeNode a T object.
+     * @param parseOptions a {@link com.xenoamess.x8l.ParseOptions} object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean read(@NotNull InputStream inputStream, @NotNull T abstractTreeNode,
+                                                     @NotNull ParseOptions parseOptions) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.read(inputStream, abstractTreeNode, parseOptions);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param byteBuffer a {@link java.nio.ByteBuffer} object.
+     * @param abstractTreeNode a T object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean read(@NotNull ByteBuffer byteBuffer, @NotNull T abstractTreeNode) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.read(byteBuffer, abstractTreeNode);
+    }
+
+    /**
+     * <p>read.</p>
+     *
+     * @param fileChannel a {@link java.nio.channels.FileChannel} object.
+     * @param abstractTreeNode a T object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean read(@NotNull FileChannel fileChannel, @NotNull T abstractTreeNode) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.read(fileChannel, abstractTreeNode);
+    }
+
     /**
      * <p>write.</p>
      *
@@ -120,4 +272,64 @@ public class LanguageDealer implements Serializable {
         return handler.write(writer, abstractTreeNode);
     }
 
+    /**
+     * <p>write.</p>
+     *
+     * @param outputStream a {@link java.io.OutputStream} object.
+     * @param abstractTreeNode a T object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean write(@NotNull OutputStream outputStream, @NotNull T abstractTreeNode) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.write(outputStream, abstractTreeNode);
+    }
+
+    /**
+     * <p>write.</p>
+     *
+     * @param channel a {@link java.nio.channels.WritableByteChannel} object.
+     * @param abstractTreeNode a T object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean write(@NotNull WritableByteChannel channel, @NotNull T abstractTreeNode) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.write(channel, abstractTreeNode);
+    }
+
+    /**
+     * <p>write.</p>
+     *
+     * @param fileChannel a {@link java.nio.channels.FileChannel} object.
+     * @param abstractTreeNode a T object.
+     * @param <T> a T object.
+     * @return a boolean.
+     * @throws java.io.IOException if any.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public <T extends AbstractTreeNode> boolean write(@NotNull FileChannel fileChannel, @NotNull T abstractTreeNode) throws IOException {
+        //noinspection unchecked
+        AbstractLanguageDealerHandler<T> handler =
+                (AbstractLanguageDealerHandler<T>) this.getTreeNodeHandler(abstractTreeNode.getClass());
+        if (handler == null) {
+            return false;
+        }
+        return handler.write(fileChannel, abstractTreeNode);
+    }
+
 }
@@ -24,20 +24,23 @@
 
 package com.xenoamess.x8l.dealers;
 
-import com.xenoamess.x8l.AbstractTreeNode;
 import com.xenoamess.x8l.CommentNode;
 import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.ParseOptions;
 import com.xenoamess.x8l.RootNode;
 import com.xenoamess.x8l.TextNode;
 import com.xenoamess.x8l.X8lGrammarException;
-import com.xenoamess.x8l.X8lTree;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.Writer;
-import java.util.Stack;
-import org.apache.commons.lang3.StringUtils;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * the dealer to deal with x8l format.
@@ -68,23 +71,117 @@ public final class X8lDealer extends LanguageDealer implements Serializable {
                     }
 
                     @Override
-                    public boolean write(@NotNull Writer writer, @NotNull RootNode rootNode) throws IOException,
+                    public boolean read(@NotNull CharSequence charSequence, @NotNull RootNode rootNode) throws IOException,
                             X8lGrammarException {
-                        boolean lastChildIsTextNode = false;
-                        boolean nowChildIsTextNode;
+                        AbstractLanguageDealerHandler<ContentNode> handler =
+                                X8lDealer.this.getTreeNodeHandler(ContentNode.class);
+                        if (handler == null) {
+                            return false;
+                        }
+                        return handler.read(charSequence, rootNode);
+                    }
 
-                        for (AbstractTreeNode nowChild : rootNode.getChildren()) {
+                    @Override
+                    public boolean read(@NotNull InputStream inputStream, @NotNull RootNode rootNode) throws IOException,
+                            X8lGrammarException {
+                        AbstractLanguageDealerHandler<ContentNode> handler =
+                                X8lDealer.this.getTreeNodeHandler(ContentNode.class);
+                        if (handler == null) {
+                            return false;
+                        }
+                        return handler.read(inputStream, rootNode);
+                    }
 
-                            nowChildIsTextNode = nowChild instanceof TextNode;
-                            if (lastChildIsTextNode && nowChildIsTextNode) {
-                                writer.append('&');
-                            }
-                            lastChildIsTextNode = nowChildIsTextNode;
+                    @Override
+                    public boolean read(@NotNull Reader reader, @NotNull RootNode rootNode,
+                                        @NotNull ParseOptions parseOptions) throws IOException, X8lGrammarException {
+                        AbstractLanguageDealerHandler<ContentNode> handler =
+                                X8lDealer.this.getTreeNodeHandler(ContentNode.class);
+                        if (handler == null) {
+                            return false;
+                        }
+                        return handler.read(reader, rootNode, parseOptions);
+                    }
 
-                            nowChild.write(writer, X8lDealer.this);
+                    @Override
+                    public boolean read(@NotNull CharSequence charSequence, @NotNull RootNode rootNode,
+                                        @NotNull ParseOptions parseOptions) throws IOException, X8lGrammarException {
+                        AbstractLanguageDealerHandler<ContentNode> handler =
+                                X8lDealer.this.getTreeNodeHandler(ContentNode.class);
+                        if (handler == null) {
+                            return false;
                         }
+                        return handler.read(charSequence, rootNode, parseOptions);
+                    }
+
+                    @Override
+                    public boolean read(@NotNull InputStream inputStream, @NotNull RootNode rootNode,
+                                        @NotNull ParseOptions parseOptions) throws IOException, X8lGrammarException {
+                        AbstractLanguageDealerHandler<ContentNode> handler =
+                                X8lDealer.this.getTreeNodeHandler(ContentNode.class);
+                        if (handler == null) {
+                            return false;
+                        }
+                        return handler.read(inputStream, rootNode, parseOptions);
+                    }
+
+                    @Override
+                    public boolean read(@NotNull ByteBuffer byteBuffer, @NotNull RootNode rootNode) throws IOException,
+                            X8lGrammarException {
+                        AbstractLanguageDealerHandler<ContentNode> handler =
+                                X8lDealer.this.getTreeNodeHandler(ContentNode.class);
+                        if (handler == null) {
+                            return false;
+                        }
+                        return handler.read(byteBuffer, rootNode);
+                    }
+
+                    @Override
+                    public boolean read(@NotNull FileChannel fileChannel, @NotNull RootNode rootNode) throws IOException,
+                            X8lGrammarException {
+                        AbstractLanguageDealerHandler<ContentNode> handler =
+                                X8lDealer.this.getTreeNodeHandler(ContentNode.class);
+                        if (handler == null) {
+                            return false;
+                        }
+                        return handler.read(fileChannel, rootNode);
+                    }
+
+                    @Override
+                    public boolean write(@NotNull Writer writer, @NotNull RootNode rootNode) throws IOException,
+                            X8lGrammarException {
+                        X8lWriter x8lWriter = new X8lWriter(writer);
+                        x8lWriter.write(rootNode);
+                        x8lWriter.flushBuffer();
+                        return true;
+                    }
+
+                    @Override
+                    public boolean write(@NotNull OutputStream outputStream, @NotNull RootNode rootNode) throws
+                            IOException, X8lGrammarException {
+                        X8lWriter x8lWriter = new X8lWriter(outputStream);
+                        x8lWriter.write(rootNode);
+                        x8lWriter.flushBuffer();
+                        return true;
+                    }
+
+                    @Override
+                    public boolean write(@NotNull WritableByteChannel channel, @NotNull RootNode rootNode) throws
+                            IOException, X8lGrammarException {
+                        X8lWriter x8lWriter = new X8lWriter(channel);
+                        x8lWriter.write(rootNode);
+                        x8lWriter.flushBuffer();
                         return true;
                     }
+
+                    @Override
+                    public boolean write(@NotNull FileChannel fileChannel, @NotNull RootNode rootNode) throws
+                            IOException, X8lGrammarException {
+                        try (X8lMappedWriteChannel channel = new X8lMappedWriteChannel(fileChannel,
+                                X8lWriter.DEFAULT_MAPPED_WINDOW_SIZE)) {
+                            return this.write(channel, rootNode);
+                        }
+                    }
                 }
         );
 
@@ -95,124 +192,86 @@ public final class X8lDealer extends LanguageDealer implements Serializable {
                     @Override
                     public boolean read(@NotNull Reader reader, @NotNull ContentNode contentNode) throws IOException,
                             X8lGrammarException {
-                        contentNode.close();
-                        int nowInt;
-                        ContentNode nowNode = contentNode;
-                        boolean lastCharIsModulus = false;
-                        Stack<X8lStatusEnum> statusEnumStack = new Stack<>();
-                        X8lStatusEnum nowStatus = X8lStatusEnum.ContentArea;
-
-                        StringBuilder stringBuilder = new StringBuilder();
-                        char nowChar;
-                        while (true) {
-                            nowInt = reader.read();
-                            nowChar = (char) nowInt;
-                            if (nowInt == -1) {
-                                if (nowNode == contentNode && nowStatus == X8lStatusEnum.ContentArea && statusEnumStack.isEmpty()) {
-                                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
-                                    break;
-                                } else {
-                                    throw new X8lGrammarException("Unexpected stop of x8l file.");
-                                }
-                            } else if (lastCharIsModulus) {
-                                stringBuilder.append(nowChar);
-                                lastCharIsModulus = false;
-                            } else if (nowChar == '%') {
-                                lastCharIsModulus = true;
-                            } else if (nowStatus == X8lStatusEnum.CommentArea) {
-                                if (nowChar == '>') {
-                                    new CommentNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
-                                    stringBuilder = new StringBuilder();
-                                    nowStatus = statusEnumStack.pop();
-                                } else {
-                                    stringBuilder.append(nowChar);
-                                }
-                            } else if (nowChar == '<') {
-                                if (nowStatus == X8lStatusEnum.AttributeArea) {
-                                    if (!nowNode.getAttributes().isEmpty() || stringBuilder.length() != 0) {
-                                        throw new X8lGrammarException("Unexpected < in attribute area of a content " +
-                                                "node.");
-                                    } else {
-                                        ContentNode nowParent = nowNode.getParent();
-                                        nowNode.close();
-                                        nowNode = nowParent;
-                                        nowStatus = X8lStatusEnum.CommentArea;
-                                    }
-                                } else {
-                                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
-                                    stringBuilder = new StringBuilder();
-                                    nowNode = new ContentNode(nowNode);
-                                    statusEnumStack.push(nowStatus);
-                                    nowStatus = X8lStatusEnum.AttributeArea;
-                                }
-                            } else if (nowChar == '>') {
-                                if (nowStatus != X8lStatusEnum.AttributeArea) {
-                                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
-                                    stringBuilder = new StringBuilder();
-                                    nowNode = nowNode.getParent();
-                                } else {
-                                    if (stringBuilder.length() != 0) {
-                                        nowNode.addAttributeFromTranscodedExpression(stringBuilder.toString());
-                                        stringBuilder = new StringBuilder();
-                                    }
-                                    nowStatus = statusEnumStack.pop();
-                                }
-                            } else if (Character.isWhitespace(nowChar)) {
-                                if (nowStatus == X8lStatusEnum.AttributeArea) {
-                                    if (stringBuilder.length() != 0) {
-                                        nowNode.addAttributeFromTranscodedExpression(stringBuilder.toString());
-                                        stringBuilder = new StringBuilder();
-                                    }
-                                } else {
-                                    stringBuilder.append(nowChar);
-                                }
-                            } else if (nowChar == '&') {
-                                if (nowStatus == X8lStatusEnum.ContentArea) {
-                                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
-                                    stringBuilder = new StringBuilder();
-                                } else {
-                                    stringBuilder.append(nowChar);
-                                }
-                            } else {
-                                stringBuilder.append(nowChar);
-                            }
-                        }
-                        if (!nowNode.getAttributeSegments().isEmpty()) {
-                            nowNode.getAttributeSegments().set(nowNode.getAttributeSegments().size() - 1, "");
-                        }
-                        return true;
+                        return readContentNode(contentNode, null, parser -> parser.parse(reader));
+                    }
+
+                    @Override
+                    public boolean read(@NotNull CharSequence charSequence, @NotNull ContentNode contentNode) throws
+                            X8lGrammarException {
+                        return readContentNode(contentNode, null, parser -> parser.parse(charSequence));
+                    }
+
+                    @Override
+                    public boolean read(@NotNull InputStream inputStream, @NotNull ContentNode contentNode) throws
+                            IOException, X8lGrammarException {
+                        return readContentNode(contentNode, null, parser -> parser.parse(inputStream));
+                    }
+
+                    @Override
+                    public boolean read(@NotNull Reader reader, @NotNull ContentNode contentNode,
+                                        @NotNull ParseOptions parseOptions) throws IOException, X8lGrammarException {
+                        return readContentNode(contentNode, parseOptions, parser -> parser.parse(reader));
+                    }
+
+                    @Override
+                    public boolean read(@NotNull CharSequence charSequence, @NotNull ContentNode contentNode,
+                                        @NotNull ParseOptions parseOptions) throws IOException, X8lGrammarException {
+                        return readContentNode(contentNode, parseOptions, parser -> parser.parse(charSequence));
+                    }
+
+                    @Override
+                    public boolean read(@NotNull InputStream inputStream, @NotNull ContentNode contentNode,
+                                        @NotNull ParseOptions parseOptions) throws IOException, X8lGrammarException {
+                        return readContentNode(contentNode, parseOptions, parser -> parser.parse(inputStream));
+                    }
+
+                    @Override
+                    public boolean read(@NotNull ByteBuffer byteBuffer, @NotNull ContentNode contentNode) throws
+                            X8lGrammarException {
+                        return readContentNode(contentNode, null, parser -> parser.parse(byteBuffer));
+                    }
+
+                    @Override
+                    public boolean read(@NotNull FileChannel fileChannel, @NotNull ContentNode contentNode) throws
+                            IOException, X8lGrammarException {
+                        return readContentNode(contentNode, null, parser -> parser.parse(fileChannel));
                     }
 
                     @Override
                     public boolean write(@NotNull Writer writer, @NotNull ContentNode contentNode) throws IOException,
                             X8lGrammarException {
-                        writer.append('<');
-                        for (int i = 0; i < contentNode.getAttributesKeyList().size(); i++) {
-                            String key = contentNode.getAttributesKeyList().get(i);
-                            writer.append(X8lTree.transcodeKey(key));
-                            String value = contentNode.getAttributes().get(key);
-                            if (!StringUtils.isEmpty(value)) {
-                                writer.append("=");
-                                writer.append(X8lTree.transcodeValue(value));
-                            }
-                            writer.append(contentNode.getAttributeSegments().get(i));
-                        }
-                        writer.append('>');
-                        boolean lastChildIsTextNode = false;
-                        boolean nowChildIsTextNode;
-                        for (AbstractTreeNode nowChild : contentNode.getChildren()) {
-
-                            nowChildIsTextNode = nowChild instanceof TextNode;
-                            if (lastChildIsTextNode && nowChildIsTextNode) {
-                                writer.append('&');
-                            }
-                            lastChildIsTextNode = nowChildIsTextNode;
-
-                            nowChild.write(writer, X8lDealer.this);
-                        }
-                        writer.append('>');
+                        X8lWriter x8lWriter = new X8lWriter(writer);
+                        x8lWriter.writeContentNode(contentNode);
+                        x8lWriter.flushBuffer();
+                        return true;
+                    }
+
+                    @Override
+                    public boolean write(@NotNull OutputStream outputStream, @NotNull ContentNode contentNode) throws
+                            IOException, X8lGrammarException {
+                        X8lWriter x8lWriter = new X8lWriter(outputStream);
+                        x8lWriter.write(contentNode);
+                        x8lWriter.flushBuffer();
+                        return true;
+                    }
+
+                    @Override
+                    public boolean write(@NotNull WritableByteChannel channel, @NotNull ContentNode contentNode) throws
+                            IOException, X8lGrammarException {
+                        X8lWriter x8lWriter = new X8lWriter(channel);
+                        x8lWriter.write(contentNode);
+                        x8lWriter.flushBuffer();
                         return true;
                     }
+
+                    @Override
+                    public boolean write(@NotNull FileChannel fileChannel, @NotNull ContentNode contentNode) throws
+                            IOException, X8lGrammarException {
+                        try (X8lMappedWriteChannel channel = new X8lMappedWriteChannel(fileChannel,
+                                X8lWriter.DEFAULT_MAPPED_WINDOW_SIZE)) {
+                            return this.write(channel, contentNode);
+                        }
+                    }
                 }
         );
 
@@ -227,7 +286,7 @@ public final class X8lDealer extends LanguageDealer implements Serializable {
                     @Override
                     public boolean write(@NotNull Writer writer, @NotNull TextNode textNode) throws IOException,
                             X8lGrammarException {
-                        writer.append(X8lTree.transcodeText(textNode.getTextContent()));
+                        new X8lWriter(writer, 0).writeTextNode(textNode);
                         return true;
                     }
                 }
@@ -245,16 +304,46 @@ public final class X8lDealer extends LanguageDealer implements Serializable {
                     @Override
                     public boolean write(@NotNull Writer writer, @NotNull CommentNode commentNode) throws IOException,
                             X8lGrammarException {
-                        writer.append('<');
-                        writer.append('<');
-                        writer.append(X8lTree.transcodeComment(commentNode.getTextContent()));
-                        writer.append('>');
+                        new X8lWriter(writer, 0).writeCommentNode(commentNode);
                         return true;
                     }
                 }
         );
     }
 
+    /**
+     * a call of one of the parse methods of X8lParser.
+     *
+     * @param <E> exception the parse method throws.
+     */
+    @FunctionalInterface
+    private interface ParseCall<E extends Exception> {
+        void parse(@NotNull X8lParser parser) throws E;
+    }
+
+    /**
+     * read into a ContentNode, after closing it.
+     *
+     * @param contentNode  the node to read into.
+     * @param parseOptions what to leave out of the tree, or null to keep everything.
+     * @param parseCall    the parse method to read by.
+     * @param <E>          exception the parse method throws.
+     * @return true
+     * @throws E if the parse method throws it.
+     */
+    private static <E extends Exception> boolean readContentNode(@NotNull ContentNode contentNode,
+                                                                 @Nullable ParseOptions parseOptions,
+                                                                 @NotNull ParseCall<E> parseCall) throws E {
+        contentNode.close();
+        parseCall.parse(parseOptions == null ? new X8lParser(contentNode) : new X8lParser(contentNode, parseOptions));
+        // omitted segments already default to "" for the last one.
+        if ((parseOptions == null || !parseOptions.isOmitAttributeSegments())
+                && !contentNode.getAttributeSegments().isEmpty()) {
+            contentNode.getAttributeSegments().set(contentNode.getAttributeSegments().size() - 1, "");
+        }
+        return true;
+    }
+
     /** Constant <code>INSTANCE</code> */
     public static final X8lDealer INSTANCE = new X8lDealer();
 
@@ -274,18 +363,3 @@ public final class X8lDealer extends LanguageDealer implements Serializable {
         return INSTANCE;
     }
 }
-
-enum X8lStatusEnum {
-    /**
-     * in attribute area of ContentNode.
-     */
-    AttributeArea,
-    /**
-     * in CommentNode.
-     */
-    CommentArea,
-    /**
-     * in content area of ContentNode.
-     */
-    ContentArea,
-}
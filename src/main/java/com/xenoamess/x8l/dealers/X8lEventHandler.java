@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.X8lTree;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * X8lEventHandler
+ * callbacks of X8lParser.
+ * <p>
+ * events come in document order, and nothing is kept by the parser after an event is handled,
+ * so a handler that does not keep things by itself can deal with documents of any size.
+ * <p>
+ * the events for a document are just the same as the nodes X8lDealer would build for it,
+ * including the (maybe empty) TextNode before every ContentNode/CommentNode,
+ * and the (maybe empty) TextNode at the end of every ContentNode.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lParser
+ * @see X8lTreeBuilder
+ */
+public interface X8lEventHandler {
+    /**
+     * a ContentNode starts, and all of its attributes are read.
+     * <p>
+     * the lists are reused by the parser,
+     * so please copy them if you need them after this call returns.
+     *
+     * @param attributesKeyList   keys of the attributes, in order.
+     * @param attributesValueList values of the attributes, in order.
+     *                            DEFAULT_ATTRIBUTE_VALUE if there is no "=" in the attribute.
+     */
+    void startContentNode(@NotNull List<String> attributesKeyList, @NotNull List<String> attributesValueList);
+
+    /**
+     * asked before startContentNode, with the same arguments.
+     * <p>
+     * if false is returned, the ContentNode is skipped.
+     * it is only scanned for where it ends, without any token copied,
+     * and no event is sent for it or anything in it, including its endContentNode.
+     *
+     * @param attributesKeyList   keys of the attributes, in order.
+     * @param attributesValueList values of the attributes, in order.
+     * @return false to skip the ContentNode.
+     */
+    default boolean acceptContentNode(@NotNull List<String> attributesKeyList,
+                                      @NotNull List<String> attributesValueList) {
+        return true;
+    }
+
+    /**
+     * asked once, when a X8lParser is made for this handler.
+     * if false, comments are only scanned, without being copied, and never sent.
+     *
+     * @return false if comments are not needed.
+     */
+    default boolean acceptComments() {
+        return true;
+    }
+
+    /**
+     * asked once, when a X8lParser is made for this handler.
+     * if false, a text that is empty or whitespace only (by Character.isWhitespace) is not sent,
+     * and no String is made for it.
+     * other texts might still be checked again by the handler, as this is only done for tokens in one block.
+     *
+     * @return false if texts that are empty or whitespace only are not needed.
+     */
+    default boolean acceptWhitespaceTexts() {
+        return true;
+    }
+
+    /**
+     * the latest started ContentNode ends.
+     */
+    void endContentNode();
+
+    /**
+     * a TextNode.
+     *
+     * @param textContent untranscoded text content.
+     */
+    void text(@NotNull String textContent);
+
+    /**
+     * a CommentNode.
+     *
+     * @param textContent untranscoded text content.
+     */
+    void comment(@NotNull String textContent);
+
+    /**
+     * a TextNode, as it is in x8l.
+     * <p>
+     * X8lParser sends this instead of text when the text in x8l is exactly
+     * X8lTree.transcodeText(textContent), so that it needs not be untranscoded now,
+     * and can be written back without transcoding.
+     *
+     * @param transcodedTextContent transcoded text content.
+     * @param escaped               false if there is no % in transcodedTextContent,
+     *                              thus it is the text content itself.
+     */
+    default void transcodedText(@NotNull String transcodedTextContent, boolean escaped) {
+        this.text(escaped ? X8lTree.untranscode(transcodedTextContent) : transcodedTextContent);
+    }
+
+    /**
+     * a CommentNode, as it is in x8l.
+     * <p>
+     * X8lParser sends this instead of comment when the comment in x8l is exactly
+     * X8lTree.transcodeComment(textContent).
+     *
+     * @param transcodedTextContent transcoded text content.
+     * @param escaped               false if there is no % in transcodedTextContent,
+     *                              thus it is the text content itself.
+     */
+    default void transcodedComment(@NotNull String transcodedTextContent, boolean escaped) {
+        this.comment(escaped ? X8lTree.untranscode(transcodedTextContent) : transcodedTextContent);
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * X8lIncrementalParser
+ * keeps the text of a document with its tree, and re-parses only the edited region when the text is edited.
+ * <p>
+ * a source span is kept for every ContentNode: where it starts after the ContentNode before it,
+ * how long its attribute area is, and how long it is.
+ * spans are relative, so an edit only changes the spans of the ContentNodes around it.
+ * for an edit, the smallest ContentNode whose content covers it is found,
+ * and only its children touched by the edit, with the texts between them, are parsed again and spliced in.
+ * if that region is not complete by itself, for example a &lt; is typed without its &gt; yet,
+ * the region of the parent is tried instead, and so on.
+ * <p>
+ * the tree should only be changed by edit, or the spans will be wrong.
+ * <p>
+ * example: a settings file edited in an editor.
+ * <pre>
+ * X8lIncrementalParser x8lIncrementalParser = new X8lIncrementalParser(text);
+ * RootNode root = x8lIncrementalParser.getRoot();
+ * ...
+ * // when the user types "1" at offset 1024
+ * x8lIncrementalParser.edit(1024, 0, "1");
+ * </pre>
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lParser
+ */
+public final class X8lIncrementalParser {
+    /**
+     * chars between the end of the ContentNode before it (or the end of the attribute area of its parent),
+     * and the start of it.
+     */
+    private static final int GAP = 0;
+    /**
+     * chars of its attribute area, from the &lt; to the &gt;.
+     */
+    private static final int HEAD = 1;
+    /**
+     * chars of it, from the &lt; to its last &gt;.
+     */
+    private static final int WIDTH = 2;
+
+    private final StringBuilder text;
+    private final RootNode root = new RootNode(null);
+    private final Map<ContentNode, int[]> spans = new IdentityHashMap<>();
+
+    /**
+     * spans found by scan, three ints each: start, end of attribute area, end.
+     */
+    private int[] scanned = new int[48];
+    private int scannedSize;
+    private int scannedIndex;
+
+    /**
+     * <p>Constructor for X8lIncrementalParser.</p>
+     *
+     * @param text the whole document
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public X8lIncrementalParser(@NotNull CharSequence text) throws X8lGrammarException {
+        this.text = new StringBuilder(text);
+        this.reparseAll();
+    }
+
+    /**
+     * <p>Getter for the field <code>root</code>.</p>
+     *
+     * @return the tree of the document. it is changed in place by edit.
+     */
+    public @NotNull RootNode getRoot() {
+        return root;
+    }
+
+    /**
+     * <p>getText.</p>
+     *
+     * @return the document now.
+     */
+    public @NotNull String getText() {
+        return text.toString();
+    }
+
+    /**
+     * replace removedLength chars at offset of the document by insertedText, and update the tree.
+     * <p>
+     * if the document after the edit has grammar errors, nothing is changed,
+     * neither the document nor the tree.
+     *
+     * @param offset        where the edit starts in the document.
+     * @param removedLength how many chars are removed from offset.
+     * @param insertedText  what is inserted at offset.
+     * @return the ContentNode whose children are re-parsed.
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong after the edit
+     */
+    public @NotNull ContentNode edit(int offset, int removedLength, @NotNull CharSequence insertedText)
+            throws X8lGrammarException {
+        final int start = offset;
+        final int end = offset + removedLength;
+        if (start < 0 || removedLength < 0 || end > text.length()) {
+            throw new IndexOutOfBoundsException(
+                    "offset:" + offset + ", removedLength:" + removedLength + ", length:" + text.length());
+        }
+
+        // the ContentNodes whose content covers the edit, from the root, with where each starts.
+        List<ContentNode> path = new ArrayList<>();
+        int[] bases = new int[8];
+        ContentNode nowNode = root;
+        int base = 0;
+        while (nowNode != null) {
+            if (path.size() == bases.length) {
+                bases = Arrays.copyOf(bases, bases.length * 2);
+            }
+            bases[path.size()] = base;
+            path.add(nowNode);
+            ContentNode next = null;
+            int pos = base + spans.get(nowNode)[HEAD];
+            for (AbstractTreeNode au : nowNode.getChildren()) {
+                if (!(au instanceof ContentNode)) {
+                    continue;
+                }
+                int[] span = spans.get(au);
+                int childStart = pos + span[GAP];
+                if (childStart >= end) {
+                    break;
+                }
+                pos = childStart + span[WIDTH];
+                if (start >= childStart + span[HEAD] && end < pos) {
+                    next = (ContentNode) au;
+                    base = childStart;
+                    break;
+                }
+            }
+            nowNode = next;
+        }
+
+        final String removedText = text.substring(start, end);
+        text.replace(start, end, insertedText.toString());
+        final int delta = insertedText.length() - removedLength;
+        for (int level = path.size() - 1; level >= 0; level--) {
+            if (this.reparse(path.get(level), bases[level], start, end, delta)) {
+                for (int i = 0; i <= level; i++) {
+                    spans.get(path.get(i))[WIDTH] += delta;
+                }
+                return path.get(level);
+            }
+        }
+        try {
+            this.reparseAll();
+        } catch (X8lGrammarException e) {
+            text.replace(start, start + insertedText.length(), removedText);
+            throw e;
+        }
+        return root;
+    }
+
+    /**
+     * re-parse the children of contentNode touched by the edit.
+     * text is already edited, while spans are not yet.
+     *
+     * @return false if the region is not complete by itself, and nothing is changed then.
+     */
+    private boolean reparse(ContentNode contentNode, int base, int start, int end, int delta) {
+        final int[] span = spans.get(contentNode);
+        int regionStart = base + span[HEAD];
+        int regionEnd = base + span[WIDTH] - (contentNode == root ? 0 : 1);
+        final List<AbstractTreeNode> children = contentNode.getChildren();
+        int from = 0;
+        int to = children.size();
+        ContentNode nextNode = null;
+        int pos = regionStart;
+        for (int i = 0; i < children.size(); i++) {
+            AbstractTreeNode au = children.get(i);
+            if (!(au instanceof ContentNode)) {
+                continue;
+            }
+            int[] childSpan = spans.get(au);
+            int childStart = pos + childSpan[GAP];
+            int childEnd = childStart + childSpan[WIDTH];
+            if (childEnd <= start) {
+                regionStart = childEnd;
+                from = i + 1;
+            } else if (childStart >= end) {
+                regionEnd = childStart;
+                to = i;
+                nextNode = (ContentNode) au;
+                break;
+            }
+            pos = childEnd;
+        }
+        regionEnd += delta;
+
+        boolean followedByDelimiter = contentNode != root || nextNode != null;
+        if (!this.scan(regionStart, regionEnd, followedByDelimiter)) {
+            return false;
+        }
+        RootNode fragment = new RootNode(null);
+        try {
+            X8lParser x8lParser = new X8lParser(fragment);
+            x8lParser.feed(text, regionStart, regionEnd);
+            x8lParser.endOfInput();
+        } catch (X8lGrammarException e) {
+            return false;
+        }
+
+        List<AbstractTreeNode> oldChildren = children.subList(from, to);
+        for (AbstractTreeNode au : oldChildren) {
+            if (au instanceof ContentNode) {
+                this.forgetSpans((ContentNode) au);
+            }
+        }
+        oldChildren.clear();
+        List<AbstractTreeNode> newChildren = fragment.getChildren();
+        for (AbstractTreeNode au : newChildren) {
+            au.setParent(contentNode);
+        }
+        children.addAll(from, newChildren);
+
+        scannedIndex = 0;
+        int lastEnd = this.putSpans(newChildren, regionStart);
+        if (nextNode != null) {
+            spans.get(nextNode)[GAP] = regionEnd - lastEnd;
+        }
+        return true;
+    }
+
+    private void reparseAll() {
+        RootNode fragment = new RootNode(null);
+        new X8lParser(fragment).parse(text);
+        if (!this.scan(0, text.length(), false)) {
+            throw new X8lGrammarException("Spans of ContentNodes not found.");
+        }
+
+        root.getChildren().clear();
+        spans.clear();
+        for (AbstractTreeNode au : fragment.getChildren()) {
+            au.setParent(root);
+        }
+        root.getChildren().addAll(fragment.getChildren());
+        spans.put(root, new int[]{0, 0, text.length()});
+        scannedIndex = 0;
+        this.putSpans(root.getChildren(), 0);
+    }
+
+    /**
+     * give spans to newly parsed ContentNodes, from what scan found.
+     *
+     * @return where the last ContentNode ends, or contentStart if there is none.
+     */
+    private int putSpans(List<AbstractTreeNode> nodes, int contentStart) {
+        int lastEnd = contentStart;
+        for (AbstractTreeNode au : nodes) {
+            if (!(au instanceof ContentNode)) {
+                continue;
+            }
+            int nodeStart = scanned[scannedIndex];
+            int headEnd = scanned[scannedIndex + 1];
+            int nodeEnd = scanned[scannedIndex + 2];
+            scannedIndex += 3;
+            spans.put((ContentNode) au, new int[]{nodeStart - lastEnd, headEnd - nodeStart, nodeEnd - nodeStart});
+            this.putSpans(((ContentNode) au).getChildren(), headEnd);
+            lastEnd = nodeEnd;
+        }
+        return lastEnd;
+    }
+
+    private void forgetSpans(ContentNode contentNode) {
+        spans.remove(contentNode);
+        for (AbstractTreeNode au : contentNode.getChildren()) {
+            if (au instanceof ContentNode) {
+                this.forgetSpans((ContentNode) au);
+            }
+        }
+    }
+
+    /**
+     * find spans of ContentNodes in text[start, end), in the order they start.
+     * the grammar is the same as X8lParser, but only the delimiters are looked at.
+     *
+     * @param followedByDelimiter if the char at end is a delimiter that must not be escaped.
+     * @return false if the region is not complete by itself.
+     */
+    private boolean scan(int start, int end, boolean followedByDelimiter) {
+        X8lStatusEnum nowStatus = X8lStatusEnum.ContentArea;
+        boolean sawToken = false;
+        int nodeStart = 0;
+        // indexes in scanned of ContentNodes not closed yet.
+        int[] stack = new int[8];
+        int depth = 0;
+        scannedSize = 0;
+        for (int i = start; i < end; i++) {
+            char nowChar = text.charAt(i);
+            if (nowChar == '%') {
+                if (i + 1 == end && followedByDelimiter) {
+                    return false;
+                }
+                i++;
+                sawToken = true;
+                continue;
+            }
+            switch (nowStatus) {
+                case ContentArea:
+                    if (nowChar == '<') {
+                        nowStatus = X8lStatusEnum.AttributeArea;
+                        nodeStart = i;
+                        sawToken = false;
+                    } else if (nowChar == '>') {
+                        if (depth == 0) {
+                            return false;
+                        }
+                        scanned[stack[--depth] + 2] = i + 1;
+                    }
+                    break;
+                case AttributeArea:
+                    if (nowChar == '<') {
+                        if (sawToken) {
+                            return false;
+                        }
+                        nowStatus = X8lStatusEnum.CommentArea;
+                    } else if (nowChar == '>') {
+                        if (scannedSize + 3 > scanned.length) {
+                            scanned = Arrays.copyOf(scanned, scanned.length * 2);
+                        }
+                        if (depth == stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                        stack[depth++] = scannedSize;
+                        scanned[scannedSize] = nodeStart;
+                        scanned[scannedSize + 1] = i + 1;
+                        scannedSize += 3;
+                        nowStatus = X8lStatusEnum.ContentArea;
+                    } else if (!Character.isWhitespace(nowChar)) {
+                        sawToken = true;
+                    }
+                    break;
+                default:
+                    // X8lStatusEnum.CommentArea
+                    if (nowChar == '>') {
+                        nowStatus = X8lStatusEnum.ContentArea;
+                    }
+                    break;
+            }
+        }
+        return depth == 0 && nowStatus == X8lStatusEnum.ContentArea;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * X8lMappedWriteChannel
+ * writes into a file by mapping it into memory, one window after another, from its current position.
+ * <p>
+ * a window makes the file longer when mapped, so the file is cut back to what is written when closed.
+ * closing it does not close the fileChannel.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ */
+final class X8lMappedWriteChannel implements WritableByteChannel {
+    private final FileChannel fileChannel;
+    private final int windowSize;
+    private final long originalSize;
+    private long position;
+    private MappedByteBuffer window;
+    private boolean open = true;
+
+    X8lMappedWriteChannel(@NotNull FileChannel fileChannel, int windowSize) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive : " + windowSize);
+        }
+        this.fileChannel = fileChannel;
+        this.windowSize = windowSize;
+        this.originalSize = fileChannel.size();
+        this.position = fileChannel.position();
+    }
+
+    @Override
+    public int write(@NotNull ByteBuffer src) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        final int res = src.remaining();
+        while (src.hasRemaining()) {
+            if (window == null || !window.hasRemaining()) {
+                window = fileChannel.map(FileChannel.MapMode.READ_WRITE, position, windowSize);
+            }
+            int length = Math.min(src.remaining(), window.remaining());
+            int limit = src.limit();
+            src.limit(src.position() + length);
+            window.put(src);
+            src.limit(limit);
+            position += length;
+        }
+        return res;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        window = null;
+        if (fileChannel.size() > Math.max(originalSize, position)) {
+            fileChannel.truncate(Math.max(originalSize, position));
+        }
+        fileChannel.position(position);
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.TextNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * X8lParallelParser
+ * parse a large x8l document on several threads.
+ * <p>
+ * the input is cut into chunks, and every chunk is scanned on its own:
+ * <ol>
+ * <li>whether a char is escaped only depends on how many '%' are right before it,
+ * and the status after any unescaped '&gt;' is always ContentArea,
+ * so a chunk starts scanning right after its first unescaped '&gt;',
+ * and only its depth is unknown (speculated to be 0 there).</li>
+ * <li>the depths of chunks are then added up in order,
+ * and the first '&lt;' at depth 0 in each chunk becomes a split point.
+ * a chunk with no such '&lt;' (inside a huge node) is just parsed together with the chunk before it.</li>
+ * <li>segments between split points are parsed by X8lParser at the same time,
+ * each into a temporary node, and then their children are moved under the target node in order.</li>
+ * </ol>
+ * if anything does not add up (which only happens for a wrong document),
+ * the whole input is parsed again sequentially, so the result and the exception are the same as X8lParser.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lParser
+ */
+public final class X8lParallelParser {
+    /** Constant <code>DEFAULT_CHUNK_SIZE=1 &lt;&lt; 20</code> */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ForkJoinPool forkJoinPool;
+    private final int chunkSize;
+
+    /**
+     * <p>Constructor for X8lParallelParser.</p>
+     * use the common ForkJoinPool, and DEFAULT_CHUNK_SIZE.
+     */
+    public X8lParallelParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lParallelParser.</p>
+     *
+     * @param forkJoinPool the pool to run on.
+     * @param chunkSize    size of chunks, in chars or bytes. input shorter than two chunks is parsed sequentially,
+     *                     and so is everything when the pool has only one thread.
+     */
+    public X8lParallelParser(@NotNull ForkJoinPool forkJoinPool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive : " + chunkSize);
+        }
+        this.forkJoinPool = forkJoinPool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * parse a whole CharSequence, and add the nodes into contentNode.
+     *
+     * @param charSequence charSequence
+     * @param contentNode  contentNode
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void parse(@NotNull CharSequence charSequence, @NotNull ContentNode contentNode) throws X8lGrammarException {
+        this.parse(new CharSequenceSource(charSequence), contentNode);
+    }
+
+    /**
+     * parse utf-8 bytes, and add the nodes into contentNode.
+     *
+     * @param bytes       bytes
+     * @param contentNode contentNode
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void parse(@NotNull byte[] bytes, @NotNull ContentNode contentNode) throws X8lGrammarException {
+        this.parse(new BytesSource(bytes), contentNode);
+    }
+
+    private void parse(@NotNull Source source, @NotNull ContentNode contentNode) {
+        final int length = source.length();
+        final int chunkCount = (int) ((length + (long) chunkSize - 1) / chunkSize);
+        if (chunkCount < 2 || forkJoinPool.getParallelism() < 2) {
+            source.parseSequentially(contentNode);
+            return;
+        }
+
+        List<ContentNode> segmentNodes = null;
+        try {
+            List<ChunkScan> chunkScans = this.invokeAll(chunkScanTasks(source, chunkCount));
+            int[] splits = splitPoints(chunkScans);
+            if (splits != null) {
+                segmentNodes = this.invokeAll(segmentTasks(source, splits));
+            }
+        } catch (X8lGrammarException e) {
+            segmentNodes = null;
+        }
+        if (segmentNodes == null || !stitch(segmentNodes, contentNode)) {
+            source.parseSequentially(contentNode);
+        }
+    }
+
+    private List<Callable<ChunkScan>> chunkScanTasks(Source source, int chunkCount) {
+        List<Callable<ChunkScan>> res = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final long nominalStart = (long) i * chunkSize;
+            final long nominalEnd = nominalStart + chunkSize;
+            res.add(() -> {
+                int start = nominalStart == 0 ? 0 : source.firstBoundary((int) nominalStart);
+                int end = nominalEnd >= source.length() ? source.length() : source.firstBoundary((int) nominalEnd);
+                return source.scan(start, end);
+            });
+        }
+        return res;
+    }
+
+    /**
+     * add up depths of chunks, and pick one split point for each chunk if it has one.
+     *
+     * @return split points, starting with 0. null if the speculation does not add up.
+     */
+    private static int[] splitPoints(List<ChunkScan> chunkScans) {
+        int[] res = new int[chunkScans.size()];
+        int splitCount = 0;
+        res[splitCount++] = 0;
+        int depth = 0;
+        for (int i = 0; i < chunkScans.size(); i++) {
+            ChunkScan chunkScan = chunkScans.get(i);
+            if (chunkScan.endStatus != X8lStatusEnum.ContentArea || depth + chunkScan.minDepth < 0) {
+                return null;
+            }
+            if (i > 0 && depth < chunkScan.firstOpenAtDepth.length && chunkScan.firstOpenAtDepth[depth] >= 0) {
+                res[splitCount++] = chunkScan.firstOpenAtDepth[depth];
+            }
+            depth += chunkScan.endDepth;
+        }
+        return Arrays.copyOf(res, splitCount);
+    }
+
+    private static List<Callable<ContentNode>> segmentTasks(Source source, int[] splits) {
+        List<Callable<ContentNode>> res = new ArrayList<>(splits.length);
+        for (int i = 0; i < splits.length; i++) {
+            final int start = splits[i];
+            final int end = i + 1 < splits.length ? splits[i + 1] : source.length();
+            res.add(() -> {
+                ContentNode segmentNode = new ContentNode(null);
+                X8lParser x8lParser = new X8lParser(segmentNode);
+                source.feed(x8lParser, start, end);
+                x8lParser.endOfInput();
+                return segmentNode;
+            });
+        }
+        return res;
+    }
+
+    /**
+     * move children of segments into contentNode.
+     * every segment but the first starts with a '&lt;', so it starts with an empty TextNode,
+     * which the sequential parser would not make.
+     *
+     * @return false if a segment does not start as it should.
+     */
+    private static boolean stitch(List<ContentNode> segmentNodes, ContentNode contentNode) {
+        for (int i = 1; i < segmentNodes.size(); i++) {
+            List<AbstractTreeNode> children = segmentNodes.get(i).getChildren();
+            if (children.isEmpty()
+                    || !(children.get(0) instanceof TextNode)
+                    || !((TextNode) children.get(0)).getTextContent().isEmpty()) {
+                return false;
+            }
+        }
+        List<AbstractTreeNode> targetChildren = contentNode.getChildren();
+        for (int i = 0; i < segmentNodes.size(); i++) {
+            List<AbstractTreeNode> children = segmentNodes.get(i).getChildren();
+            for (int j = i == 0 ? 0 : 1; j < children.size(); j++) {
+                AbstractTreeNode child = children.get(j);
+                child.setParent(contentNode);
+                targetChildren.add(child);
+            }
+            children.clear();
+        }
+        return true;
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<Future<T>> futures = forkJoinPool.invokeAll(tasks);
+        List<T> res = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                res.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new X8lGrammarException("Interrupted while parsing.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new X8lGrammarException("Parsing a segment fails.", e.getCause());
+        }
+        return res;
+    }
+
+    /**
+     * result of scanning a chunk from right after its first unescaped '&gt;'.
+     * depths are relative to the start of the chunk.
+     */
+    private static final class ChunkScan {
+        private X8lStatusEnum endStatus;
+        private int endDepth;
+        private int minDepth;
+        /**
+         * index of the first '&lt;' in content area at relative depth -i, or -1.
+         */
+        private int[] firstOpenAtDepth;
+    }
+
+    /**
+     * the input, as chars or as utf-8 bytes.
+     * all delimiters deciding the structure ('%', '&lt;', '&gt;') are ascii, so they are scanned the same way.
+     */
+    private abstract static class Source {
+        abstract int length();
+
+        abstract int charAt(int index);
+
+        abstract void feed(X8lParser x8lParser, int start, int end);
+
+        void parseSequentially(ContentNode contentNode) {
+            X8lParser x8lParser = new X8lParser(contentNode);
+            this.feed(x8lParser, 0, this.length());
+            x8lParser.endOfInput();
+        }
+
+        /**
+         * @return index right after the first unescaped '&gt;' at or after from, or length() if none.
+         */
+        int firstBoundary(int from) {
+            int modulusCount = 0;
+            for (int i = from - 1; i >= 0 && this.charAt(i) == '%'; i--) {
+                modulusCount++;
+            }
+            final int length = this.length();
+            for (int i = (modulusCount & 1) == 0 ? from : from + 1; i < length; i++) {
+                int nowChar = this.charAt(i);
+                if (nowChar == '%') {
+                    i++;
+                } else if (nowChar == '>') {
+                    return i + 1;
+                }
+            }
+            return length;
+        }
+
+        ChunkScan scan(int start, int end) {
+            int[] firstOpenAtDepth = new int[8];
+            Arrays.fill(firstOpenAtDepth, -1);
+            int depth = 0;
+            int minDepth = 0;
+            X8lStatusEnum nowStatus = X8lStatusEnum.ContentArea;
+            for (int i = start; i < end; i++) {
+                int nowChar = this.charAt(i);
+                if (nowChar == '%') {
+                    i++;
+                } else if (nowChar == '<') {
+                    if (nowStatus == X8lStatusEnum.ContentArea) {
+                        if (depth <= 0) {
+                            if (-depth >= firstOpenAtDepth.length) {
+                                int oldLength = firstOpenAtDepth.length;
+                                firstOpenAtDepth = Arrays.copyOf(firstOpenAtDepth, Math.max(oldLength << 1, 1 - depth));
+                                Arrays.fill(firstOpenAtDepth, oldLength, firstOpenAtDepth.length, -1);
+                            }
+                            if (firstOpenAtDepth[-depth] < 0) {
+                                firstOpenAtDepth[-depth] = i;
+                            }
+                        }
+                        depth++;
+                        nowStatus = X8lStatusEnum.AttributeArea;
+                    } else if (nowStatus == X8lStatusEnum.AttributeArea) {
+                        depth--;
+                        nowStatus = X8lStatusEnum.CommentArea;
+                    }
+                } else if (nowChar == '>') {
+                    if (nowStatus == X8lStatusEnum.ContentArea) {
+                        depth--;
+                        minDepth = Math.min(minDepth, depth);
+                    } else {
+                        nowStatus = X8lStatusEnum.ContentArea;
+                    }
+                }
+            }
+            ChunkScan res = new ChunkScan();
+            res.endStatus = nowStatus;
+            res.endDepth = depth;
+            res.minDepth = minDepth;
+            res.firstOpenAtDepth = firstOpenAtDepth;
+            return res;
+        }
+    }
+
+    private static final class CharSequenceSource extends Source {
+        private final CharSequence charSequence;
+
+        private CharSequenceSource(CharSequence charSequence) {
+            this.charSequence = charSequence;
+        }
+
+        @Override
+        int length() {
+            return charSequence.length();
+        }
+
+        @Override
+        int charAt(int index) {
+            return charSequence.charAt(index);
+        }
+
+        @Override
+        void feed(X8lParser x8lParser, int start, int end) {
+            x8lParser.feed(charSequence, start, end);
+        }
+    }
+
+    private static final class BytesSource extends Source {
+        private final byte[] bytes;
+
+        private BytesSource(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        int length() {
+            return bytes.length;
+        }
+
+        @Override
+        int charAt(int index) {
+            return bytes[index];
+        }
+
+        @Override
+        void feed(X8lParser x8lParser, int start, int end) {
+            x8lParser.feed(bytes, start, end - start);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.TextNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * X8lParallelWriter
+ * write a large tree on several threads.
+ * <p>
+ * children of a large ContentNode are cut into runs of about chunkSize chars (estimated from lengths of strings),
+ * and every run is written by its own X8lWriter into its own buffer at the same time.
+ * a child larger than chunkSize is not put into a run, but cut again the same way.
+ * the buffers are written to the output in document order as soon as they are done,
+ * with the attribute areas and closing '&gt;'s of the large nodes in between,
+ * and only a few runs for each thread are written ahead.
+ * <p>
+ * a run starting with a TextNode right after another TextNode starts with the &amp; between them,
+ * so the output is exactly the same as X8lWriter, thus X8lDealer.
+ * writing to an OutputStream, runs are encoded to utf-8 on the threads too.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lWriter
+ * @see X8lParallelParser
+ */
+public final class X8lParallelWriter {
+    /** Constant <code>DEFAULT_CHUNK_SIZE=1 &lt;&lt; 20</code> */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ForkJoinPool forkJoinPool;
+    private final int chunkSize;
+
+    /**
+     * <p>Constructor for X8lParallelWriter.</p>
+     * use the common ForkJoinPool, and DEFAULT_CHUNK_SIZE.
+     */
+    public X8lParallelWriter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lParallelWriter.</p>
+     *
+     * @param forkJoinPool the pool to run on.
+     * @param chunkSize    size of runs, in chars. a tree smaller than two runs is written sequentially,
+     *                     and so is everything when the pool has only one thread.
+     */
+    public X8lParallelWriter(@NotNull ForkJoinPool forkJoinPool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive : " + chunkSize);
+        }
+        this.forkJoinPool = forkJoinPool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * write a node to a writer, the same way as X8lDealer does.
+     * the writer is not flushed or closed.
+     *
+     * @param abstractTreeNode the node to write. a RootNode is written as its children only.
+     * @param writer           the writer to write to.
+     * @throws java.io.IOException writer.write
+     */
+    public void write(@NotNull AbstractTreeNode abstractTreeNode, @NotNull Writer writer) throws IOException {
+        X8lWriter x8lWriter = new X8lWriter(writer);
+        new Job(x8lWriter, null).write(abstractTreeNode);
+        x8lWriter.flushBuffer();
+    }
+
+    /**
+     * write a node to an outputStream as utf-8 bytes, the same way as X8lDealer does.
+     * the outputStream is not flushed or closed.
+     *
+     * @param abstractTreeNode the node to write. a RootNode is written as its children only.
+     * @param outputStream     the outputStream to write to.
+     * @throws java.io.IOException outputStream.write
+     */
+    public void write(@NotNull AbstractTreeNode abstractTreeNode, @NotNull OutputStream outputStream)
+            throws IOException {
+        X8lWriter x8lWriter = new X8lWriter(outputStream);
+        new Job(x8lWriter, outputStream).write(abstractTreeNode);
+        x8lWriter.flushBuffer();
+    }
+
+    /**
+     * about how many chars abstractTreeNode is written as.
+     * it stops counting as soon as it is more than limit, so telling a large node costs about limit.
+     *
+     * @return the estimated size, or anything more than limit if it is more than limit.
+     */
+    private static long estimate(AbstractTreeNode abstractTreeNode, long limit) {
+        if (abstractTreeNode instanceof TextNode) {
+            final TextNode textNode = (TextNode) abstractTreeNode;
+            final String transcodedTextContent = textNode.getTranscodedTextContent();
+            return 1 + (transcodedTextContent != null ? transcodedTextContent : textNode.getTextContent()).length();
+        }
+        if (abstractTreeNode instanceof CommentNode) {
+            final CommentNode commentNode = (CommentNode) abstractTreeNode;
+            final String transcodedTextContent = commentNode.getTranscodedTextContent();
+            return 3 + (transcodedTextContent != null ? transcodedTextContent : commentNode.getTextContent()).length();
+        }
+        if (!(abstractTreeNode instanceof ContentNode)) {
+            return 16;
+        }
+        final ContentNode contentNode = (ContentNode) abstractTreeNode;
+        final String serializedCache = contentNode.getSerializedCache();
+        if (serializedCache != null) {
+            return serializedCache.length();
+        }
+        long res = 2;
+        for (int i = 0; i < contentNode.getAttributeNum(); i++) {
+            res += contentNode.getAttributeKey(i).length() + contentNode.getAttributeValue(i).length() + 2;
+        }
+        final List<AbstractTreeNode> children = contentNode.getChildrenToRead();
+        for (int i = 0; i < children.size() && res <= limit; i++) {
+            res += estimate(children.get(i), limit - res);
+        }
+        return res;
+    }
+
+    /**
+     * one write call.
+     */
+    private final class Job {
+        private final X8lWriter x8lWriter;
+        private final OutputStream outputStream;
+        private final int window = forkJoinPool.getParallelism() * 2;
+
+        /**
+         * things to write in order: a Future of a run, a ContentNode whose attribute area to write,
+         * or a String to write as it is.
+         */
+        private final ArrayDeque<Object> pending = new ArrayDeque<>();
+        private int runningNum;
+
+        private Job(@NotNull X8lWriter x8lWriter, @Nullable OutputStream outputStream) {
+            this.x8lWriter = x8lWriter;
+            this.outputStream = outputStream;
+        }
+
+        private void write(AbstractTreeNode abstractTreeNode) throws IOException {
+            if (forkJoinPool.getParallelism() < 2
+                    || !(abstractTreeNode instanceof ContentNode)
+                    || ((ContentNode) abstractTreeNode).getSerializedCache() != null
+                    || estimate(abstractTreeNode, 2L * chunkSize) <= 2L * chunkSize) {
+                x8lWriter.write(abstractTreeNode);
+                return;
+            }
+            try {
+                this.split((ContentNode) abstractTreeNode);
+                while (!pending.isEmpty()) {
+                    this.writeFirst();
+                }
+            } finally {
+                for (Object nowPending : pending) {
+                    if (nowPending instanceof Future) {
+                        ((Future<?>) nowPending).cancel(false);
+                    }
+                }
+            }
+        }
+
+        private void split(ContentNode contentNode) throws IOException {
+            // X8lWriter writes a RootNode as its children only.
+            final boolean isRoot = contentNode instanceof RootNode;
+            if (!isRoot) {
+                this.add(contentNode);
+            }
+            final List<AbstractTreeNode> children = contentNode.getChildrenToRead();
+            final long[] childSizes = this.estimateAll(children);
+            int runStart = 0;
+            long runSize = 0;
+            for (int i = 0; i < children.size(); i++) {
+                final AbstractTreeNode child = children.get(i);
+                final long childSize = childSizes[i];
+                if (childSize > chunkSize
+                        && child instanceof ContentNode
+                        && ((ContentNode) child).getSerializedCache() == null) {
+                    this.addRun(children, runStart, i, runSize);
+                    this.split((ContentNode) child);
+                    runStart = i + 1;
+                    runSize = 0;
+                } else {
+                    runSize += childSize;
+                    if (runSize >= chunkSize) {
+                        this.addRun(children, runStart, i + 1, runSize);
+                        runStart = i + 1;
+                        runSize = 0;
+                    }
+                }
+            }
+            this.addRun(children, runStart, children.size(), runSize);
+            if (!isRoot) {
+                this.add(">");
+            }
+        }
+
+        /**
+         * estimate children on the threads, as it walks the whole tree once.
+         */
+        private long[] estimateAll(List<AbstractTreeNode> children) throws IOException {
+            final int size = children.size();
+            final long[] res = new long[size];
+            final int taskNum = Math.min(window * 2, size / 16);
+            if (taskNum < 2) {
+                for (int i = 0; i < size; i++) {
+                    res[i] = estimate(children.get(i), chunkSize);
+                }
+                return res;
+            }
+            final List<Future<?>> futures = new ArrayList<>(taskNum);
+            try {
+                for (int t = 0; t < taskNum; t++) {
+                    final int from = (int) ((long) size * t / taskNum);
+                    final int to = (int) ((long) size * (t + 1) / taskNum);
+                    futures.add(forkJoinPool.submit(() -> {
+                        for (int i = from; i < to; i++) {
+                            res[i] = estimate(children.get(i), chunkSize);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    this.get(future);
+                }
+            } finally {
+                for (Future<?> future : futures) {
+                    future.cancel(false);
+                }
+            }
+            return res;
+        }
+
+        private void addRun(List<AbstractTreeNode> children, int from, int to, long size) throws IOException {
+            if (from >= to) {
+                return;
+            }
+            final int initialSize = (int) Math.min(size + (size >> 3), MAX_BUFFER_SIZE);
+            Callable<Object> task;
+            if (outputStream == null) {
+                task = () -> {
+                    StringBuilderWriter stringBuilderWriter = new StringBuilderWriter(initialSize);
+                    X8lWriter runWriter = new X8lWriter(stringBuilderWriter);
+                    runWriter.writeChildren(children, from, to);
+                    runWriter.flushBuffer();
+                    return stringBuilderWriter.toString();
+                };
+            } else {
+                task = () -> {
+                    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(initialSize);
+                    X8lWriter runWriter = new X8lWriter(byteArrayOutputStream);
+                    runWriter.writeChildren(children, from, to);
+                    runWriter.flushBuffer();
+                    return byteArrayOutputStream;
+                };
+            }
+            runningNum++;
+            this.add(forkJoinPool.submit(task));
+            while (runningNum >= window) {
+                this.writeFirst();
+            }
+        }
+
+        private void add(Object nowPending) throws IOException {
+            if (pending.isEmpty() && !(nowPending instanceof Future)) {
+                this.writePending(nowPending);
+            } else {
+                pending.add(nowPending);
+            }
+        }
+
+        private void writeFirst() throws IOException {
+            this.writePending(pending.peekFirst());
+            pending.pollFirst();
+        }
+
+        private void writePending(Object nowPending) throws IOException {
+            if (nowPending instanceof ContentNode) {
+                x8lWriter.writeContentNodeHead((ContentNode) nowPending);
+            } else if (nowPending instanceof String) {
+                x8lWriter.append((String) nowPending);
+            } else {
+                final Object run = this.get((Future<?>) nowPending);
+                runningNum--;
+                if (run instanceof String) {
+                    x8lWriter.append((String) run);
+                } else {
+                    x8lWriter.flushBuffer();
+                    ((ByteArrayOutputStream) run).writeTo(outputStream);
+                }
+            }
+        }
+
+        private Object get(Future<?> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing.");
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException("Writing a run fails.", cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,957 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.ParseOptions;
+import com.xenoamess.x8l.X8lGrammarException;
+import com.xenoamess.x8l.X8lSymbolTable;
+import com.xenoamess.x8l.X8lTree;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * X8lParser
+ * the parser engine behind X8lDealer's ContentNode handler.
+ * <p>
+ * it does not build nodes by itself, but sends events to an X8lEventHandler.
+ * building a tree is just one kind of handler (X8lTreeBuilder),
+ * and the memory used by the parser itself does not grow with the document.
+ * <p>
+ * it reads the source in large char[] blocks instead of calling reader.read() once per char,
+ * scans runs of ordinary chars with an ascii lookup table,
+ * and builds every token in one reusable buffer.
+ * <p>
+ * it can also parse utf-8 bytes directly (InputStream, byte[], ByteBuffer).
+ * as every delimiter of x8l is ascii, the bytes are scanned 8 at a time as a long word,
+ * and only the slice of each token gets decoded into a String.
+ * do not feed chars and bytes into one parser.
+ * <p>
+ * the grammar is exactly the same as the old char-by-char handler.
+ * notice that the status stack of that handler can only ever hold ContentArea
+ * (a new status is only pushed when a '&lt;' is met in content area),
+ * so here it is replaced by a status field and a depth counter.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lEventHandler
+ */
+public final class X8lParser {
+    /** Constant <code>DEFAULT_BUFFER_SIZE=8192</code> */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** Constant <code>DEFAULT_MAPPED_WINDOW_SIZE=1 &lt;&lt; 30</code> */
+    public static final int DEFAULT_MAPPED_WINDOW_SIZE = 1 << 30;
+
+    private static final int INITIAL_TOKEN_BUFFER_SIZE = 256;
+
+    private static final byte CONTENT_DELIMITER = 1;
+    private static final byte ATTRIBUTE_DELIMITER = 2;
+    private static final byte COMMENT_DELIMITER = 4;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * delimiter table for ascii chars.
+     * for chars out of ascii, only whitespaces in attribute area are delimiters.
+     */
+    private static final byte[] DELIMITER_TABLE = new byte[128];
+
+    static {
+        DELIMITER_TABLE['%'] = CONTENT_DELIMITER | ATTRIBUTE_DELIMITER | COMMENT_DELIMITER;
+        DELIMITER_TABLE['>'] = CONTENT_DELIMITER | ATTRIBUTE_DELIMITER | COMMENT_DELIMITER;
+        DELIMITER_TABLE['<'] = CONTENT_DELIMITER | ATTRIBUTE_DELIMITER;
+        DELIMITER_TABLE['&'] = CONTENT_DELIMITER;
+        for (char c = 0; c < DELIMITER_TABLE.length; c++) {
+            if (Character.isWhitespace(c)) {
+                DELIMITER_TABLE[c] |= ATTRIBUTE_DELIMITER;
+            }
+        }
+    }
+
+    private final X8lEventHandler handler;
+    private final int bufferSize;
+    private final boolean acceptComments;
+    private final boolean acceptWhitespaceTexts;
+
+    private final List<String> attributesKeyList = new ArrayList<>();
+    private final List<String> attributesValueList = new ArrayList<>();
+    private int depth;
+    private X8lStatusEnum nowStatus = X8lStatusEnum.ContentArea;
+    private boolean lastCharIsModulus;
+
+    private char[] tokenBuffer = new char[INITIAL_TOKEN_BUFFER_SIZE];
+    private int tokenLength;
+    private boolean tokenEscaped;
+    /**
+     * tokens of texts and comments keep their % escapes.
+     * this is true while every escape in the token is one that transcodeText/transcodeComment would make.
+     */
+    private boolean tokenCanonical = true;
+    /**
+     * the block being parsed now. only one of them is not null, and only during a feed.
+     */
+    private char[] blockChars;
+    private CharSequence blockCharSequence;
+    private byte[] blockBytes;
+    /**
+     * tokens of byte blocks are built here, and decoded when taken.
+     */
+    private byte[] tokenBytes;
+    /**
+     * a utf-8 lead byte (and its following bytes) at the end of a byte block in attribute area,
+     * which might be a non-ascii whitespace.
+     */
+    private final byte[] carryBytes = new byte[3];
+    private byte[] directBlock;
+    private int carryLength;
+    /**
+     * start index of the part of the current token that is still in the block, or -1.
+     */
+    private int pendingStart = -1;
+    /**
+     * while a ContentNode not accepted by the handler is skipped, the depth it ends at, or -1.
+     * tokens are only measured but never copied then.
+     */
+    private int skipDepth = -1;
+    private boolean skippedAttribute;
+
+    /**
+     * <p>Constructor for X8lParser.</p>
+     *
+     * @param contentNode the node to read into.
+     */
+    public X8lParser(@NotNull ContentNode contentNode) {
+        this(new X8lTreeBuilder(contentNode));
+    }
+
+    /**
+     * <p>Constructor for X8lParser.</p>
+     *
+     * @param contentNode the node to read into.
+     * @param bufferSize  size of the char[] block read from reader each time.
+     */
+    public X8lParser(@NotNull ContentNode contentNode, int bufferSize) {
+        this(new X8lTreeBuilder(contentNode), bufferSize);
+    }
+
+    /**
+     * <p>Constructor for X8lParser.</p>
+     *
+     * @param contentNode the node to read into.
+     * @param symbolTable if not null, attribute keys and short values are canonicalized by it.
+     */
+    public X8lParser(@NotNull ContentNode contentNode, @Nullable X8lSymbolTable symbolTable) {
+        this(new X8lTreeBuilder(contentNode, symbolTable));
+    }
+
+    /**
+     * <p>Constructor for X8lParser.</p>
+     *
+     * @param contentNode  the node to read into.
+     * @param parseOptions what to leave out of the tree.
+     */
+    public X8lParser(@NotNull ContentNode contentNode, @NotNull ParseOptions parseOptions) {
+        this(new X8lTreeBuilder(contentNode, parseOptions));
+    }
+
+    /**
+     * <p>Constructor for X8lParser.</p>
+     *
+     * @param handler the handler to send events to.
+     */
+    public X8lParser(@NotNull X8lEventHandler handler) {
+        this(handler, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lParser.</p>
+     *
+     * @param handler    the handler to send events to.
+     * @param bufferSize size of the char[] block read from reader each time.
+     */
+    public X8lParser(@NotNull X8lEventHandler handler, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive : " + bufferSize);
+        }
+        this.handler = handler;
+        this.bufferSize = bufferSize;
+        this.acceptComments = handler.acceptComments();
+        this.acceptWhitespaceTexts = handler.acceptWhitespaceTexts();
+    }
+
+    /**
+     * <p>Getter for the field <code>bufferSize</code>.</p>
+     *
+     * @return size of the char[] block read from reader each time.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * read all content from reader and send it to the handler as events.
+     * will not close the reader after reading.
+     *
+     * @param reader reader
+     * @throws java.io.IOException                   reader.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void parse(@NotNull Reader reader) throws IOException, X8lGrammarException {
+        char[] buffer = new char[this.bufferSize];
+        int length;
+        while ((length = reader.read(buffer, 0, buffer.length)) != -1) {
+            this.feed(buffer, 0, length);
+        }
+        this.endOfInput();
+    }
+
+    /**
+     * parse a whole CharSequence, by index.
+     * <p>
+     * no Reader and no read buffer is used.
+     * a token without any % escape in it is taken out with a single subSequence(...).toString(),
+     * which is a single substring for a String.
+     *
+     * @param charSequence charSequence
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void parse(@NotNull CharSequence charSequence) throws X8lGrammarException {
+        this.feed(charSequence, 0, charSequence.length());
+        this.endOfInput();
+    }
+
+    /**
+     * parse a block of chars, and send events of everything completed in it.
+     * the parser keeps its status between blocks, and will not keep any reference to the buffer,
+     * so the buffer can be refilled and fed again.
+     *
+     * @param buffer buffer
+     * @param offset offset of the block in buffer
+     * @param length length of the block
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void feed(@NotNull char[] buffer, int offset, int length) throws X8lGrammarException {
+        final int end = offset + length;
+        blockChars = buffer;
+        try {
+            int i = this.startBlock(offset, end);
+            while (i < end) {
+                final byte mask = delimiterMaskOf(nowStatus);
+                final int runStart = i;
+                if (mask == ATTRIBUTE_DELIMITER) {
+                    for (; i < end; i++) {
+                        char c = buffer[i];
+                        if (c < 128 ? (DELIMITER_TABLE[c] & mask) != 0 : Character.isWhitespace(c)) {
+                            break;
+                        }
+                    }
+                } else {
+                    for (; i < end; i++) {
+                        char c = buffer[i];
+                        if (c < 128 && (DELIMITER_TABLE[c] & mask) != 0) {
+                            break;
+                        }
+                    }
+                }
+                if (i > runStart && pendingStart < 0) {
+                    pendingStart = runStart;
+                }
+                if (i == end) {
+                    break;
+                }
+                i = this.dealSpecialChar(buffer[i], i, end);
+            }
+            flushPending(end);
+        } finally {
+            blockChars = null;
+        }
+    }
+
+    /**
+     * parse a part of a CharSequence, by index, and send events of everything completed in it.
+     * the parser keeps its status between parts, and will not keep any reference to the CharSequence.
+     *
+     * @param charSequence charSequence
+     * @param start        start index, inclusive
+     * @param end          end index, exclusive
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void feed(@NotNull CharSequence charSequence, int start, int end) throws X8lGrammarException {
+        blockCharSequence = charSequence;
+        try {
+            int i = this.startBlock(start, end);
+            while (i < end) {
+                final byte mask = delimiterMaskOf(nowStatus);
+                final int runStart = i;
+                if (mask == ATTRIBUTE_DELIMITER) {
+                    for (; i < end; i++) {
+                        char c = charSequence.charAt(i);
+                        if (c < 128 ? (DELIMITER_TABLE[c] & mask) != 0 : Character.isWhitespace(c)) {
+                            break;
+                        }
+                    }
+                } else {
+                    for (; i < end; i++) {
+                        char c = charSequence.charAt(i);
+                        if (c < 128 && (DELIMITER_TABLE[c] & mask) != 0) {
+                            break;
+                        }
+                    }
+                }
+                if (i > runStart && pendingStart < 0) {
+                    pendingStart = runStart;
+                }
+                if (i == end) {
+                    break;
+                }
+                i = this.dealSpecialChar(charSequence.charAt(i), i, end);
+            }
+            flushPending(end);
+        } finally {
+            blockCharSequence = null;
+        }
+    }
+
+    /**
+     * read all utf-8 bytes from inputStream and send them to the handler as events.
+     * will not close the inputStream after reading.
+     *
+     * @param inputStream inputStream
+     * @throws java.io.IOException                   inputStream.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void parse(@NotNull InputStream inputStream) throws IOException, X8lGrammarException {
+        byte[] buffer = new byte[this.bufferSize];
+        int length;
+        while ((length = inputStream.read(buffer, 0, buffer.length)) != -1) {
+            this.feed(buffer, 0, length);
+        }
+        this.endOfInput();
+    }
+
+    /**
+     * parse all remaining utf-8 bytes of a ByteBuffer.
+     *
+     * @param byteBuffer byteBuffer
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     * @see #feed(ByteBuffer)
+     */
+    public void parse(@NotNull ByteBuffer byteBuffer) throws X8lGrammarException {
+        this.feed(byteBuffer);
+        this.endOfInput();
+    }
+
+    /**
+     * parse all utf-8 bytes of a file by mapping it into memory, from its current position.
+     *
+     * @param fileChannel fileChannel
+     * @throws java.io.IOException                   fileChannel.map
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     * @see #parse(FileChannel, int)
+     */
+    public void parse(@NotNull FileChannel fileChannel) throws IOException, X8lGrammarException {
+        this.parse(fileChannel, DEFAULT_MAPPED_WINDOW_SIZE);
+    }
+
+    /**
+     * parse all utf-8 bytes of a file by mapping it into memory, from its current position.
+     * <p>
+     * the bytes are parsed straight from the mapping, with no read buffer in heap.
+     * a MappedByteBuffer can not be larger than 2 GB,
+     * so the file is mapped one window after another, and tokens can cross windows.
+     * will not close the fileChannel after reading.
+     *
+     * @param fileChannel fileChannel
+     * @param windowSize  max size of each mapped window.
+     * @throws java.io.IOException                   fileChannel.map
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void parse(@NotNull FileChannel fileChannel, int windowSize) throws IOException, X8lGrammarException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive : " + windowSize);
+        }
+        final long size = fileChannel.size();
+        long position = fileChannel.position();
+        while (position < size) {
+            long length = Math.min(windowSize, size - position);
+            this.feed(fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            position += length;
+        }
+        fileChannel.position(size);
+        this.endOfInput();
+    }
+
+    /**
+     * parse a block of utf-8 bytes.
+     *
+     * @param bytes  bytes
+     * @param offset offset of the block in bytes
+     * @param length length of the block
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     * @see #feed(ByteBuffer)
+     */
+    public void feed(@NotNull byte[] bytes, int offset, int length) throws X8lGrammarException {
+        final int end = offset + length;
+        // only used for reading long words. indexes of it are the same as of bytes.
+        final ByteBuffer words = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        blockBytes = bytes;
+        try {
+            int i = this.startCarry(bytes, offset, end);
+            if (i < 0) {
+                return;
+            }
+            i = this.startBlock(i, end);
+            while (i < end) {
+                final byte mask = delimiterMaskOf(nowStatus);
+                final int runStart = i;
+                i = nextDelimiterIndex(bytes, words, i, end, mask);
+                if (i > runStart && pendingStart < 0) {
+                    pendingStart = runStart;
+                }
+                if (i == end) {
+                    break;
+                }
+                final int b = bytes[i] & 0xFF;
+                if (b < 128) {
+                    i = this.dealSpecialChar((char) b, i, end);
+                } else if (i + 3 > end) {
+                    // a lead byte of a possible whitespace, but the rest of it is in the next block.
+                    flushPending(i);
+                    carryLength = end - i;
+                    System.arraycopy(bytes, i, carryBytes, 0, carryLength);
+                    return;
+                } else {
+                    // a non-ascii whitespace in attribute area
+                    dealDelimiter(' ', i);
+                    i += 3;
+                }
+            }
+            flushPending(end);
+        } finally {
+            blockBytes = null;
+        }
+    }
+
+    /**
+     * parse the remaining utf-8 bytes of a ByteBuffer, and send events of everything completed in it.
+     * the position of byteBuffer is moved to its limit.
+     * a utf-8 sequence can be split between two blocks.
+     * the parser will not keep any reference to the byteBuffer.
+     *
+     * @param byteBuffer byteBuffer
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void feed(@NotNull ByteBuffer byteBuffer) throws X8lGrammarException {
+        if (byteBuffer.hasArray()) {
+            this.feed(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
+            byteBuffer.position(byteBuffer.limit());
+            return;
+        }
+        // reading a direct buffer (or a mapping) byte by byte costs more than
+        // moving it into a small heap block first, which stays in cache.
+        if (directBlock == null) {
+            directBlock = new byte[bufferSize];
+        }
+        while (byteBuffer.hasRemaining()) {
+            int length = Math.min(directBlock.length, byteBuffer.remaining());
+            byteBuffer.get(directBlock, 0, length);
+            this.feed(directBlock, 0, length);
+        }
+    }
+
+    /**
+     * finish the carried lead byte from last block, if any.
+     *
+     * @return index to start scanning from, or -1 if the block is used up.
+     */
+    private int startCarry(byte[] bytes, int start, int end) {
+        if (carryLength == 0) {
+            return start;
+        }
+        final int needed = 3 - carryLength;
+        if (end - start < needed) {
+            for (int i = start; i < end; i++) {
+                carryBytes[carryLength++] = bytes[i];
+            }
+            return -1;
+        }
+        final int originalCarryLength = carryLength;
+        for (int i = 0; i < needed; i++) {
+            carryBytes[carryLength + i] = bytes[start + i];
+        }
+        carryLength = 0;
+        if (isWhitespace(carryBytes[0], carryBytes[1], carryBytes[2])) {
+            dealDelimiter(' ', start);
+            return start + needed;
+        }
+        // not a whitespace, so the carried bytes are just a part of the token,
+        // and the bytes of this block are scanned as usual.
+        ensureTokenBytes(tokenLength + originalCarryLength);
+        System.arraycopy(carryBytes, 0, tokenBytes, tokenLength, originalCarryLength);
+        tokenLength += originalCarryLength;
+        return start;
+    }
+
+    /**
+     * find the next delimiter byte in [index, end) with SWAR on long words.
+     * in attribute area, a utf-8 lead byte of a non-ascii whitespace,
+     * or one too near to the end to be sure, is also returned.
+     *
+     * @return index of the delimiter, or end if not found.
+     */
+    private static int nextDelimiterIndex(byte[] bytes, ByteBuffer words, int index, int end, byte mask) {
+        while (index < end) {
+            // runs are often very short (think of indents in attribute area), so check one byte first.
+            final int b = bytes[index] & 0xFF;
+            if (b < 128) {
+                if ((DELIMITER_TABLE[b] & mask) != 0) {
+                    return index;
+                }
+            } else if (mask == ATTRIBUTE_DELIMITER && b >= 0xE1 && b <= 0xE3
+                    && (index + 3 > end
+                    || isWhitespace(bytes[index], bytes[index + 1], bytes[index + 2]))) {
+                return index;
+            }
+            index++;
+            while (index + 8 <= end) {
+                long found = delimiterBits(words.getLong(index), mask);
+                if (found != 0) {
+                    index += Long.numberOfTrailingZeros(found) >>> 3;
+                    break;
+                }
+                index += 8;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * mark bytes in the word that might be delimiters.
+     * the lowest marked byte is always a real candidate, but higher ones might be false,
+     * and candidates still need checking against DELIMITER_TABLE.
+     */
+    private static long delimiterBits(long word, byte mask) {
+        long res = zeroBytes(word ^ (ONES * '%')) | zeroBytes(word ^ (ONES * '>'));
+        if (mask == CONTENT_DELIMITER) {
+            res |= zeroBytes(word ^ (ONES * '<')) | zeroBytes(word ^ (ONES * '&'));
+        } else if (mask == ATTRIBUTE_DELIMITER) {
+            // ascii whitespaces are all below 0x21, and non-ascii bytes have the high bit.
+            res |= zeroBytes(word ^ (ONES * '<')) | ((word - ONES * 0x21) | word) & HIGH_BITS;
+        }
+        return res;
+    }
+
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    /**
+     * non-ascii whitespaces are all 3 byte long in utf-8, with lead byte 0xE1 to 0xE3.
+     */
+    private static boolean isWhitespace(byte b0, byte b1, byte b2) {
+        if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80) {
+            return false;
+        }
+        return Character.isWhitespace(((b0 & 0x0F) << 12) | ((b1 & 0x3F) << 6) | (b2 & 0x3F));
+    }
+
+    private void ensureTokenBytes(int length) {
+        if (tokenBytes == null) {
+            tokenBytes = new byte[Math.max(INITIAL_TOKEN_BUFFER_SIZE, length)];
+        } else if (length > tokenBytes.length) {
+            tokenBytes = Arrays.copyOf(tokenBytes, Math.max(tokenBytes.length << 1, length));
+        }
+    }
+
+    /**
+     * deal with a char escaped by a % at the end of last block.
+     *
+     * @return index to start scanning from.
+     */
+    private int startBlock(int start, int end) {
+        if (lastCharIsModulus && start < end) {
+            lastCharIsModulus = false;
+            if (nowStatus != X8lStatusEnum.AttributeArea) {
+                checkCanonical(start);
+            }
+            pendingStart = start;
+            return start + 1;
+        }
+        return start;
+    }
+
+    /**
+     * @return index to continue scanning from.
+     */
+    private int dealSpecialChar(char nowChar, int index, int end) {
+        if (nowChar == '%') {
+            tokenEscaped = true;
+            if (nowStatus != X8lStatusEnum.AttributeArea) {
+                // texts and comments keep the %, see sendText.
+                if (pendingStart < 0) {
+                    pendingStart = index;
+                }
+                if (index + 1 < end) {
+                    checkCanonical(index + 1);
+                    return index + 2;
+                }
+                lastCharIsModulus = true;
+                return index + 1;
+            }
+            flushPending(index);
+            if (index + 1 < end) {
+                pendingStart = index + 1;
+                return index + 2;
+            }
+            lastCharIsModulus = true;
+            return index + 1;
+        }
+        dealDelimiter(nowChar, index);
+        return index + 1;
+    }
+
+    private void dealDelimiter(char nowChar, int index) {
+        if (skipDepth >= 0) {
+            this.skipDelimiter(nowChar, index);
+            return;
+        }
+        if (nowStatus == X8lStatusEnum.CommentArea) {
+            // nowChar == '>'
+            this.sendComment(index);
+            nowStatus = X8lStatusEnum.ContentArea;
+        } else if (nowChar == '<') {
+            if (nowStatus == X8lStatusEnum.AttributeArea) {
+                if (!attributesKeyList.isEmpty() || !tokenIsEmpty(index)) {
+                    throw new X8lGrammarException("Unexpected < in attribute area of a content node.");
+                }
+                depth--;
+                nowStatus = X8lStatusEnum.CommentArea;
+            } else {
+                this.sendText(index);
+                depth++;
+                nowStatus = X8lStatusEnum.AttributeArea;
+            }
+        } else if (nowChar == '>') {
+            if (nowStatus != X8lStatusEnum.AttributeArea) {
+                if (depth == 0) {
+                    throw new X8lGrammarException("Unexpected > in content area of the root node.");
+                }
+                this.sendText(index);
+                depth--;
+                handler.endContentNode();
+            } else {
+                if (!tokenIsEmpty(index)) {
+                    this.addAttribute(this.takeToken(index));
+                }
+                if (handler.acceptContentNode(attributesKeyList, attributesValueList)) {
+                    handler.startContentNode(attributesKeyList, attributesValueList);
+                } else {
+                    skipDepth = depth - 1;
+                }
+                attributesKeyList.clear();
+                attributesValueList.clear();
+                nowStatus = X8lStatusEnum.ContentArea;
+            }
+        } else if (nowChar == '&') {
+            // nowStatus == X8lStatusEnum.ContentArea
+            this.sendText(index);
+        } else {
+            // whitespace in X8lStatusEnum.AttributeArea
+            if (!tokenIsEmpty(index)) {
+                this.addAttribute(this.takeToken(index));
+            }
+        }
+    }
+
+    /**
+     * the same as dealDelimiter, but nothing is taken or sent,
+     * till the skipped ContentNode ends.
+     */
+    private void skipDelimiter(char nowChar, int index) {
+        if (nowStatus == X8lStatusEnum.CommentArea) {
+            nowStatus = X8lStatusEnum.ContentArea;
+        } else if (nowChar == '<') {
+            if (nowStatus == X8lStatusEnum.AttributeArea) {
+                if (skippedAttribute || !tokenIsEmpty(index)) {
+                    throw new X8lGrammarException("Unexpected < in attribute area of a content node.");
+                }
+                depth--;
+                nowStatus = X8lStatusEnum.CommentArea;
+            } else {
+                depth++;
+                nowStatus = X8lStatusEnum.AttributeArea;
+            }
+        } else if (nowChar == '>') {
+            if (nowStatus != X8lStatusEnum.AttributeArea) {
+                depth--;
+                if (depth == skipDepth) {
+                    skipDepth = -1;
+                }
+            } else {
+                skippedAttribute = false;
+                nowStatus = X8lStatusEnum.ContentArea;
+            }
+        } else if (nowChar != '&' && !tokenIsEmpty(index)) {
+            // whitespace in X8lStatusEnum.AttributeArea
+            skippedAttribute = true;
+        }
+        this.dropToken();
+    }
+
+    private void dropToken() {
+        tokenLength = 0;
+        tokenEscaped = false;
+        tokenCanonical = true;
+        pendingStart = -1;
+    }
+
+    /**
+     * tell the parser that there will be no more blocks.
+     * the last TextNode is sent then.
+     *
+     * @throws com.xenoamess.x8l.X8lGrammarException when the document is not complete
+     */
+    public void endOfInput() throws X8lGrammarException {
+        if (depth == 0 && nowStatus == X8lStatusEnum.ContentArea) {
+            if (lastCharIsModulus) {
+                // a % at the very end, which escapes nothing.
+                tokenCanonical = false;
+            }
+            this.sendText(0);
+        } else {
+            throw new X8lGrammarException("Unexpected stop of x8l file.");
+        }
+    }
+
+    /**
+     * split an attribute expression into key and value,
+     * the same way as ContentNode.addAttributeFromTranscodedExpression does.
+     * <p>
+     * the startContentNode event is only sent when the attribute area ends,
+     * thus a "&lt;&lt;" comment never starts then removes a ContentNode.
+     */
+    private void addAttribute(String attributeExpressionString) {
+        final int length = attributeExpressionString.length();
+        int index = 0;
+        for (; index < length; index++) {
+            char nowChar = attributeExpressionString.charAt(index);
+            if (nowChar == '%') {
+                index++;
+            } else if (nowChar == '=') {
+                break;
+            }
+        }
+        if (index >= length) {
+            attributesKeyList.add(attributeExpressionString);
+            attributesValueList.add(ContentNode.DEFAULT_ATTRIBUTE_VALUE);
+        } else {
+            attributesKeyList.add(attributeExpressionString.substring(0, index));
+            attributesValueList.add(attributeExpressionString.substring(index + 1));
+        }
+    }
+
+    private static byte delimiterMaskOf(X8lStatusEnum status) {
+        switch (status) {
+            case AttributeArea:
+                return ATTRIBUTE_DELIMITER;
+            case CommentArea:
+                return COMMENT_DELIMITER;
+            default:
+                return CONTENT_DELIMITER;
+        }
+    }
+
+    private boolean tokenIsEmpty(int index) {
+        return tokenLength == 0 && (pendingStart < 0 || pendingStart == index);
+    }
+
+    private void flushPending(int end) {
+        if (pendingStart < 0) {
+            return;
+        }
+        int length = end - pendingStart;
+        if (skipDepth >= 0 || (!acceptComments && nowStatus == X8lStatusEnum.CommentArea)) {
+            tokenLength += length;
+            pendingStart = -1;
+            return;
+        }
+        if (blockBytes != null) {
+            ensureTokenBytes(tokenLength + length);
+            System.arraycopy(blockBytes, pendingStart, tokenBytes, tokenLength, length);
+            tokenLength += length;
+            pendingStart = -1;
+            return;
+        }
+        if (tokenLength + length > tokenBuffer.length) {
+            tokenBuffer = Arrays.copyOf(tokenBuffer, Math.max(tokenBuffer.length << 1, tokenLength + length));
+        }
+        if (blockChars != null) {
+            System.arraycopy(blockChars, pendingStart, tokenBuffer, tokenLength, length);
+        } else if (blockCharSequence instanceof String) {
+            ((String) blockCharSequence).getChars(pendingStart, end, tokenBuffer, tokenLength);
+        } else {
+            for (int i = 0; i < length; i++) {
+                tokenBuffer[tokenLength + i] = blockCharSequence.charAt(pendingStart + i);
+            }
+        }
+        tokenLength += length;
+        pendingStart = -1;
+    }
+
+    /**
+     * take the current token.
+     * one level of % escapes is removed from it in attribute area,
+     * while tokens of texts and comments keep them.
+     * a token lying in a single block is copied only once.
+     */
+    private String takeToken(int index) {
+        String res;
+        if (tokenLength == 0) {
+            if (pendingStart < 0) {
+                res = "";
+            } else if (blockChars != null) {
+                res = new String(blockChars, pendingStart, index - pendingStart);
+            } else if (blockBytes != null) {
+                res = new String(blockBytes, pendingStart, index - pendingStart, StandardCharsets.UTF_8);
+            } else {
+                res = blockCharSequence.subSequence(pendingStart, index).toString();
+            }
+        } else {
+            flushPending(index);
+            res = tokenBytes != null
+                    ? new String(tokenBytes, 0, tokenLength, StandardCharsets.UTF_8)
+                    : new String(tokenBuffer, 0, tokenLength);
+        }
+        tokenLength = 0;
+        tokenEscaped = false;
+        tokenCanonical = true;
+        pendingStart = -1;
+        return res;
+    }
+
+    /**
+     * the char that is escaped by a % in a text or a comment.
+     * an escape is canonical if transcodeText/transcodeComment would make it the same.
+     * notice that a % escaping % is not, as texts and comments are untranscoded twice.
+     */
+    private void checkCanonical(int index) {
+        final int c;
+        if (blockChars != null) {
+            c = blockChars[index];
+        } else if (blockBytes != null) {
+            c = blockBytes[index] & 0xFF;
+        } else {
+            c = blockCharSequence.charAt(index);
+        }
+        if (c != '>' && (nowStatus == X8lStatusEnum.CommentArea || (c != '<' && c != '&'))) {
+            tokenCanonical = false;
+        }
+    }
+
+    /**
+     * @return true if the current token lies in the block, and is empty or whitespace only.
+     */
+    private boolean tokenIsWhitespace(int index) {
+        if (tokenLength != 0) {
+            return false;
+        }
+        if (pendingStart < 0) {
+            return true;
+        }
+        for (int i = pendingStart; i < index; i++) {
+            final int c;
+            if (blockChars != null) {
+                c = blockChars[i];
+            } else if (blockBytes != null) {
+                c = blockBytes[i] & 0xFF;
+                if (c >= 128) {
+                    // the handler checks it after decoding.
+                    return false;
+                }
+            } else {
+                c = blockCharSequence.charAt(i);
+            }
+            if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * send the current token as a TextNode.
+     * <p>
+     * the token still has its % escapes.
+     * texts are untranscoded twice (the same as the old handler did),
+     * which equals untranscoding once when the token is canonical,
+     * and then the token is sent as it is, to be untranscoded lazily.
+     */
+    private void sendText(int index) {
+        if (!acceptWhitespaceTexts && !tokenEscaped && this.tokenIsWhitespace(index)) {
+            this.dropToken();
+            return;
+        }
+        final boolean escaped = tokenEscaped;
+        final boolean canonical = tokenCanonical;
+        final String token = this.takeToken(index);
+        if (!escaped || canonical) {
+            handler.transcodedText(token, escaped);
+        } else {
+            handler.text(X8lTree.untranscode(X8lTree.untranscode(token)));
+        }
+    }
+
+    /**
+     * send the current token as a CommentNode.
+     *
+     * @see #sendText(int)
+     */
+    private void sendComment(int index) {
+        if (!acceptComments) {
+            this.dropToken();
+            return;
+        }
+        final boolean escaped = tokenEscaped;
+        final boolean canonical = tokenCanonical;
+        final String token = this.takeToken(index);
+        if (!escaped || canonical) {
+            handler.transcodedComment(token, escaped);
+        } else {
+            handler.comment(X8lTree.untranscode(X8lTree.untranscode(token)));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * X8lPushParser
+ * a non-blocking parser, that utf-8 bytes are pushed into when they come.
+ * <p>
+ * feed parses the bytes at once, and events of everything completed in them are sent.
+ * offer only keeps a copy of the bytes, and parseFor parses kept bytes in steps till a time budget is spent,
+ * so a large document can be loaded across frames of a game loop.
+ * a % escape or a utf-8 sequence can be split between any two chunks.
+ * <p>
+ * example: load a settings file, a few milliseconds each frame.
+ * <pre>
+ * X8lPushParser x8lPushParser = new X8lPushParser(x8lTree.getRoot());
+ * x8lPushParser.offer(ByteBuffer.wrap(bytes));
+ * x8lPushParser.endOfInput();
+ * ...
+ * // in each frame
+ * if (!x8lPushParser.isFinished()) {
+ *     x8lPushParser.parseFor(Duration.ofMillis(4));
+ * }
+ * </pre>
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lParser
+ */
+public class X8lPushParser {
+    private final X8lParser parser;
+    private final int stepSize;
+    /**
+     * copies of offered bytes, not parsed yet. the position of the first one is how far it is parsed.
+     */
+    private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+    private long remaining;
+    /**
+     * the buffer offer(ReadableByteChannel) reads into, or null if not used yet.
+     * only the bytes read are copied out of it, so it is used again by every read.
+     */
+    private ByteBuffer readBuffer;
+    private boolean endOfInput;
+    private boolean finished;
+
+    /**
+     * <p>Constructor for X8lPushParser.</p>
+     *
+     * @param contentNode the node to read into.
+     */
+    public X8lPushParser(@NotNull ContentNode contentNode) {
+        this(new X8lTreeBuilder(contentNode));
+    }
+
+    /**
+     * <p>Constructor for X8lPushParser.</p>
+     *
+     * @param handler the handler to send events to.
+     */
+    public X8lPushParser(@NotNull X8lEventHandler handler) {
+        this(handler, X8lParser.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lPushParser.</p>
+     *
+     * @param handler  the handler to send events to.
+     * @param stepSize count of bytes parsed between two checks of the clock in parseFor.
+     */
+    public X8lPushParser(@NotNull X8lEventHandler handler, int stepSize) {
+        this.parser = new X8lParser(handler, stepSize);
+        this.stepSize = stepSize;
+    }
+
+    /**
+     * parse the remaining bytes of byteBuffer at once, after bytes offered before.
+     * the position of byteBuffer is moved to its limit,
+     * and no reference to it is kept.
+     *
+     * @param byteBuffer byteBuffer
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public void feed(@NotNull ByteBuffer byteBuffer) throws X8lGrammarException {
+        this.checkNotEnded();
+        if (!chunks.isEmpty()) {
+            this.offer(byteBuffer);
+            this.parseFor(null);
+            return;
+        }
+        parser.feed(byteBuffer);
+    }
+
+    /**
+     * keep a copy of the remaining bytes of byteBuffer, to be parsed by parseFor.
+     * the position of byteBuffer is moved to its limit.
+     *
+     * @param byteBuffer byteBuffer
+     */
+    public void offer(@NotNull ByteBuffer byteBuffer) {
+        this.checkNotEnded();
+        if (!byteBuffer.hasRemaining()) {
+            return;
+        }
+        byte[] copy = new byte[byteBuffer.remaining()];
+        byteBuffer.get(copy);
+        chunks.addLast(ByteBuffer.wrap(copy));
+        remaining += copy.length;
+    }
+
+    /**
+     * read the bytes that are ready in channel and offer them, without waiting for more.
+     * for a channel in non-blocking mode, this never blocks.
+     * endOfInput is called when the channel reaches its end and nothing else is read.
+     *
+     * @param channel channel
+     * @return count of bytes read, or -1 if the channel reached its end.
+     * @throws java.io.IOException channel.read
+     */
+    public int offer(@NotNull ReadableByteChannel channel) throws IOException {
+        this.checkNotEnded();
+        int res = 0;
+        if (readBuffer == null) {
+            readBuffer = ByteBuffer.allocate(stepSize);
+        }
+        while (true) {
+            readBuffer.clear();
+            int length = channel.read(readBuffer);
+            if (length < 0) {
+                if (res > 0) {
+                    // the end is seen again by the next call.
+                    return res;
+                }
+                this.endOfInput();
+                return -1;
+            }
+            if (length == 0) {
+                return res;
+            }
+            readBuffer.flip();
+            this.offer(readBuffer);
+            res += length;
+        }
+    }
+
+    /**
+     * tell the parser that there will be no more bytes.
+     * if all bytes are parsed, the document is finished now.
+     * otherwise it is finished by the parseFor call that parses the last bytes.
+     *
+     * @throws com.xenoamess.x8l.X8lGrammarException when the document is not complete
+     */
+    public void endOfInput() throws X8lGrammarException {
+        this.checkNotEnded();
+        endOfInput = true;
+        if (chunks.isEmpty()) {
+            this.finish();
+        }
+    }
+
+    /**
+     * parse offered bytes, one step after another, till they are used up or the budget is spent.
+     * at least one step is parsed if there is any byte offered,
+     * so a zero budget still moves on.
+     *
+     * @param budget max time to spend. null means no limit.
+     * @return true if the document is finished.
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public boolean parseFor(@Nullable Duration budget) throws X8lGrammarException {
+        final long deadline = budget == null ? 0 : System.nanoTime() + budget.toNanos();
+        while (!chunks.isEmpty()) {
+            ByteBuffer chunk = chunks.peekFirst();
+            int length = Math.min(stepSize, chunk.remaining());
+            parser.feed(chunk.array(), chunk.arrayOffset() + chunk.position(), length);
+            chunk.position(chunk.position() + length);
+            remaining -= length;
+            if (!chunk.hasRemaining()) {
+                chunks.pollFirst();
+            }
+            if (budget != null && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        if (chunks.isEmpty() && endOfInput && !finished) {
+            this.finish();
+        }
+        return finished;
+    }
+
+    /**
+     * <p>isFinished.</p>
+     *
+     * @return true if endOfInput is called, and all bytes are parsed.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * <p>Getter for the field <code>remaining</code>.</p>
+     *
+     * @return count of offered bytes not parsed yet.
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+
+    private void finish() {
+        parser.endOfInput();
+        finished = true;
+    }
+
+    private void checkNotEnded() {
+        if (endOfInput) {
+            throw new IllegalStateException("endOfInput is already called.");
+        }
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.X8lGrammarException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * X8lStreamReader
+ * a pull cursor over x8l content.
+ * <p>
+ * nothing is read before next() is called, and only one block is read each time more events are needed,
+ * so the caller can stop at any point, or skip a subtree, without any node built.
+ * <p>
+ * texts and comments are untranscoded the same way as X8lDealer does.
+ * <p>
+ * example: read only attributes of the first ContentNode in a ContentNode.
+ * <pre>
+ * try (X8lStreamReader x8lStreamReader = new X8lStreamReader(reader)) {
+ *     while (x8lStreamReader.next() != X8lEventType.START_CONTENT_NODE) {
+ *     }
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lParser
+ */
+public class X8lStreamReader implements AutoCloseable {
+    private final Reader reader;
+    private final InputStream inputStream;
+    private final CharSequence charSequence;
+    private int charSequencePosition;
+    private final X8lParser parser;
+    private final char[] buffer;
+    private final byte[] byteBuffer;
+    private final ArrayDeque<Event> events = new ArrayDeque<>();
+    private final ArrayDeque<Event> eventPool = new ArrayDeque<>();
+    private boolean endOfInput;
+
+    private Event nowEvent;
+    private int depth;
+
+    /**
+     * <p>Constructor for X8lStreamReader.</p>
+     *
+     * @param reader the reader to read from. it is closed when this X8lStreamReader is closed.
+     */
+    public X8lStreamReader(@NotNull Reader reader) {
+        this(reader, X8lParser.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lStreamReader.</p>
+     *
+     * @param reader     the reader to read from. it is closed when this X8lStreamReader is closed.
+     * @param bufferSize size of the char[] block read from reader each time.
+     */
+    public X8lStreamReader(@NotNull Reader reader, int bufferSize) {
+        this(reader, null, null, bufferSize);
+    }
+
+    /**
+     * <p>Constructor for X8lStreamReader.</p>
+     *
+     * @param charSequence the CharSequence to read from. it is parsed by index, without being copied.
+     */
+    public X8lStreamReader(@NotNull CharSequence charSequence) {
+        this(charSequence, X8lParser.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lStreamReader.</p>
+     *
+     * @param charSequence the CharSequence to read from. it is parsed by index, without being copied.
+     * @param bufferSize   count of chars parsed each time.
+     */
+    public X8lStreamReader(@NotNull CharSequence charSequence, int bufferSize) {
+        this(null, null, charSequence, bufferSize);
+    }
+
+    private X8lStreamReader(
+            @Nullable Reader reader,
+            @Nullable InputStream inputStream,
+            @Nullable CharSequence charSequence,
+            int bufferSize
+    ) {
+        this.reader = reader;
+        this.inputStream = inputStream;
+        this.charSequence = charSequence;
+        this.parser = new X8lParser(new EventQueuer(), bufferSize);
+        this.buffer = reader == null ? null : new char[bufferSize];
+        this.byteBuffer = inputStream == null ? null : new byte[bufferSize];
+        this.nowEvent = new Event();
+        this.nowEvent.eventType = X8lEventType.START_DOCUMENT;
+    }
+
+    /**
+     * <p>Constructor for X8lStreamReader.</p>
+     *
+     * @param inputStream the InputStream to read from, in UTF-8. the bytes are parsed without decoding them first.
+     *                    it is closed when this X8lStreamReader is closed.
+     */
+    public X8lStreamReader(@NotNull InputStream inputStream) {
+        this(inputStream, X8lParser.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lStreamReader.</p>
+     *
+     * @param inputStream the InputStream to read from, in UTF-8. the bytes are parsed without decoding them first.
+     *                    it is closed when this X8lStreamReader is closed.
+     * @param bufferSize  size of the byte[] block read from inputStream each time.
+     */
+    public X8lStreamReader(@NotNull InputStream inputStream, int bufferSize) {
+        this(null, inputStream, null, bufferSize);
+    }
+
+    /**
+     * <p>hasNext.</p>
+     *
+     * @return if there be more events.
+     */
+    public boolean hasNext() {
+        return nowEvent.eventType != X8lEventType.END_DOCUMENT;
+    }
+
+    /**
+     * go to the next event.
+     *
+     * @return type of the next event.
+     * @throws java.io.IOException                   reader.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     */
+    public @NotNull X8lEventType next() throws IOException, X8lGrammarException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Already at END_DOCUMENT.");
+        }
+        while (events.isEmpty()) {
+            if (endOfInput) {
+                Event event = obtainEvent();
+                event.eventType = X8lEventType.END_DOCUMENT;
+                events.add(event);
+                break;
+            }
+            if (inputStream != null) {
+                int length = inputStream.read(byteBuffer, 0, byteBuffer.length);
+                if (length == -1) {
+                    endOfInput = true;
+                    parser.endOfInput();
+                } else {
+                    parser.feed(byteBuffer, 0, length);
+                }
+                continue;
+            }
+            if (reader == null) {
+                int end = Math.min(charSequence.length(), charSequencePosition + parser.getBufferSize());
+                if (charSequencePosition == end) {
+                    endOfInput = true;
+                    parser.endOfInput();
+                } else {
+                    parser.feed(charSequence, charSequencePosition, end);
+                    charSequencePosition = end;
+                }
+                continue;
+            }
+            int length = reader.read(buffer, 0, buffer.length);
+            if (length == -1) {
+                endOfInput = true;
+                parser.endOfInput();
+            } else {
+                parser.feed(buffer, 0, length);
+            }
+        }
+        eventPool.add(nowEvent);
+        nowEvent = events.poll();
+        if (nowEvent.eventType == X8lEventType.START_CONTENT_NODE) {
+            depth++;
+        } else if (nowEvent.eventType == X8lEventType.END_CONTENT_NODE) {
+            depth--;
+        }
+        return nowEvent.eventType;
+    }
+
+    /**
+     * skip the ContentNode just started, and stop at its END_CONTENT_NODE.
+     *
+     * @throws java.io.IOException                   reader.read
+     * @throws com.xenoamess.x8l.X8lGrammarException when grammar wrong
+     * @throws java.lang.IllegalStateException       when the current event is not START_CONTENT_NODE
+     */
+    public void skipSubtree() throws IOException, X8lGrammarException {
+        if (nowEvent.eventType != X8lEventType.START_CONTENT_NODE) {
+            throw new IllegalStateException("skipSubtree can only be called at START_CONTENT_NODE, but now is "
+                    + nowEvent.eventType);
+        }
+        final int targetDepth = depth - 1;
+        while (depth != targetDepth) {
+            this.next();
+        }
+    }
+
+    /**
+     * <p>getEventType.</p>
+     *
+     * @return type of the current event.
+     */
+    public @NotNull X8lEventType getEventType() {
+        return nowEvent.eventType;
+    }
+
+    /**
+     * <p>getDepth.</p>
+     *
+     * @return how many ContentNodes the current event is in.
+     * for START_CONTENT_NODE the started node is counted, and for END_CONTENT_NODE the ended node is not.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * <p>getText.</p>
+     *
+     * @return text content of the current TEXT or COMMENT event.
+     * @throws java.lang.IllegalStateException when the current event is not TEXT or COMMENT
+     */
+    public @NotNull String getText() {
+        if (nowEvent.eventType != X8lEventType.TEXT && nowEvent.eventType != X8lEventType.COMMENT) {
+            throw new IllegalStateException("getText can only be called at TEXT or COMMENT, but now is "
+                    + nowEvent.eventType);
+        }
+        return nowEvent.text;
+    }
+
+    /**
+     * <p>getAttributeCount.</p>
+     *
+     * @return attribute count of the current START_CONTENT_NODE event.
+     * @throws java.lang.IllegalStateException when the current event is not START_CONTENT_NODE
+     */
+    public int getAttributeCount() {
+        checkStartContentNode();
+        return nowEvent.attributesKeyList.size();
+    }
+
+    /**
+     * <p>getAttributeKey.</p>
+     *
+     * @param index index of the attribute.
+     * @return key of the index-th attribute of the current START_CONTENT_NODE event.
+     * @throws java.lang.IllegalStateException when the current event is not START_CONTENT_NODE
+     */
+    public @NotNull String getAttributeKey(int index) {
+        checkStartContentNode();
+        return nowEvent.attributesKeyList.get(index);
+    }
+
+    /**
+     * <p>getAttributeValue.</p>
+     *
+     * @param index index of the attribute.
+     * @return value of the index-th attribute of the current START_CONTENT_NODE event.
+     * @throws java.lang.IllegalStateException when the current event is not START_CONTENT_NODE
+     */
+    public @NotNull String getAttributeValue(int index) {
+        checkStartContentNode();
+        return nowEvent.attributesValueList.get(index);
+    }
+
+    /**
+     * <p>getName.</p>
+     *
+     * @return name of the ContentNode started, the same as ContentNode.getName().
+     * @throws java.lang.IllegalStateException when the current event is not START_CONTENT_NODE
+     */
+    public @NotNull String getName() {
+        checkStartContentNode();
+        return nowEvent.attributesKeyList.isEmpty() ? "" : nowEvent.attributesKeyList.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * close the reader or the inputStream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+        if (inputStream != null) {
+            inputStream.close();
+        }
+    }
+
+    private void checkStartContentNode() {
+        if (nowEvent.eventType != X8lEventType.START_CONTENT_NODE) {
+            throw new IllegalStateException("attributes can only be got at START_CONTENT_NODE, but now is "
+                    + nowEvent.eventType);
+        }
+    }
+
+    private Event obtainEvent() {
+        Event event = eventPool.poll();
+        return event == null ? new Event() : event;
+    }
+
+    private static final class Event {
+        private X8lEventType eventType;
+        private String text;
+        private final List<String> attributesKeyList = new ArrayList<>();
+        private final List<String> attributesValueList = new ArrayList<>();
+    }
+
+    /**
+     * queue events from the parser, for them to be pulled later.
+     */
+    private final class EventQueuer implements X8lEventHandler {
+        private void add(X8lEventType eventType, String text) {
+            Event event = obtainEvent();
+            event.eventType = eventType;
+            event.text = text;
+            event.attributesKeyList.clear();
+            event.attributesValueList.clear();
+            events.add(event);
+        }
+
+        @Override
+        public void startContentNode(@NotNull List<String> attributesKeyList,
+                                     @NotNull List<String> attributesValueList) {
+            this.add(X8lEventType.START_CONTENT_NODE, null);
+            Event event = events.getLast();
+            event.attributesKeyList.addAll(attributesKeyList);
+            event.attributesValueList.addAll(attributesValueList);
+        }
+
+        @Override
+        public void endContentNode() {
+            this.add(X8lEventType.END_CONTENT_NODE, null);
+        }
+
+        @Override
+        public void text(@NotNull String textContent) {
+            this.add(X8lEventType.TEXT, textContent);
+        }
+
+        @Override
+        public void comment(@NotNull String textContent) {
+            this.add(X8lEventType.COMMENT, textContent);
+        }
+    }
+}
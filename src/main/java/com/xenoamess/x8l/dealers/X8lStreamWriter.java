@@ -0,0 +1,530 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.TextNode;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * X8lStreamWriter
+ * a push writer of x8l content, without any node built.
+ * <p>
+ * the output is exactly the same as building the nodes and writing them with X8lDealer,
+ * including escaping and the &amp; between two texts next to each other.
+ * only the nodes not ended yet are kept in memory, and only one pending text and the attributes of the node
+ * being started for each of them.
+ * <p>
+ * made with format=true, the output is the same as X8lTree.format() and then written,
+ * that is, blank texts are left out, texts and comments are trimmed, and nodes are indented by 4 spaces.
+ * <p>
+ * a key given twice in one node is written twice, while a ContentNode keeps only the last one.
+ * <p>
+ * example:
+ * <pre>
+ * try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(writer, true)) {
+ *     x8lStreamWriter.startNode("a").attribute("b", "c").text("d").endNode();
+ * }
+ * </pre>
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lStreamReader
+ * @see X8lWriter
+ */
+public class X8lStreamWriter implements Closeable, Flushable {
+    private static final String INDENT = "    ";
+
+    private final X8lWriter x8lWriter;
+    private final Closeable closeable;
+    private final Flushable flushable;
+    private final boolean format;
+
+    /**
+     * levels.get(0) is the root, levels.get(depth) is the node being written now.
+     * levels deeper than depth are kept for reuse.
+     */
+    private final List<Level> levels = new ArrayList<>();
+    /**
+     * newLineIndents.get(i) is a '\n' and i indents.
+     */
+    private final List<String> newLineIndents = new ArrayList<>();
+    private int depth;
+    private boolean ended;
+
+    /**
+     * <p>Constructor for X8lStreamWriter.</p>
+     *
+     * @param writer the writer to write to. it is closed when this X8lStreamWriter is closed.
+     */
+    public X8lStreamWriter(@NotNull Writer writer) {
+        this(writer, false);
+    }
+
+    /**
+     * <p>Constructor for X8lStreamWriter.</p>
+     *
+     * @param writer the writer to write to. it is closed when this X8lStreamWriter is closed.
+     * @param format if the output be formatted like X8lTree.format().
+     */
+    public X8lStreamWriter(@NotNull Writer writer, boolean format) {
+        this(new X8lWriter(writer), writer, writer, format);
+    }
+
+    /**
+     * <p>Constructor for X8lStreamWriter.</p>
+     *
+     * @param outputStream the outputStream to write utf-8 bytes to.
+     *                     it is closed when this X8lStreamWriter is closed.
+     */
+    public X8lStreamWriter(@NotNull OutputStream outputStream) {
+        this(outputStream, false);
+    }
+
+    /**
+     * <p>Constructor for X8lStreamWriter.</p>
+     *
+     * @param outputStream the outputStream to write utf-8 bytes to.
+     *                     it is closed when this X8lStreamWriter is closed.
+     * @param format       if the output be formatted like X8lTree.format().
+     */
+    public X8lStreamWriter(@NotNull OutputStream outputStream, boolean format) {
+        this(new X8lWriter(outputStream), outputStream, outputStream, format);
+    }
+
+    private X8lStreamWriter(
+            @NotNull X8lWriter x8lWriter,
+            @NotNull Closeable closeable,
+            @NotNull Flushable flushable,
+            boolean format
+    ) {
+        this.x8lWriter = x8lWriter;
+        this.closeable = closeable;
+        this.flushable = flushable;
+        this.format = format;
+        this.levels.add(new Level());
+        this.levels.get(0).reset(false);
+        this.newLineIndents.add("\n");
+    }
+
+    /**
+     * start a ContentNode, whose first attribute is name.
+     * more attributes can be added by attribute() until anything is written into it.
+     *
+     * @param name the name of the node, as a key without value.
+     * @return this
+     * @throws java.io.IOException writer.write
+     */
+    public @NotNull X8lStreamWriter startNode(@NotNull String name) throws IOException {
+        this.startNode();
+        return this.attribute(name, null);
+    }
+
+    /**
+     * start a ContentNode without any attribute yet.
+     * attributes can be added by attribute() until anything is written into it.
+     *
+     * @return this
+     * @throws java.io.IOException writer.write
+     */
+    public @NotNull X8lStreamWriter startNode() throws IOException {
+        this.beforeChild(false);
+        x8lWriter.append('<');
+        depth++;
+        if (depth == levels.size()) {
+            levels.add(new Level());
+        }
+        levels.get(depth).reset(true);
+        return this;
+    }
+
+    /**
+     * add an attribute to the node just started.
+     *
+     * @param key   the key.
+     * @param value the value, or null/empty if the key has no value.
+     * @return this
+     * @throws java.io.IOException           writer.write
+     * @throws java.lang.IllegalStateException if anything is already written into the node.
+     */
+    public @NotNull X8lStreamWriter attribute(@NotNull String key, @Nullable String value) throws IOException {
+        this.checkNotEnded();
+        final Level level = levels.get(depth);
+        if (!level.headOpen) {
+            throw new IllegalStateException("attributes must be added before anything is written into the node.");
+        }
+        if (value == null) {
+            value = "";
+        }
+        if (format) {
+            level.keys.add(key);
+            level.values.add(value);
+            return this;
+        }
+        if (level.attributeNum++ > 0) {
+            x8lWriter.append(' ');
+        }
+        this.writeAttribute(key, value);
+        return this;
+    }
+
+    /**
+     * write a text.
+     *
+     * @param textContent the text, untranscoded.
+     * @return this
+     * @throws java.io.IOException writer.write
+     */
+    public @NotNull X8lStreamWriter text(@NotNull String textContent) throws IOException {
+        return this.text(textContent, false);
+    }
+
+    /**
+     * @param transcoded if textContent is already transcoded.
+     *                   a transcoded text is blank, or starts or ends with whitespace, only if the text itself is,
+     *                   as whitespace is never escaped in texts and comments, so it can be trimmed as it is.
+     */
+    private @NotNull X8lStreamWriter text(@NotNull String textContent, boolean transcoded) throws IOException {
+        this.checkNotEnded();
+        if (format) {
+            if (StringUtils.isBlank(textContent)) {
+                return this;
+            }
+            textContent = textContent.trim();
+            final Level level = levels.get(depth);
+            if (level.childNum == 0) {
+                // it stays as it is if it is the only child, so wait and see.
+                this.closeHead(level);
+                level.pendingText = textContent;
+                level.pendingTextTranscoded = transcoded;
+                level.childNum = 1;
+                return this;
+            }
+        }
+        this.beforeChild(true);
+        this.writeText(textContent, transcoded);
+        return this;
+    }
+
+    /**
+     * write a comment.
+     *
+     * @param textContent the comment, untranscoded.
+     * @return this
+     * @throws java.io.IOException writer.write
+     */
+    public @NotNull X8lStreamWriter comment(@NotNull String textContent) throws IOException {
+        return this.comment(textContent, false);
+    }
+
+    private @NotNull X8lStreamWriter comment(@NotNull String textContent, boolean transcoded) throws IOException {
+        this.beforeChild(false);
+        if (format) {
+            textContent = textContent.trim();
+        }
+        x8lWriter.append('<');
+        x8lWriter.append('<');
+        if (transcoded) {
+            x8lWriter.append(textContent);
+        } else {
+            x8lWriter.escape(textContent, X8lWriter.COMMENT);
+        }
+        x8lWriter.append('>');
+        return this;
+    }
+
+    /**
+     * write a node, as if its content is written by the methods above.
+     * <p>
+     * with format=true, it is the same as formatting a copy of the node and then writing it,
+     * but the node is not changed, and nothing is copied.
+     * with format=false, a ContentNode is written with its own attribute segments, the same as X8lDealer does.
+     *
+     * @param abstractTreeNode the node to write. a RootNode is written as its children only.
+     * @return this
+     * @throws java.io.IOException writer.write
+     */
+    public @NotNull X8lStreamWriter write(@NotNull AbstractTreeNode abstractTreeNode) throws IOException {
+        if (abstractTreeNode instanceof RootNode) {
+            for (AbstractTreeNode child : ((RootNode) abstractTreeNode).getChildrenToRead()) {
+                this.write(child);
+            }
+        } else if (abstractTreeNode instanceof ContentNode) {
+            final ContentNode contentNode = (ContentNode) abstractTreeNode;
+            if (!format) {
+                this.beforeChild(false);
+                x8lWriter.writeContentNode(contentNode);
+                return this;
+            }
+            this.startNode();
+            for (int i = 0; i < contentNode.getAttributeNum(); i++) {
+                this.attribute(contentNode.getAttributeKey(i), contentNode.getAttributeValue(i));
+            }
+            for (AbstractTreeNode child : contentNode.getChildrenToRead()) {
+                this.write(child);
+            }
+            this.endNode();
+        } else if (abstractTreeNode instanceof TextNode) {
+            final TextNode textNode = (TextNode) abstractTreeNode;
+            final String transcodedTextContent = textNode.getTranscodedTextContent();
+            if (transcodedTextContent != null) {
+                this.text(transcodedTextContent, true);
+            } else {
+                this.text(textNode.getTextContent(), false);
+            }
+        } else if (abstractTreeNode instanceof CommentNode) {
+            final CommentNode commentNode = (CommentNode) abstractTreeNode;
+            final String transcodedTextContent = commentNode.getTranscodedTextContent();
+            if (transcodedTextContent != null) {
+                this.comment(transcodedTextContent, true);
+            } else {
+                this.comment(commentNode.getTextContent(), false);
+            }
+        } else {
+            // not a node X8lDealer knows, so let X8lWriter deal with it.
+            this.beforeChild(false);
+            x8lWriter.write(abstractTreeNode);
+        }
+        return this;
+    }
+
+    /**
+     * end the ContentNode started last.
+     *
+     * @return this
+     * @throws java.io.IOException           writer.write
+     * @throws java.lang.IllegalStateException if no ContentNode is started.
+     */
+    public @NotNull X8lStreamWriter endNode() throws IOException {
+        this.checkNotEnded();
+        if (depth == 0) {
+            throw new IllegalStateException("no node to end.");
+        }
+        this.endLevel(levels.get(depth));
+        x8lWriter.append('>');
+        depth--;
+        return this;
+    }
+
+    /**
+     * end the content, and write everything in buffer to the writer or the outputStream.
+     * nothing can be written after it.
+     *
+     * @throws java.io.IOException           writer.write
+     * @throws java.lang.IllegalStateException if some ContentNode is not ended.
+     */
+    public void endDocument() throws IOException {
+        if (ended) {
+            return;
+        }
+        if (depth != 0) {
+            throw new IllegalStateException("nodes not ended:" + depth);
+        }
+        this.endLevel(levels.get(0));
+        ended = true;
+        x8lWriter.flushBuffer();
+    }
+
+    /**
+     * write everything in buffer to the writer or the outputStream, and flush it.
+     * in format mode, a text waiting to see whether it is the only child is not written yet.
+     *
+     * @throws java.io.IOException writer.flush
+     */
+    @Override
+    public void flush() throws IOException {
+        x8lWriter.flushBuffer();
+        flushable.flush();
+    }
+
+    /**
+     * end the content if some ContentNode is not ended, and then close the writer or the outputStream.
+     *
+     * @throws java.io.IOException           writer.close
+     * @throws java.lang.IllegalStateException if some ContentNode is not ended.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.endDocument();
+        } finally {
+            closeable.close();
+        }
+    }
+
+    private void checkNotEnded() {
+        if (ended) {
+            throw new IllegalStateException("the document is already ended.");
+        }
+    }
+
+    /**
+     * do what must be done before a child is written into the node now, except the child itself.
+     */
+    private void beforeChild(boolean isText) throws IOException {
+        this.checkNotEnded();
+        final Level level = levels.get(depth);
+        this.closeHead(level);
+        if (!format) {
+            if (level.lastChildIsText && isText) {
+                x8lWriter.append('&');
+            }
+            level.lastChildIsText = isText;
+            return;
+        }
+        if (level.pendingText != null) {
+            // there are two children now, so the first one is indented too.
+            final String pendingText = level.pendingText;
+            level.pendingText = null;
+            level.childNum = 0;
+            this.indentChild(level, true);
+            this.writeText(pendingText, level.pendingTextTranscoded);
+        }
+        this.indentChild(level, isText);
+    }
+
+    /**
+     * write what ContentNode.format() puts before a child, when the node has more than one child,
+     * or one child that is not a text.
+     */
+    private void indentChild(Level level, boolean isText) throws IOException {
+        // ContentNode.format(-1) does not indent its first child.
+        if (depth != 0 || level.childNum != 0) {
+            if (level.lastChildIsText) {
+                x8lWriter.append('&');
+            }
+            this.appendNewLineIndent(depth);
+        }
+        level.childNum++;
+        level.lastChildIsText = isText;
+    }
+
+    private void endLevel(Level level) throws IOException {
+        this.closeHead(level);
+        if (!format) {
+            return;
+        }
+        if (level.pendingText != null) {
+            // the only child.
+            this.writeText(level.pendingText, level.pendingTextTranscoded);
+            level.pendingText = null;
+        } else if (level.childNum > 0) {
+            if (level.lastChildIsText) {
+                x8lWriter.append('&');
+            }
+            this.appendNewLineIndent(depth - 1);
+        }
+    }
+
+    /**
+     * close the attribute area if it is not closed yet.
+     */
+    private void closeHead(Level level) throws IOException {
+        if (!level.headOpen) {
+            return;
+        }
+        level.headOpen = false;
+        if (format) {
+            // the same segments as ContentNode.formatAttributeSegments.
+            final int attributeNum = level.keys.size();
+            final boolean wrap = attributeNum > 3;
+            for (int i = 0; i < attributeNum; i++) {
+                this.writeAttribute(level.keys.get(i), level.values.get(i));
+                if (wrap) {
+                    this.appendNewLineIndent(i == attributeNum - 1 ? depth - 1 : depth);
+                } else if (i != attributeNum - 1) {
+                    x8lWriter.append(' ');
+                }
+            }
+            level.keys.clear();
+            level.values.clear();
+        }
+        x8lWriter.append('>');
+    }
+
+    private void writeAttribute(String key, String value) throws IOException {
+        x8lWriter.escape(key, X8lWriter.KEY);
+        if (!value.isEmpty()) {
+            x8lWriter.append('=');
+            x8lWriter.escape(value, X8lWriter.VALUE);
+        }
+    }
+
+    private void writeText(String textContent, boolean transcoded) throws IOException {
+        if (transcoded) {
+            x8lWriter.append(textContent);
+        } else {
+            x8lWriter.escape(textContent, X8lWriter.TEXT);
+        }
+    }
+
+    /**
+     * append a '\n' and num indents, made only once for each num.
+     */
+    private void appendNewLineIndent(int num) throws IOException {
+        num = Math.max(num, 0);
+        while (newLineIndents.size() <= num) {
+            newLineIndents.add(newLineIndents.get(newLineIndents.size() - 1) + INDENT);
+        }
+        x8lWriter.append(newLineIndents.get(num));
+    }
+
+    /**
+     * what is kept for a node not ended yet.
+     */
+    private static class Level {
+        private boolean headOpen;
+        private int attributeNum;
+        private final List<String> keys = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+        private int childNum;
+        private boolean lastChildIsText;
+        private String pendingText;
+        private boolean pendingTextTranscoded;
+
+        private void reset(boolean headOpen) {
+            this.headOpen = headOpen;
+            this.attributeNum = 0;
+            this.keys.clear();
+            this.values.clear();
+            this.childNum = 0;
+            this.lastChildIsText = false;
+            this.pendingText = null;
+            this.pendingTextTranscoded = false;
+        }
+    }
+}
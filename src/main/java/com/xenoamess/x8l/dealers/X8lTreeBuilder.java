@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.ParseOptions;
+import com.xenoamess.x8l.TextNode;
+import com.xenoamess.x8l.X8lSymbolTable;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * X8lTreeBuilder
+ * the X8lEventHandler that builds the events into nodes under a ContentNode.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ */
+public class X8lTreeBuilder implements X8lEventHandler {
+    private ContentNode nowNode;
+    private final X8lSymbolTable symbolTable;
+    private final boolean skipComments;
+    private final boolean skipWhitespaceTexts;
+
+    /**
+     * <p>Constructor for X8lTreeBuilder.</p>
+     *
+     * @param contentNode the node to build into.
+     */
+    public X8lTreeBuilder(@NotNull ContentNode contentNode) {
+        this(contentNode, (X8lSymbolTable) null);
+    }
+
+    /**
+     * <p>Constructor for X8lTreeBuilder.</p>
+     *
+     * @param contentNode the node to build into.
+     * @param symbolTable if not null, attribute keys and short values are canonicalized by it.
+     */
+    public X8lTreeBuilder(@NotNull ContentNode contentNode, @Nullable X8lSymbolTable symbolTable) {
+        this.nowNode = contentNode;
+        this.symbolTable = symbolTable;
+        this.skipComments = false;
+        this.skipWhitespaceTexts = false;
+    }
+
+    /**
+     * <p>Constructor for X8lTreeBuilder.</p>
+     *
+     * @param contentNode  the node to build into.
+     * @param parseOptions what to leave out of the tree.
+     */
+    public X8lTreeBuilder(@NotNull ContentNode contentNode, @NotNull ParseOptions parseOptions) {
+        this.nowNode = contentNode;
+        this.symbolTable = parseOptions.getSymbolTable();
+        this.skipComments = parseOptions.isSkipComments();
+        this.skipWhitespaceTexts = parseOptions.isSkipWhitespaceTexts();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startContentNode(@NotNull List<String> attributesKeyList, @NotNull List<String> attributesValueList) {
+        ContentNode contentNode = new ContentNode(nowNode);
+        for (int i = 0; i < attributesKeyList.size(); i++) {
+            String key = attributesKeyList.get(i);
+            String value = attributesValueList.get(i);
+            if (symbolTable != null) {
+                key = symbolTable.intern(key);
+                value = symbolTable.internValue(value);
+            }
+            // attributes added this way get default segments, so there is none to omit.
+            contentNode.addAttribute(key, value);
+        }
+        nowNode = contentNode;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endContentNode() {
+        nowNode = nowNode.getParent();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void text(@NotNull String textContent) {
+        if (skipWhitespaceTexts && StringUtils.isBlank(textContent)) {
+            return;
+        }
+        new TextNode(nowNode, textContent);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void comment(@NotNull String textContent) {
+        if (skipComments) {
+            return;
+        }
+        new CommentNode(nowNode, textContent);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void transcodedText(@NotNull String transcodedTextContent, boolean escaped) {
+        // an escaped one has an escaped delimiter in it, so it is never blank.
+        if (skipWhitespaceTexts && !escaped && StringUtils.isBlank(transcodedTextContent)) {
+            return;
+        }
+        new TextNode(nowNode, null).setTranscodedTextContent(transcodedTextContent, escaped);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void transcodedComment(@NotNull String transcodedTextContent, boolean escaped) {
+        if (skipComments) {
+            return;
+        }
+        new CommentNode(nowNode, null).setTranscodedTextContent(transcodedTextContent, escaped);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean acceptComments() {
+        return !skipComments;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean acceptWhitespaceTexts() {
+        return !skipWhitespaceTexts;
+    }
+
+    /**
+     * <p>Getter for the field <code>nowNode</code>.</p>
+     *
+     * @return the ContentNode that new nodes are added into now.
+     */
+    public @NotNull ContentNode getNowNode() {
+        return nowNode;
+    }
+
+    /**
+     * <p>Getter for the field <code>symbolTable</code>.</p>
+     *
+     * @return the symbol table, or null if not used.
+     */
+    public @Nullable X8lSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+}
@@ -0,0 +1,501 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.TextNode;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * X8lWriter
+ * the writer engine behind X8lDealer's write handlers.
+ * <p>
+ * keys, values, texts and comments are escaped straight into a reusable char[] buffer,
+ * instead of making a transcoded String for each of them first.
+ * runs of chars that need no escaping are copied in bulk,
+ * and a run longer than the buffer is written to the writer directly.
+ * so writing a tree allocates nothing but the buffer.
+ * <p>
+ * made with an OutputStream or a WritableByteChannel, the char[] buffer is encoded as utf-8 into a reusable byte[]
+ * buffer each time it is full, with a fast path for ascii chars, instead of going through a Writer and a CharsetEncoder.
+ * a malformed surrogate is written as ?, the same as an OutputStreamWriter does.
+ * <p>
+ * the output is exactly the same as X8lTree.transcodeKey / transcodeValue / transcodeText / transcodeComment.
+ * <p>
+ * a ContentNode with a serialized cache is written as the cache.
+ * a ContentNode without one is cached on the way if caching is enabled for it,
+ * see ContentNode.setSerializedCacheEnabled.
+ *
+ * @author XenoAmess
+ * @version 2.2.3-SNAPSHOT
+ * @see X8lDealer
+ */
+public final class X8lWriter {
+    /** Constant <code>DEFAULT_BUFFER_SIZE=8192</code> */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    static final byte TEXT = 1;
+    static final byte KEY = 2;
+    static final byte VALUE = 4;
+    static final byte COMMENT = 8;
+
+    /**
+     * for a char below 128, in which kinds of strings it is escaped.
+     * whitespace above 127 is escaped in keys and values too, see needEscape.
+     */
+    private static final byte[] ESCAPE_TABLE = new byte[128];
+
+    static {
+        ESCAPE_TABLE['%'] = TEXT | KEY | VALUE | COMMENT;
+        ESCAPE_TABLE['>'] = TEXT | KEY | VALUE | COMMENT;
+        ESCAPE_TABLE['<'] = TEXT | KEY | VALUE;
+        ESCAPE_TABLE['&'] = TEXT;
+        ESCAPE_TABLE['='] = KEY;
+        for (char c = 0; c < ESCAPE_TABLE.length; c++) {
+            if (Character.isWhitespace(c)) {
+                ESCAPE_TABLE[c] |= KEY | VALUE;
+            }
+        }
+    }
+
+    /** Constant <code>DEFAULT_MAPPED_WINDOW_SIZE=1 &lt;&lt; 26</code> */
+    public static final int DEFAULT_MAPPED_WINDOW_SIZE = 1 << 26;
+
+    private final Writer writer;
+    private final char[] buffer;
+    private int length;
+
+    private final OutputStream outputStream;
+    private final WritableByteChannel channel;
+    private final byte[] bytes;
+    private final ByteBuffer wrappedBytes;
+    private int bytesLength;
+
+    /**
+     * if not null, every ContentNode written is cached, and the writer writes into it directly.
+     */
+    private StringBuilder cacheBuilder;
+    /**
+     * how many writeChildren calls are running now.
+     */
+    private int nestDepth;
+
+    /**
+     * <p>Constructor for X8lWriter.</p>
+     *
+     * @param writer the writer to write to.
+     */
+    public X8lWriter(@NotNull Writer writer) {
+        this(writer, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lWriter.</p>
+     *
+     * @param writer     the writer to write to.
+     * @param bufferSize size of the buffer. if it is 0, everything is written to the writer at once.
+     */
+    public X8lWriter(@NotNull Writer writer, int bufferSize) {
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException("bufferSize:" + bufferSize);
+        }
+        this.writer = writer;
+        this.buffer = bufferSize == 0 ? null : new char[bufferSize];
+        this.outputStream = null;
+        this.channel = null;
+        this.bytes = null;
+        this.wrappedBytes = null;
+    }
+
+    /**
+     * <p>Constructor for X8lWriter.</p>
+     *
+     * @param outputStream the outputStream to write utf-8 bytes to.
+     */
+    public X8lWriter(@NotNull OutputStream outputStream) {
+        this(outputStream, null, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lWriter.</p>
+     *
+     * @param channel the channel to write utf-8 bytes to.
+     */
+    public X8lWriter(@NotNull WritableByteChannel channel) {
+        this(null, channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>Constructor for X8lWriter.</p>
+     *
+     * @param outputStream the outputStream to write utf-8 bytes to, or null if channel is used.
+     * @param channel      the channel to write utf-8 bytes to, or null if outputStream is used.
+     * @param bufferSize   size of the buffers, at least 4.
+     */
+    public X8lWriter(OutputStream outputStream, WritableByteChannel channel, int bufferSize) {
+        if ((outputStream == null) == (channel == null)) {
+            throw new IllegalArgumentException("exactly one of outputStream and channel must be given.");
+        }
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("bufferSize:" + bufferSize);
+        }
+        this.writer = null;
+        this.buffer = new char[bufferSize];
+        this.outputStream = outputStream;
+        this.channel = channel;
+        this.bytes = new byte[bufferSize];
+        this.wrappedBytes = channel == null ? null : ByteBuffer.wrap(this.bytes);
+    }
+
+    /**
+     * write a node, the same way as X8lDealer does.
+     * a RootNode is written as its children only.
+     *
+     * @param abstractTreeNode the node to write.
+     * @throws java.io.IOException writer.write
+     */
+    public void write(@NotNull AbstractTreeNode abstractTreeNode) throws IOException {
+        if (abstractTreeNode instanceof RootNode) {
+            if (!this.writeSerializedCache((RootNode) abstractTreeNode)) {
+                this.writeChildren((RootNode) abstractTreeNode);
+            }
+        } else if (abstractTreeNode instanceof ContentNode) {
+            this.writeContentNode((ContentNode) abstractTreeNode);
+        } else if (abstractTreeNode instanceof TextNode) {
+            this.writeTextNode((TextNode) abstractTreeNode);
+        } else if (abstractTreeNode instanceof CommentNode) {
+            this.writeCommentNode((CommentNode) abstractTreeNode);
+        } else {
+            // not a node X8lDealer knows, so let the dealer deal with it.
+            StringWriter stringWriter = new StringWriter();
+            abstractTreeNode.write(stringWriter, X8lDealer.INSTANCE);
+            this.append(stringWriter.toString());
+        }
+    }
+
+    /**
+     * write a ContentNode, with its attribute area and children.
+     *
+     * @param contentNode the node to write.
+     * @throws java.io.IOException writer.write
+     */
+    public void writeContentNode(@NotNull ContentNode contentNode) throws IOException {
+        if (!(contentNode instanceof RootNode) && this.writeSerializedCache(contentNode)) {
+            return;
+        }
+        this.writeContentNodeWithoutCache(contentNode);
+    }
+
+    private void writeContentNodeWithoutCache(@NotNull ContentNode contentNode) throws IOException {
+        this.writeContentNodeHead(contentNode);
+        this.writeChildren(contentNode);
+        this.append('>');
+    }
+
+    /**
+     * write the attribute area of a ContentNode, from '&lt;' to '&gt;'.
+     */
+    void writeContentNodeHead(@NotNull ContentNode contentNode) throws IOException {
+        this.append('<');
+        final int attributeNum = contentNode.getAttributeNum();
+        for (int i = 0; i < attributeNum; i++) {
+            this.escape(contentNode.getAttributeKey(i), KEY);
+            String value = contentNode.getAttributeValue(i);
+            if (value != null && !value.isEmpty()) {
+                this.append('=');
+                this.escape(value, VALUE);
+            }
+            this.append(contentNode.getAttributeSegment(i));
+        }
+        this.append('>');
+    }
+
+    /**
+     * write children of a ContentNode, with a &amp; between two TextNodes next to each other.
+     *
+     * @param contentNode the node whose children to write.
+     * @throws java.io.IOException writer.write
+     */
+    public void writeChildren(@NotNull ContentNode contentNode) throws IOException {
+        final List<AbstractTreeNode> children = contentNode.getChildrenToRead();
+        this.writeChildren(children, 0, children.size());
+    }
+
+    /**
+     * write children[from, to), with a &amp; between two TextNodes next to each other,
+     * including children[from - 1] and children[from].
+     */
+    void writeChildren(@NotNull List<AbstractTreeNode> children, int from, int to) throws IOException {
+        boolean lastChildIsTextNode = from > 0 && children.get(from - 1) instanceof TextNode;
+        nestDepth++;
+        try {
+            for (int i = from; i < to; i++) {
+                final AbstractTreeNode nowChild = children.get(i);
+                boolean nowChildIsTextNode = nowChild instanceof TextNode;
+                if (lastChildIsTextNode && nowChildIsTextNode) {
+                    this.append('&');
+                }
+                lastChildIsTextNode = nowChildIsTextNode;
+                this.write(nowChild);
+            }
+        } finally {
+            nestDepth--;
+        }
+    }
+
+    /**
+     * <p>writeTextNode.</p>
+     *
+     * @param textNode the node to write.
+     * @throws java.io.IOException writer.write
+     */
+    public void writeTextNode(@NotNull TextNode textNode) throws IOException {
+        String transcodedTextContent = textNode.getTranscodedTextContent();
+        if (transcodedTextContent != null) {
+            this.append(transcodedTextContent);
+        } else {
+            this.escape(textNode.getTextContent(), TEXT);
+        }
+    }
+
+    /**
+     * <p>writeCommentNode.</p>
+     *
+     * @param commentNode the node to write.
+     * @throws java.io.IOException writer.write
+     */
+    public void writeCommentNode(@NotNull CommentNode commentNode) throws IOException {
+        this.append('<');
+        this.append('<');
+        String transcodedTextContent = commentNode.getTranscodedTextContent();
+        if (transcodedTextContent != null) {
+            this.append(transcodedTextContent);
+        } else {
+            this.escape(commentNode.getTextContent(), COMMENT);
+        }
+        this.append('>');
+    }
+
+    /**
+     * write everything in the buffer to the writer, the outputStream or the channel.
+     * they are not flushed themselves.
+     *
+     * @throws java.io.IOException writer.write
+     */
+    public void flushBuffer() throws IOException {
+        this.drainChars(true);
+        this.drainBytes();
+    }
+
+    /**
+     * write the serialized cache of contentNode, making it first if caching is enabled for it.
+     *
+     * @return false if there is no cache and caching is not enabled, and then nothing is written.
+     */
+    private boolean writeSerializedCache(ContentNode contentNode) throws IOException {
+        if (contentNode.isFrozen()) {
+            // frozen nodes are read by several threads, so never written.
+            return false;
+        }
+        String serializedCache = contentNode.getSerializedCache();
+        if (serializedCache == null) {
+            if (cacheBuilder != null) {
+                // everything is cached here, and written into cacheBuilder directly,
+                // so every node is cut out of the same builder.
+                final int start = cacheBuilder.length();
+                if (contentNode instanceof RootNode) {
+                    this.writeChildren(contentNode);
+                } else {
+                    this.writeContentNodeWithoutCache(contentNode);
+                }
+                contentNode.setSerializedCache(cacheBuilder.substring(start));
+                return true;
+            }
+            // a node written in a node not cached is only cached if it is enabled on itself.
+            final boolean cacheEnabled = nestDepth == 0
+                    ? contentNode.isSerializedCacheEnabledWithParents()
+                    : contentNode.isSerializedCacheEnabled();
+            if (!cacheEnabled) {
+                return false;
+            }
+            StringBuilderWriter stringBuilderWriter = new StringBuilderWriter();
+            X8lWriter cacheWriter = new X8lWriter(stringBuilderWriter, 0);
+            cacheWriter.cacheBuilder = stringBuilderWriter.getBuilder();
+            cacheWriter.writeSerializedCache(contentNode);
+            serializedCache = contentNode.getSerializedCache();
+        }
+        this.append(serializedCache);
+        return true;
+    }
+
+    private static boolean needEscape(char c, byte kind) {
+        if (c < 128) {
+            return (ESCAPE_TABLE[c] & kind) != 0;
+        }
+        return (kind & (KEY | VALUE)) != 0 && Character.isWhitespace(c);
+    }
+
+    /**
+     * append string, with a % before every char that needs escaping in this kind of strings.
+     */
+    void escape(String string, byte kind) throws IOException {
+        final int stringLength = string.length();
+        int runStart = 0;
+        for (int i = 0; i < stringLength; i++) {
+            if (needEscape(string.charAt(i), kind)) {
+                this.append(string, runStart, i);
+                this.append('%');
+                // the escaped char starts the next run.
+                runStart = i;
+            }
+        }
+        this.append(string, runStart, stringLength);
+    }
+
+    void append(char c) throws IOException {
+        if (buffer == null) {
+            writer.write(c);
+            return;
+        }
+        if (length == buffer.length) {
+            this.drainChars(false);
+        }
+        buffer[length++] = c;
+    }
+
+    void append(String string) throws IOException {
+        this.append(string, 0, string.length());
+    }
+
+    private void append(String string, int start, int end) throws IOException {
+        if (buffer == null) {
+            writer.write(string, start, end - start);
+            return;
+        }
+        while (start < end) {
+            if (length == buffer.length) {
+                this.drainChars(false);
+            } else if (writer != null && length == 0 && end - start >= buffer.length) {
+                writer.write(string, start, end - start);
+                return;
+            }
+            final int runEnd = Math.min(end, start + buffer.length - length);
+            string.getChars(start, runEnd, buffer, length);
+            length += runEnd - start;
+            start = runEnd;
+        }
+    }
+
+    /**
+     * write the chars in buffer to the writer, or encode them into bytes.
+     *
+     * @param end if a high surrogate at the end can not wait for its low surrogate any more.
+     */
+    private void drainChars(boolean end) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if (bytes == null) {
+            writer.write(buffer, 0, length);
+            length = 0;
+            return;
+        }
+        final char[] c = buffer;
+        final byte[] b = bytes;
+        int encodeEnd = length;
+        if (!end && Character.isHighSurrogate(c[encodeEnd - 1])) {
+            // wait for the low surrogate in the next chars.
+            encodeEnd--;
+        }
+        int n = bytesLength;
+        int i = 0;
+        while (i < encodeEnd) {
+            // ascii run, as long as the byte buffer has room.
+            final int limit = Math.min(encodeEnd, i + b.length - n);
+            while (i < limit && c[i] < 0x80) {
+                b[n++] = (byte) c[i++];
+            }
+            if (i == encodeEnd) {
+                break;
+            }
+            if (n + 4 > b.length) {
+                bytesLength = n;
+                this.drainBytes();
+                n = 0;
+                continue;
+            }
+            final char nowChar = c[i++];
+            if (nowChar < 0x80) {
+                b[n++] = (byte) nowChar;
+            } else if (nowChar < 0x800) {
+                b[n++] = (byte) (0xC0 | (nowChar >> 6));
+                b[n++] = (byte) (0x80 | (nowChar & 0x3F));
+            } else if (!Character.isSurrogate(nowChar)) {
+                b[n++] = (byte) (0xE0 | (nowChar >> 12));
+                b[n++] = (byte) (0x80 | ((nowChar >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (nowChar & 0x3F));
+            } else if (Character.isHighSurrogate(nowChar) && i < encodeEnd && Character.isLowSurrogate(c[i])) {
+                int codePoint = Character.toCodePoint(nowChar, c[i++]);
+                b[n++] = (byte) (0xF0 | (codePoint >> 18));
+                b[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                b[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                b[n++] = '?';
+            }
+        }
+        bytesLength = n;
+        length -= encodeEnd;
+        if (length > 0) {
+            c[0] = c[encodeEnd];
+        }
+    }
+
+    private void drainBytes() throws IOException {
+        if (bytesLength == 0) {
+            return;
+        }
+        if (outputStream != null) {
+            outputStream.write(bytes, 0, bytesLength);
+        } else {
+            wrappedBytes.clear().limit(bytesLength);
+            while (wrappedBytes.hasRemaining()) {
+                channel.write(wrappedBytes);
+            }
+        }
+        bytesLength = 0;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import com.xenoamess.x8l.dealers.X8lDealer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XenoAmess
+ */
+public class AttributeListTest {
+    @Test
+    public void testSegments() {
+        X8lTree x8lTree = X8lTree.load("<a b=c  d\ne>>", X8lDealer.INSTANCE);
+        ContentNode contentNode = x8lTree.getRoot().getContentNodesFromChildren().get(0);
+        assertEquals(4, contentNode.getAttributeNum());
+        assertEquals("c", contentNode.getAttributeValue(1));
+        assertEquals("c", contentNode.getAttribute("b"));
+        assertEquals("[ ,  ,  , ]", contentNode.getAttributeSegments().toString());
+        assertEquals("<a b=c d e>>", x8lTree.toString());
+
+        contentNode.getAttributeSegments().set(1, "\n");
+        assertEquals("<a b=c\nd e>>", x8lTree.toString());
+        contentNode.addAttribute("f");
+        assertEquals("<a b=c\nd e f>>", x8lTree.toString());
+        contentNode.removeAttribute("b");
+        assertEquals("<a d e f>>", x8lTree.toString());
+        contentNode.getAttributeSegments().set(0, "\n");
+        assertEquals("<a\nd e f>>", x8lTree.toString());
+        contentNode.trimAttributeSegments();
+        assertEquals("<a d e f>>", x8lTree.toString());
+        contentNode.removeAttribute("f");
+        assertEquals("<a d e >>", x8lTree.toString());
+        contentNode.addAttribute("g");
+        assertEquals("<a d e g>>", x8lTree.toString());
+        assertThrows(UnsupportedOperationException.class, () -> contentNode.getAttributeSegments().add(" "));
+    }
+
+    @Test
+    public void testViews() {
+        ContentNode contentNode = new ContentNode(null);
+        contentNode.getAttributes().put("a", "1");
+        contentNode.getAttributesKeyList().add("b");
+        contentNode.getAttributesKeyList().add(0, "c");
+        assertEquals("[c, a, b]", contentNode.getAttributesKeyList().toString());
+        assertEquals("{c=, a=1, b=}", contentNode.getAttributes().toString());
+        assertThrows(IllegalArgumentException.class, () -> contentNode.getAttributesKeyList().add("a"));
+        assertThrows(IllegalArgumentException.class, () -> contentNode.getAttributesKeyList().set(0, "a"));
+
+        contentNode.getAttributesKeyList().set(0, "d");
+        assertEquals("{d=, a=1, b=}", contentNode.getAttributes().toString());
+        for (Map.Entry<String, String> entry : contentNode.getAttributes().entrySet()) {
+            entry.setValue(entry.getKey() + entry.getValue());
+        }
+        assertEquals("{d=d, a=a1, b=b}", contentNode.getAttributes().toString());
+        Iterator<Map.Entry<String, String>> iterator = contentNode.getAttributes().entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals("a", iterator.next().getKey());
+        assertEquals("{a=a1, b=b}", contentNode.getAttributes().toString());
+        assertEquals("b", contentNode.getAttributes().remove("b"));
+        assertNull(contentNode.getAttributes().remove("b"));
+        assertEquals("a", contentNode.getName());
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("a", "a1");
+        assertEquals(expected, contentNode.getAttributes());
+        assertEquals(contentNode.getAttributes(), expected);
+        assertEquals(expected.hashCode(), contentNode.getAttributes().hashCode());
+        contentNode.getAttributesKeyList().clear();
+        assertTrue(contentNode.getAttributes().isEmpty());
+        assertEquals("", contentNode.getName());
+    }
+
+    @Test
+    public void testRandomChanges() {
+        Random random = new Random(20200105L);
+        for (int i = 0; i < 200; i++) {
+            ContentNode contentNode = new ContentNode(null);
+            Map<String, String> expected = new LinkedHashMap<>();
+            List<String> expectedSegments = new ArrayList<>();
+            // crosses AttributeList.INDEX_THRESHOLD both ways.
+            for (int j = 0; j < 100; j++) {
+                String key = "k" + random.nextInt(AttributeList.INDEX_THRESHOLD * 3);
+                String value = "v" + random.nextInt(10);
+                switch (random.nextInt(4)) {
+                    case 0:
+                    case 1:
+                        contentNode.addAttribute(key, value);
+                        if (!expected.containsKey(key)) {
+                            if (!expectedSegments.isEmpty()
+                                    && expectedSegments.get(expectedSegments.size() - 1).isEmpty()) {
+                                expectedSegments.set(expectedSegments.size() - 1, " ");
+                            }
+                            expectedSegments.add("");
+                        }
+                        expected.put(key, value);
+                        break;
+                    case 2:
+                        contentNode.removeAttribute(key);
+                        if (expected.containsKey(key)) {
+                            expectedSegments.remove(new ArrayList<>(expected.keySet()).indexOf(key));
+                        }
+                        expected.remove(key);
+                        break;
+                    default:
+                        if (!expected.isEmpty()) {
+                            int index = random.nextInt(expected.size());
+                            String removed = contentNode.getAttributesKeyList().remove(index);
+                            assertEquals(new ArrayList<>(expected.keySet()).get(index), removed);
+                            expected.remove(removed);
+                            expectedSegments.remove(index);
+                        }
+                        break;
+                }
+                assertEquals(new ArrayList<>(expected.keySet()), contentNode.getAttributesKeyList());
+                assertEquals(expected, contentNode.getAttributes());
+                for (String nowKey : expected.keySet()) {
+                    assertEquals(expected.get(nowKey), contentNode.getAttribute(nowKey));
+                    assertTrue(contentNode.getAttributesKeyList().contains(nowKey));
+                }
+                assertFalse(contentNode.getAttributes().containsKey("x"));
+                assertEquals(expectedSegments, contentNode.getAttributeSegments());
+            }
+            ContentNode copied = contentNode.copy(null);
+            assertEquals(contentNode, copied);
+            assertEquals(contentNode.toString(), copied.toString());
+        }
+    }
+}
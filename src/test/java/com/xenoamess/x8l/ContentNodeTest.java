@@ -25,9 +25,15 @@
 package com.xenoamess.x8l;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author XenoAmess
@@ -62,4 +68,147 @@ public class ContentNodeTest {
         contentNode.appendAll(null);
         assertFalse(contentNode.removeChild(null));
     }
+
+    @Test
+    public void testChildNameIndex() {
+        Random random = new Random(20200106L);
+        ContentNode contentNode = new ContentNode(null);
+        for (int i = 0; i < 3000; i++) {
+            List<AbstractTreeNode> children = contentNode.getChildren();
+            String name = "n" + random.nextInt(5);
+            switch (random.nextInt(8)) {
+                case 0:
+                case 1:
+                    new ContentNode(contentNode).addAttribute(name);
+                    break;
+                case 2:
+                    new ContentNode(contentNode, random.nextInt(children.size() + 1)).addAttribute(name);
+                    break;
+                case 3:
+                    new TextNode(contentNode, name);
+                    break;
+                case 4:
+                    if (!children.isEmpty()) {
+                        contentNode.removeChild(children.get(random.nextInt(children.size())));
+                    }
+                    break;
+                default:
+                    List<ContentNode> contentNodes = contentNode.getContentNodesFromChildren();
+                    if (contentNodes.isEmpty()) {
+                        break;
+                    }
+                    ContentNode child = contentNodes.get(random.nextInt(contentNodes.size()));
+                    if (child.getAttributesKeyList().isEmpty()) {
+                        child.addAttribute(name);
+                    } else if (random.nextBoolean()) {
+                        child.getAttributesKeyList().set(0, name);
+                    } else {
+                        child.removeAttribute(child.getName());
+                    }
+                    break;
+            }
+            int maxSize = random.nextInt(3);
+            List<ContentNode> expected = expectedContentNodesThatNameIs(contentNode, name, maxSize);
+            List<ContentNode> actual = contentNode.getContentNodesFromChildrenThatNameIs(name, maxSize);
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++) {
+                assertSame(expected.get(j), actual.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void testBulkOperations() {
+        Random random = new Random(20200107L);
+        ContentNode a = new ContentNode(null);
+        ContentNode b = new ContentNode(null);
+        List<AbstractTreeNode> expectedA = new ArrayList<>();
+        List<AbstractTreeNode> expectedB = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    expectedA.add(new TextNode(a, "t" + i));
+                    break;
+                case 2:
+                    int index = random.nextInt(expectedA.size() + 1);
+                    expectedA.add(index, new ContentNode(a, index));
+                    break;
+                case 3:
+                    if (!expectedA.isEmpty()) {
+                        AbstractTreeNode removed = expectedA.remove(random.nextInt(expectedA.size()));
+                        if (random.nextBoolean()) {
+                            assertTrue(a.removeChild(removed));
+                        } else {
+                            removed.changeParentAndRegister(b);
+                            expectedB.add(removed);
+                        }
+                        assertFalse(a.removeChild(removed));
+                    }
+                    break;
+                case 4:
+                    int to = random.nextInt(expectedA.size() + 1);
+                    int from = random.nextInt(to + 1);
+                    List<AbstractTreeNode> range = expectedA.subList(from, to);
+                    List<AbstractTreeNode> moved = new ArrayList<>(range);
+                    range.clear();
+                    int targetIndex = random.nextInt(expectedB.size() + 1);
+                    a.moveChildren(from, to, b, targetIndex);
+                    expectedB.addAll(targetIndex, moved);
+                    break;
+                default:
+                    if (!expectedB.isEmpty()) {
+                        AbstractTreeNode removed = expectedB.remove(random.nextInt(expectedB.size()));
+                        assertTrue(b.removeChild(removed));
+                    }
+                    break;
+            }
+            assertChildren(expectedA, a);
+            assertChildren(expectedB, b);
+        }
+
+        List<AbstractTreeNode> removed = b.removeChildren(1, b.getChildren().size());
+        assertEquals(expectedB.subList(1, expectedB.size()), removed);
+        for (AbstractTreeNode au : removed) {
+            assertNull(au.getParent());
+        }
+        a.clear();
+        assertTrue(a.getChildren().isEmpty());
+        for (AbstractTreeNode au : expectedA) {
+            assertNull(au.getParent());
+        }
+    }
+
+    @Test
+    public void testNodeInTwoLists() {
+        X8lTree x8lTree = X8lTree.load("<p>x<c>>y><q>z<r>>>");
+        ContentNode p = x8lTree.getRoot().getContentNodesFromChildren().get(0);
+        ContentNode c = p.getContentNodesFromChildren().get(0);
+        ContentNode q = x8lTree.getRoot().getContentNodesFromChildren().get(1);
+        q.getChildren().add(c);
+        assertTrue(p.removeChild(c));
+        assertFalse(p.removeChild(c));
+        assertEquals("<p>x&y>", p.toString());
+        assertTrue(q.removeChild(c));
+        assertEquals("<q>z<r>>>", q.toString());
+    }
+
+    private static void assertChildren(List<AbstractTreeNode> expected, ContentNode contentNode) {
+        assertEquals(expected.size(), contentNode.getChildren().size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), contentNode.getChildren().get(i));
+            assertSame(contentNode, expected.get(i).getParent());
+        }
+    }
+
+    private static List<ContentNode> expectedContentNodesThatNameIs(ContentNode contentNode, String name,
+                                                                    int maxSize) {
+        List<ContentNode> res = new ArrayList<>();
+        for (ContentNode child : contentNode.getContentNodesFromChildren()) {
+            if (child.getName().equals(name) && (maxSize <= 0 || res.size() < maxSize)) {
+                res.add(child);
+            }
+        }
+        return res;
+    }
 }
@@ -27,6 +27,8 @@ package com.xenoamess.x8l;
 import com.xenoamess.x8l.dealers.X8lDealer;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -40,4 +42,41 @@ public class CopyAndEqualsTest {
         Assertions.assertEquals(originalX8lTree.toString(), originalX8lTree.copy().toString());
         Assertions.assertEquals(originalX8lTree.format(), originalX8lTree.copy().format());
     }
+
+    @Test
+    public void testHashCode() throws IOException {
+        InputStream inputStream = this.getClass().getResourceAsStream("/RpgModuleDemoSettings.x8l");
+        X8lTree x8lTree = X8lTree.load(inputStream, X8lDealer.INSTANCE);
+        X8lTree copied = x8lTree.copy();
+        Assertions.assertEquals(x8lTree.hashCode(), copied.hashCode());
+
+        Map<X8lTree, String> map = new HashMap<>();
+        map.put(x8lTree, "a");
+        Assertions.assertEquals("a", map.get(copied));
+
+        // segments are not compared by equals, so they do not change the hash either.
+        ContentNode contentNode = copied.getRoot().getContentNodesFromChildren().get(0);
+        contentNode.getAttributeSegments().set(0, "\n");
+        Assertions.assertEquals(x8lTree, copied);
+        Assertions.assertEquals(x8lTree.hashCode(), copied.hashCode());
+
+        TextNode textNode = contentNode.getContentNodesFromChildren().get(0).getTextNodesFromChildren().get(0);
+        String textContent = textNode.getTextContent();
+        textNode.setTextContent(textContent + "x");
+        Assertions.assertNotEquals(x8lTree.hashCode(), copied.hashCode());
+        Assertions.assertNotEquals(x8lTree, copied);
+        Assertions.assertNull(map.get(copied));
+        textNode.setTextContent(textContent);
+        Assertions.assertEquals(x8lTree.hashCode(), copied.hashCode());
+        Assertions.assertEquals("a", map.get(copied));
+
+        contentNode.addAttribute("newKey", "newValue");
+        Assertions.assertNotEquals(x8lTree, copied);
+        Assertions.assertEquals(copied.getRoot().copy().hashCode(), copied.hashCode());
+        contentNode.removeAttribute("newKey");
+        Assertions.assertEquals(x8lTree, copied);
+        new CommentNode(contentNode, "c");
+        Assertions.assertNotEquals(x8lTree, copied);
+        Assertions.assertEquals(copied.getRoot().copy().hashCode(), copied.hashCode());
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import com.xenoamess.x8l.dealers.JsonDealer;
+import com.xenoamess.x8l.dealers.X8lDealer;
+import com.xenoamess.x8l.dealers.X8lStreamWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XenoAmess
+ */
+public class FreezeTest {
+    @Test
+    public void testRead() throws IOException {
+        String input = IOUtils.toString(FreezeTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree x8lTree = X8lTree.load(input, X8lDealer.INSTANCE);
+        X8lTree frozen = x8lTree.freeze();
+        assertTrue(frozen.isFrozen());
+        assertFalse(x8lTree.isFrozen());
+        assertSame(frozen, frozen.freeze());
+        assertTrue(frozen.getRoot().isFrozen());
+
+        assertEquals(x8lTree, frozen);
+        assertEquals(x8lTree.hashCode(), frozen.hashCode());
+        String expected = x8lTree.toString();
+        assertEquals(expected, frozen.toString());
+        assertEquals(x8lTree.toFormattedString(), frozen.toFormattedString());
+        StringWriter jsonWriter = new StringWriter();
+        StringWriter expectedJsonWriter = new StringWriter();
+        frozen.write(jsonWriter, JsonDealer.INSTANCE);
+        x8lTree.write(expectedJsonWriter, JsonDealer.INSTANCE);
+        assertEquals(expectedJsonWriter.toString(), jsonWriter.toString());
+
+        assertEquals(x8lTree.fetch("settingFile>views>logicWindowWidth"),
+                frozen.fetch("settingFile>views>logicWindowWidth"));
+        ContentNode settingFile = frozen.getRoot().getContentNodesFromChildrenThatNameIs("settingFile").get(0);
+        ContentNode expectedSettingFile =
+                x8lTree.getRoot().getContentNodesFromChildrenThatNameIs("settingFile").get(0);
+        assertEquals(expectedSettingFile.getContentNodesFromChildren(), settingFile.getContentNodesFromChildren());
+        ContentNode views = settingFile.getContentNodesFromChildrenThatNameIs("views").get(0);
+        assertEquals("1280", views.getAttribute("logicWindowWidth"));
+        assertEquals(expectedSettingFile.getContentNodesFromChildrenThatNameIs("views").get(0).getAttributeSegments(),
+                views.getAttributeSegments());
+        assertSame(frozen.getRoot(), settingFile.getParent());
+
+        // a copy is mutable again.
+        X8lTree copied = frozen.copy();
+        assertFalse(copied.isFrozen());
+        copied.getRoot().getContentNodesFromChildren().get(0).addAttribute("x", "y");
+        assertEquals(expected, frozen.toString());
+    }
+
+    @Test
+    public void testChange() {
+        X8lTree x8lTree = X8lTree.load("<a b=c d=e>x&y<f>z><<g>>", X8lDealer.INSTANCE);
+        X8lTree frozen = x8lTree.freeze();
+        RootNode root = frozen.getRoot();
+        ContentNode a = root.getContentNodesFromChildren().get(0);
+        ContentNode f = a.getContentNodesFromChildren().get(0);
+        TextNode x = a.getTextNodesFromChildren().get(0);
+        CommentNode g = a.getCommentNodesFromChildren().get(0);
+        String expected = frozen.toString();
+
+        assertThrows(UnsupportedOperationException.class, () -> new TextNode(a, "t"));
+        assertThrows(UnsupportedOperationException.class, () -> a.append(new TextNode(null, "t")));
+        assertThrows(UnsupportedOperationException.class, () -> a.getChildren().remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> a.getChildren().clear());
+        assertThrows(UnsupportedOperationException.class, () -> a.getChildren().removeIf(child -> true));
+        assertThrows(UnsupportedOperationException.class, () -> a.removeChild(f));
+        assertThrows(UnsupportedOperationException.class, () -> a.removeChildren(0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> f.close());
+        assertThrows(UnsupportedOperationException.class, () -> f.changeParentAndRegister(new ContentNode(null)));
+        assertThrows(UnsupportedOperationException.class, () -> a.moveChildren(0, 1, new ContentNode(null), -1));
+        assertThrows(UnsupportedOperationException.class, () -> a.addAttribute("h", "i"));
+        assertThrows(UnsupportedOperationException.class, () -> a.removeAttribute("b"));
+        assertThrows(UnsupportedOperationException.class, () -> a.getAttributes().put("b", "j"));
+        assertThrows(UnsupportedOperationException.class, () -> a.getAttributes().clear());
+        assertThrows(UnsupportedOperationException.class, () -> a.getAttributesKeyList().set(0, "k"));
+        assertThrows(UnsupportedOperationException.class, () -> a.getAttributeSegments().set(0, "  "));
+        assertThrows(UnsupportedOperationException.class, () -> x.setTextContent("w"));
+        assertThrows(UnsupportedOperationException.class, () -> g.setTextContent("w"));
+        assertThrows(UnsupportedOperationException.class, () -> f.format(0));
+        assertThrows(UnsupportedOperationException.class, frozen::trim);
+        assertThrows(UnsupportedOperationException.class, frozen::clear);
+        assertThrows(UnsupportedOperationException.class, () -> frozen.read("<l>", X8lDealer.INSTANCE));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.setLanguageDealer(X8lDealer.INSTANCE));
+        assertThrows(UnsupportedOperationException.class, () -> new X8lTree().append(frozen));
+        assertEquals(expected, frozen.toString());
+        assertEquals(x8lTree, frozen);
+
+        // the original tree is not frozen.
+        new TextNode(x8lTree.getRoot().getContentNodesFromChildren().get(0), "t");
+        assertEquals(expected, frozen.toString());
+    }
+
+    @Test
+    public void testCompact() {
+        X8lTree frozen = X8lTree.load("<a b=c>x&x><a b=c>x>", X8lDealer.INSTANCE).freeze();
+        List<ContentNode> contentNodes = frozen.getRoot().getContentNodesFromChildren();
+        assertSame(contentNodes.get(0).getAttributeKey(0), contentNodes.get(1).getAttributeKey(0));
+        assertSame(contentNodes.get(0).getAttribute("b"), contentNodes.get(1).getAttribute("b"));
+        assertSame(contentNodes.get(0).getTextNodesFromChildren().get(1).getTextContent(),
+                contentNodes.get(1).getTextNodesFromChildren().get(0).getTextContent());
+        assertEquals("<a b=c>x&x><a b=c>x>", frozen.toString());
+    }
+
+    @Test
+    public void testCopy() throws IOException {
+        String input = IOUtils.toString(FreezeTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree frozen = X8lTree.load(input, X8lDealer.INSTANCE).freeze();
+        String expected = frozen.toString();
+        Random random = new Random(20200105L);
+        for (int i = 0; i < 100; i++) {
+            X8lTree copied = i % 2 == 0 ? frozen.copy() : new X8lTree(frozen);
+            assertFalse(copied.isFrozen());
+            assertEquals(frozen.hashCode(), copied.hashCode());
+            assertEquals(frozen, copied);
+            X8lTree mirror = X8lTree.load(expected, X8lDealer.INSTANCE);
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                long seed = random.nextLong();
+                change(copied.getRoot(), new Random(seed));
+                change(mirror.getRoot(), new Random(seed));
+                assertEquals(mirror.hashCode(), copied.hashCode());
+                assertEquals(mirror, copied);
+            }
+            assertEquals(mirror.toString(), copied.toString());
+            assertEquals(mirror.getRoot().copy().hashCode(), copied.hashCode());
+            assertEquals(expected, frozen.toString());
+        }
+    }
+
+    /**
+     * go down a random path from contentNode, and change a node on it.
+     */
+    private static void change(ContentNode contentNode, Random random) {
+        while (random.nextInt(4) != 0 && !contentNode.getContentNodesFromChildren().isEmpty()) {
+            List<ContentNode> children = contentNode.getContentNodesFromChildren();
+            contentNode = children.get(random.nextInt(children.size()));
+        }
+        switch (random.nextInt(5)) {
+            case 0:
+                contentNode.addAttribute("k" + random.nextInt(4), "v" + random.nextInt(100));
+                break;
+            case 1:
+                if (contentNode.getAttributeNum() > 0) {
+                    int index = random.nextInt(contentNode.getAttributeNum());
+                    contentNode.getAttributes().put(contentNode.getAttributeKey(index), "w" + random.nextInt(100));
+                    contentNode.getAttributeSegments().set(index, "  ");
+                }
+                break;
+            case 2:
+                new TextNode(contentNode, "t" + random.nextInt(100));
+                break;
+            case 3:
+                if (!contentNode.getChildren().isEmpty()) {
+                    contentNode.getChildren().remove(random.nextInt(contentNode.getChildren().size()));
+                }
+                break;
+            default:
+                for (TextNode textNode : contentNode.getTextNodesFromChildren()) {
+                    textNode.setTextContent(textNode.getTextContent() + random.nextInt(10));
+                }
+                break;
+        }
+    }
+
+    @Test
+    public void testWriteCopy() throws IOException {
+        String input = IOUtils.toString(FreezeTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree frozen = X8lTree.load(input, X8lDealer.INSTANCE).freeze();
+        String expected = frozen.toString();
+        X8lTree copied = frozen.copy();
+        copied.setSerializedCacheEnabled(true);
+        assertEquals(expected, copied.toString());
+        assertEquals(expected, X8lTree.save(copied));
+        StringWriter stringWriter = new StringWriter();
+        try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(stringWriter, true)) {
+            x8lStreamWriter.write(copied.getRoot());
+        }
+        // written without copying the children.
+        assertSame(frozen.getRoot().getChildrenToRead(), copied.getRoot().getChildrenToRead());
+        for (ContentNode contentNode : frozen.getRoot().getContentNodesFromChildren()) {
+            assertNull(contentNode.getSerializedCache());
+        }
+
+        X8lTree mirror = X8lTree.load(expected, X8lDealer.INSTANCE);
+        copied.getRoot().getContentNodesFromChildren().get(0).addAttribute("changed");
+        mirror.getRoot().getContentNodesFromChildren().get(0).addAttribute("changed");
+        assertEquals(mirror.toString(), copied.toString());
+        change(copied.getRoot(), new Random(20200108L));
+        change(mirror.getRoot(), new Random(20200108L));
+        assertEquals(mirror.toString(), copied.toString());
+        assertEquals(expected, frozen.toString());
+    }
+
+    @Test
+    public void testConcurrentRead() throws Exception {
+        String input = IOUtils.toString(FreezeTest.class.getResource("/large_sample_benchmark.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree x8lTree = X8lTree.load(input, X8lDealer.INSTANCE);
+        X8lTree frozen = x8lTree.freeze();
+        String expected = x8lTree.toString();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit(frozen::toString));
+            }
+            for (Future<String> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
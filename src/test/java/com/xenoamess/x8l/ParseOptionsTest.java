@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import com.xenoamess.x8l.dealers.X8lDealer;
+import com.xenoamess.x8l.dealers.X8lParser;
+import com.xenoamess.x8l.dealers.X8lTreeBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XenoAmess
+ */
+public class ParseOptionsTest {
+    private static final String INPUT = "<a  b=c\n d>  <<comment%>>&x% y&\t\n&%<% %>&<e f>>< <only comment>>";
+
+    @Test
+    public void testCompact() throws IOException {
+        String[] inputs = new String[]{
+                INPUT,
+                IOUtils.toString(ParseOptionsTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                        StandardCharsets.UTF_8),
+                IOUtils.toString(ParseOptionsTest.class.getResource("/large_sample_benchmark.x8l"),
+                        StandardCharsets.UTF_8),
+        };
+        for (String input : inputs) {
+            X8lTree full = X8lTree.load(input, X8lDealer.INSTANCE);
+            full.getRoot().trim();
+            removeComments(full.getRoot());
+
+            X8lTree compact = X8lTree.load(input, X8lDealer.INSTANCE, ParseOptions.compact());
+            assertEquals(full.getRoot(), compact.getRoot());
+            assertEquals(full.toString(), compact.toString());
+
+            compact = X8lTree.load(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                    X8lDealer.INSTANCE, ParseOptions.compact());
+            assertEquals(full.toString(), compact.toString());
+
+            RootNode rootNode = new RootNode(null);
+            new X8lParser(new X8lTreeBuilder(rootNode, ParseOptions.compact()), 3).parse(new StringReader(input));
+            assertEquals(full.toString(), rootNode.toString());
+
+            rootNode = X8lTree.load(input, X8lDealer.INSTANCE).getRoot();
+            ParseOptions.compact().apply(rootNode);
+            assertEquals(full.toString(), rootNode.toString());
+        }
+    }
+
+    @Test
+    public void testEachOption() {
+        X8lTree full = X8lTree.load(INPUT, X8lDealer.INSTANCE);
+
+        X8lTree tree = X8lTree.load(INPUT, X8lDealer.INSTANCE, new ParseOptions());
+        assertEquals(full.toString(), tree.toString());
+
+        tree = X8lTree.load(INPUT, X8lDealer.INSTANCE, new ParseOptions(true, false, false));
+        RootNode expected = full.getRoot().copy((ContentNode) null);
+        removeComments(expected);
+        assertEquals(expected.toString(), tree.getRoot().toString());
+
+        tree = X8lTree.load(INPUT, X8lDealer.INSTANCE, new ParseOptions(false, true, false));
+        ContentNode a = tree.getRoot().getContentNodesFromChildren().get(0);
+        assertEquals("<a b=c d>", a.toString().substring(0, 9));
+        assertEquals(5, a.getChildren().size());
+        assertEquals("x y", a.getTextNodesFromChildren().get(0).getTextContent());
+        assertEquals("< >", a.getTextNodesFromChildren().get(1).getTextContent());
+
+        tree = X8lTree.load(INPUT, X8lDealer.INSTANCE, new ParseOptions(false, false, true));
+        a = tree.getRoot().getContentNodesFromChildren().get(0);
+        assertEquals("<a b=c d>", a.toString().substring(0, 9));
+        assertEquals(" ", a.getAttributeSegment(0));
+        assertEquals("", a.getAttributeSegment(2));
+        a.addAttribute("g", "h", "\n");
+        assertEquals("<a b=c d g=h\n>", a.toString().substring(0, 14));
+    }
+
+    @Test
+    public void testSymbolTable() {
+        ParseOptions parseOptions = ParseOptions.compact();
+        X8lSymbolTable symbolTable = new X8lSymbolTable();
+        parseOptions.setSymbolTable(symbolTable);
+        X8lTree tree = X8lTree.load("<a b=c>><a b=c>>", X8lDealer.INSTANCE, parseOptions);
+        assertSame(tree.getRoot().getContentNodesFromChildren().get(0).getName(),
+                tree.getRoot().getContentNodesFromChildren().get(1).getName());
+        assertTrue(symbolTable.size() > 0);
+    }
+
+    private static void removeComments(ContentNode contentNode) {
+        contentNode.getChildren().removeIf(au -> au.getClass().equals(CommentNode.class));
+        for (ContentNode child : contentNode.getContentNodesFromChildren()) {
+            removeComments(child);
+        }
+    }
+}
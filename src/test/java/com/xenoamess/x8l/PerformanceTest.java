@@ -1,7 +1,15 @@
 package com.xenoamess.x8l;
 
+import com.xenoamess.x8l.dealers.X8lCharByCharReader;
+import com.xenoamess.x8l.dealers.X8lEventHandler;
+import com.xenoamess.x8l.dealers.X8lParser;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -103,4 +111,105 @@ public class PerformanceTest {
     void testPerformance_LargeSampleBenchmark() {
         runPerformanceTest(LARGE_BENCHMARK_FILE_PATH, "LargeSampleBenchmark");
     }
+
+    private void runParserComparison(String filePath, String testName, int copies) throws IOException {
+        System.out.println("Starting X8L Parser Comparison: " + testName + " for file: " + filePath);
+        String single = new String(Files.readAllBytes(new File(filePath).toPath()), StandardCharsets.UTF_8);
+        StringBuilder stringBuilder = new StringBuilder(single.length() * copies);
+        for (int i = 0; i < copies; i++) {
+            stringBuilder.append(single);
+        }
+        String input = stringBuilder.toString();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            X8lCharByCharReader.read(new StringReader(input), new RootNode(null));
+            new X8lParser(new RootNode(null)).parse(new StringReader(input));
+        }
+
+        long charByCharTime = 0;
+        long parserTime = 0;
+        for (int i = 0; i < TEST_ITERATIONS; i++) {
+            long startTime = System.nanoTime();
+            X8lCharByCharReader.read(new StringReader(input), new RootNode(null));
+            long middleTime = System.nanoTime();
+            new X8lParser(new RootNode(null)).parse(new StringReader(input));
+            long endTime = System.nanoTime();
+            charByCharTime += middleTime - startTime;
+            parserTime += endTime - middleTime;
+        }
+
+        System.out.println("\n--- Parser Comparison Results for " + testName + " ---");
+        System.out.printf("Average char-by-char handler time: %.3f ms%n", charByCharTime / 1_000_000.0 / TEST_ITERATIONS);
+        System.out.printf("Average X8lParser time: %.3f ms%n", parserTime / 1_000_000.0 / TEST_ITERATIONS);
+        System.out.printf("Speed up: %.2f%n", (double) charByCharTime / parserTime);
+    }
+
+    @Test
+    @Disabled("Performance benchmark, run manually or via specific profile")
+    void testParserComparison_LargeSampleBenchmark() throws IOException {
+        runParserComparison(LARGE_BENCHMARK_FILE_PATH, "LargeSampleBenchmark", 100);
+    }
+
+    /**
+     * the trees of hundreds of MB would not fit in memory, so only events are counted here.
+     */
+    private void runByteParserComparison(String filePath, String testName, int totalBytes) throws IOException {
+        System.out.println("Starting X8L Byte Parser Comparison: " + testName + " for file: " + filePath);
+        byte[] single = Files.readAllBytes(new File(filePath).toPath());
+        int copies = Math.max(1, totalBytes / single.length);
+        byte[] input = new byte[single.length * copies];
+        for (int i = 0; i < copies; i++) {
+            System.arraycopy(single, 0, input, i * single.length, single.length);
+        }
+        final long[] eventCount = new long[1];
+        X8lEventHandler handler = new X8lEventHandler() {
+            @Override
+            public void startContentNode(List<String> attributesKeyList, List<String> attributesValueList) {
+                eventCount[0]++;
+            }
+
+            @Override
+            public void endContentNode() {
+                eventCount[0]++;
+            }
+
+            @Override
+            public void text(String textContent) {
+                eventCount[0]++;
+            }
+
+            @Override
+            public void comment(String textContent) {
+                eventCount[0]++;
+            }
+        };
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            new X8lParser(handler).parse(new InputStreamReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8));
+            new X8lParser(handler).parse(new ByteArrayInputStream(input));
+        }
+
+        long charTime = 0;
+        long byteTime = 0;
+        for (int i = 0; i < TEST_ITERATIONS; i++) {
+            long startTime = System.nanoTime();
+            new X8lParser(handler).parse(new InputStreamReader(new ByteArrayInputStream(input), StandardCharsets.UTF_8));
+            long middleTime = System.nanoTime();
+            new X8lParser(handler).parse(new ByteArrayInputStream(input));
+            long endTime = System.nanoTime();
+            charTime += middleTime - startTime;
+            byteTime += endTime - middleTime;
+        }
+
+        System.out.println("\n--- Byte Parser Comparison Results for " + testName + " (" + input.length + " bytes) ---");
+        System.out.printf("Average InputStreamReader + X8lParser time: %.3f ms%n", charTime / 1_000_000.0 / TEST_ITERATIONS);
+        System.out.printf("Average utf-8 X8lParser time: %.3f ms%n", byteTime / 1_000_000.0 / TEST_ITERATIONS);
+        System.out.printf("Speed up: %.2f%n", (double) charTime / byteTime);
+    }
+
+    @Test
+    @Disabled("Performance benchmark, run manually or via specific profile")
+    void testByteParserComparison_LargeSampleBenchmark() throws IOException {
+        runByteParserComparison(LARGE_BENCHMARK_FILE_PATH, "LargeSampleBenchmark", 256 * 1024 * 1024);
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import com.xenoamess.x8l.dealers.X8lDealer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author XenoAmess
+ */
+public class SerializedCacheTest {
+    @Test
+    public void testInvalidate() {
+        X8lTree x8lTree = X8lTree.load("<a>x<b>y><c>z>>", X8lDealer.INSTANCE);
+        assertNull(x8lTree.getRoot().getSerializedCache());
+        x8lTree.setSerializedCacheEnabled(true);
+        String expected = x8lTree.toString();
+        assertSame(x8lTree.getRoot().getSerializedCache(), x8lTree.toString());
+
+        ContentNode a = x8lTree.getRoot().getContentNodesFromChildren().get(0);
+        ContentNode b = a.getContentNodesFromChildren().get(0);
+        ContentNode c = a.getContentNodesFromChildren().get(1);
+        assertEquals("<b>y>", b.getSerializedCache());
+        assertSame(b.getSerializedCache(), b.toString());
+
+        b.getTextNodesFromChildren().get(0).setTextContent("w");
+        assertNull(b.getSerializedCache());
+        assertNull(a.getSerializedCache());
+        assertNull(x8lTree.getRoot().getSerializedCache());
+        assertEquals("<c>z>", c.getSerializedCache());
+        assertEquals(expected.replace('y', 'w'), x8lTree.toString());
+        assertEquals("<b>w>", b.getSerializedCache());
+
+        x8lTree.setSerializedCacheEnabled(false);
+        assertNull(c.getSerializedCache());
+        assertEquals(expected.replace('y', 'w'), x8lTree.toString());
+        assertNull(c.getSerializedCache());
+    }
+
+    @Test
+    public void testDisableInnerNode() {
+        X8lTree x8lTree = X8lTree.load("<a>x<b>y>>", X8lDealer.INSTANCE);
+        x8lTree.setSerializedCacheEnabled(true);
+        assertEquals("<a>x<b>y>>", x8lTree.toString());
+        ContentNode a = x8lTree.getRoot().getContentNodesFromChildren().get(0);
+        ContentNode b = a.getContentNodesFromChildren().get(0);
+
+        b.setSerializedCacheEnabled(false);
+        assertNull(b.getSerializedCache());
+        assertNull(a.getSerializedCache());
+        assertNull(x8lTree.getRoot().getSerializedCache());
+        b.getTextNodesFromChildren().get(0).setTextContent("CHANGED");
+        assertEquals("<a>x<b>CHANGED>>", x8lTree.toString());
+        assertEquals("<a>x<b>CHANGED>>", X8lTree.save(x8lTree));
+    }
+
+    @Test
+    public void testSubList() {
+        X8lTree x8lTree = X8lTree.load("<a>x<b>y><c>z>w>", X8lDealer.INSTANCE);
+        x8lTree.setSerializedCacheEnabled(true);
+        x8lTree.toString();
+        String expected = x8lTree.getRoot().getSerializedCache();
+        assertNotNull(expected);
+        ContentNode a = x8lTree.getRoot().getContentNodesFromChildren().get(0);
+        ContentNode b = a.getContentNodesFromChildren().get(0);
+        ContentNode c = a.getContentNodesFromChildren().get(1);
+
+        List<AbstractTreeNode> range = a.getChildren().subList(1, 4);
+        assertEquals(3, range.size());
+        assertSame(b, range.get(0));
+        assertSame(expected, x8lTree.getRoot().getSerializedCache());
+        assertNotNull(a.getSerializedCache());
+
+        assertSame(b, range.remove(0));
+        assertNull(a.getSerializedCache());
+        assertNull(x8lTree.getRoot().getSerializedCache());
+        range.subList(0, 1).clear();
+        assertEquals(1, range.size());
+        assertSame(c, range.get(0));
+        assertEquals("<a>x<c>z>w>", x8lTree.toString());
+
+        a.getChildren().subList(0, 1).clear();
+        assertEquals("<a><c>z>w>", x8lTree.toString());
+        assertEquals(true, a.removeChild(c));
+        assertEquals("<a>w>", x8lTree.toString());
+    }
+
+    @Test
+    public void testRandomChanges() throws IOException {
+        String input = IOUtils.toString(SerializedCacheTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree x8lTree = X8lTree.load(input, X8lDealer.INSTANCE);
+        x8lTree.setSerializedCacheEnabled(true);
+        Random random = new Random(20200104L);
+        for (int i = 0; i < 300; i++) {
+            List<ContentNode> contentNodes = new ArrayList<>();
+            collectContentNodes(x8lTree.getRoot(), contentNodes);
+            ContentNode contentNode = contentNodes.get(random.nextInt(contentNodes.size()));
+            change(contentNode, contentNodes.get(random.nextInt(contentNodes.size())), random);
+
+            String expected = x8lTree.getRoot().copy().toString();
+            assertEquals(expected, x8lTree.toString());
+            // a copy has no cached hash.
+            assertEquals(x8lTree.getRoot().copy().hashCode(), x8lTree.hashCode());
+            for (ContentNode nowNode : contentNodes) {
+                if (nowNode.getSerializedCache() != null) {
+                    assertEquals(nowNode.copy().toString(), nowNode.getSerializedCache());
+                }
+            }
+        }
+    }
+
+    private static void change(ContentNode contentNode, ContentNode other, Random random) {
+        switch (random.nextInt(8)) {
+            case 0:
+                new TextNode(contentNode, "t" + random.nextInt(100));
+                break;
+            case 1:
+                for (TextNode textNode : contentNode.getTextNodesFromChildren()) {
+                    textNode.setTextContent(textNode.getTextContent() + "<");
+                }
+                break;
+            case 2:
+                contentNode.addAttribute("k" + random.nextInt(5), "v" + random.nextInt(5));
+                break;
+            case 3:
+                for (Map.Entry<String, String> entry : contentNode.getAttributes().entrySet()) {
+                    entry.setValue(entry.getValue() + "=");
+                }
+                break;
+            case 4:
+                Iterator<AbstractTreeNode> iterator = contentNode.getChildren().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+                break;
+            case 5:
+                Collections.reverse(contentNode.getChildren());
+                break;
+            case 6:
+                if (contentNode.getParent() != null && !isInside(other, contentNode)) {
+                    contentNode.changeParentAndRegister(other);
+                }
+                break;
+            default:
+                for (AbstractTreeNode child : contentNode.getChildren()) {
+                    if (child instanceof CommentNode) {
+                        ((CommentNode) child).setTextContent("comment" + random.nextInt(100));
+                    }
+                }
+                break;
+        }
+    }
+
+    private static boolean isInside(ContentNode contentNode, ContentNode ancestor) {
+        for (ContentNode nowNode = contentNode; nowNode != null; nowNode = nowNode.getParent()) {
+            if (nowNode == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void collectContentNodes(ContentNode contentNode, List<ContentNode> contentNodes) {
+        contentNodes.add(contentNode);
+        for (ContentNode child : contentNode.getContentNodesFromChildren()) {
+            collectContentNodes(child, contentNodes);
+        }
+    }
+}
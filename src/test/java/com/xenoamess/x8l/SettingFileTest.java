@@ -54,6 +54,7 @@ public class SettingFileTest {
         xmlTree2.setLanguageDealer(X8lDealer.INSTANCE);
 
         Assertions.assertNotEquals(originalX8lTree, xmlTree2);
-        Assertions.assertNotEquals(originalX8lTree, jsonTree2);
+        // attributes keep their order, so the json round trip gives back an equal tree.
+        Assertions.assertEquals(originalX8lTree, jsonTree2);
     }
 }
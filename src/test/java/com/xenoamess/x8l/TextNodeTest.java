@@ -28,6 +28,8 @@ import com.xenoamess.x8l.dealers.X8lDealer;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -86,6 +88,31 @@ public class TextNodeTest {
         assertEquals(tree2.toString(), "1&2");
     }
 
+    @Test
+    public void testTranscodedTextContent() {
+        X8lTree tree = X8lTree.load("<a>x%<y%&z&%%w&  <<c%>d>>", X8lDealer.INSTANCE);
+        ContentNode contentNode = tree.getRoot().getContentNodesFromChildren().get(0);
+        TextNode canonical = (TextNode) contentNode.getChildren().get(0);
+        TextNode notCanonical = (TextNode) contentNode.getChildren().get(1);
+        TextNode whitespace = (TextNode) contentNode.getChildren().get(2);
+        CommentNode comment = (CommentNode) contentNode.getChildren().get(3);
+        assertEquals("x%<y%&z", canonical.getTranscodedTextContent());
+        assertEquals("x<y&z", canonical.getTextContent());
+        assertNull(notCanonical.getTranscodedTextContent());
+        assertEquals("w", notCanonical.getTextContent());
+        assertSame(whitespace.getTranscodedTextContent(), whitespace.getTextContent());
+        assertEquals("c%>d", comment.getTranscodedTextContent());
+        assertEquals("c>d", comment.getTextContent());
+        assertEquals("<a>x%<y%&z&w&  <<c%>d>>", tree.toString());
+
+        TextNode copy = canonical.copy(null);
+        assertEquals("x%<y%&z", copy.getTranscodedTextContent());
+        assertEquals(canonical, copy);
+        canonical.setTextContent("x<y");
+        assertNull(canonical.getTranscodedTextContent());
+        assertEquals("<a>x%<y&w&  <<c%>d>>", tree.toString());
+    }
+
     @Test
     public void testTextNodeSeparator() {
         assertEquals(X8lTree.load("<>textA&textB&textC>", X8lDealer.INSTANCE).getRoot().getContentNodesFromChildren().get(0).getChildren().size(), 3);
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l;
+
+import com.xenoamess.x8l.dealers.X8lParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lSymbolTableTest {
+    @Test
+    public void testIntern() {
+        X8lSymbolTable symbolTable = new X8lSymbolTable(4);
+        String a = new String("key");
+        assertSame(a, symbolTable.intern(a));
+        assertSame(a, symbolTable.intern(new String("key")));
+        for (int i = 0; i < 10000; i++) {
+            symbolTable.intern("k" + i);
+        }
+        assertEquals(10001, symbolTable.size());
+        assertSame(a, symbolTable.intern(new String("key")));
+        assertEquals("k9999", symbolTable.intern(new String("k9999")));
+
+        String shortValue = new String("abcd");
+        assertSame(shortValue, symbolTable.internValue(shortValue));
+        assertSame(shortValue, symbolTable.internValue(new String("abcd")));
+        String longValue = "abcde";
+        assertNotSame(longValue, symbolTable.internValue(new String(longValue)));
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        String input = IOUtils.toString(X8lSymbolTableTest.class.getResource("/large_sample_benchmark.x8l"),
+                StandardCharsets.UTF_8);
+        X8lSymbolTable symbolTable = new X8lSymbolTable();
+        RootNode expected = new RootNode(null);
+        new X8lParser(expected).parse(input);
+        RootNode actual = new RootNode(null);
+        new X8lParser(actual, symbolTable).parse(input);
+        assertEquals(expected, actual);
+        assertEquals(expected.toString(), actual.toString());
+
+        List<ContentNode> nodes = actual.getContentNodesFromChildren().get(0)
+                .getContentNodesFromChildrenThatNameIs("keymap").get(0)
+                .getContentNodesFromChildren();
+        for (ContentNode nowNode : nodes) {
+            assertSame(symbolTable.intern(nowNode.getName()), nowNode.getName());
+            assertSame(symbolTable.intern(new String(nowNode.getName())), nowNode.getName());
+        }
+
+        ContentNode contentNode = new ContentNode(null);
+        contentNode.addAttributeFromTranscodedExpression("a%=b=c", symbolTable);
+        assertSame(symbolTable.intern("a%=b"), contentNode.getName());
+        assertEquals("c", contentNode.getAttributes().get("a%=b"));
+        assertEquals(expected.getContentNodesFromChildrenThatNameIs(new String("settingFile")),
+                actual.getContentNodesFromChildrenThatNameIs(new String("settingFile")));
+    }
+}
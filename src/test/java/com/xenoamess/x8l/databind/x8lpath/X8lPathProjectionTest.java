@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.xenoamess.x8l.databind.x8lpath;
+
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.TextNode;
+import com.xenoamess.x8l.X8lTree;
+import com.xenoamess.x8l.dealers.X8lDealer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lPathProjectionTest {
+    @Test
+    public void testSameAsFetchFromFullLoad() throws IOException {
+        String input = IOUtils.toString(X8lPathProjectionTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        String[][] x8lPathsList = new String[][]{
+                {"settingFile>commonSettings>ATTRIBUTE(gameName)"},
+                {"CONTENT_NODE(settingFile)>CONTENT_NODE(views)>CHILD"},
+                {"settingFile>CONTENT_NODE[1,2]"},
+                {"settingFile>CONTENT_NODE[2]>TEXT_NODE"},
+                {"settingFile>keymap>CONTENT_NODE[1,2]>TEXT_NODE>TEXT_CONTENT"},
+                {"settingFile>keymap>CONTENT_NODE[,1]", "settingFile>views"},
+                {"settingFile>views>PARENT>CHILD"},
+                {"settingFile>nothing"},
+                {"CHILD"},
+                {"COMMENT_NODE"},
+        };
+        X8lTree full = X8lTree.load(input, X8lDealer.INSTANCE);
+        for (String[] x8lPaths : x8lPathsList) {
+            X8lTree projected = X8lTree.loadProjected(input, x8lPaths);
+            assertEquals(X8lPathUtil.fetch(full.getRoot(), x8lPaths), X8lPathUtil.fetch(projected.getRoot(), x8lPaths));
+            projected = X8lTree.loadProjected(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                    x8lPaths);
+            assertEquals(X8lPathUtil.fetch(full.getRoot(), x8lPaths), X8lPathUtil.fetch(projected.getRoot(), x8lPaths));
+        }
+    }
+
+    @Test
+    public void testOnlyPickedAreBuilt() throws IOException {
+        Path path = Files.createTempFile("X8lPathProjectionTest", ".x8l");
+        try {
+            Files.write(path, "<a>x<b k=v>y<<c>>z<c>w>u<b>v<d>>>>".getBytes(StandardCharsets.UTF_8));
+            X8lTree projected = X8lTree.loadProjected(path, new String[]{"a>b[1]"});
+            assertEquals("<a><b k=v>><b>v<d>>>>", projected.toString());
+            projected = X8lTree.loadProjected(path, new String[]{"a>CONTENT_NODE(c)"});
+            assertEquals("<a><c>w>>", projected.toString());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testRandomInputs() {
+        final String[] names = new String[]{"a", "b", "c"};
+        final String[] x8lPaths = new String[]{"a>b[1,2]>CHILD", "CONTENT_NODE[1]>c", "b>TEXT_NODE"};
+        Random random = new Random(20200102L);
+        for (int i = 0; i < 500; i++) {
+            X8lTree generated = new X8lTree();
+            fill(generated.getRoot(), random, names, 4);
+            String input = generated.toString();
+            X8lTree full = X8lTree.load(input, X8lDealer.INSTANCE);
+            X8lTree projected = X8lTree.loadProjected(input, x8lPaths);
+            for (String x8lPath : x8lPaths) {
+                assertEquals(X8lPathUtil.fetch(full.getRoot(), x8lPath),
+                        X8lPathUtil.fetch(projected.getRoot(), x8lPath));
+            }
+        }
+    }
+
+    private static void fill(ContentNode contentNode, Random random, String[] names, int depth) {
+        for (int i = random.nextInt(5); i > 0; i--) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    contentNode.append(new TextNode(null, "t%<" + i));
+                    break;
+                case 1:
+                    contentNode.append(new CommentNode(null, "c>" + i));
+                    break;
+                default:
+                    if (depth > 0) {
+                        ContentNode child = new ContentNode(null);
+                        child.addAttribute(names[random.nextInt(names.length)]);
+                        contentNode.append(child);
+                        fill(child, random, names, depth - 1);
+                    }
+            }
+        }
+    }
+}
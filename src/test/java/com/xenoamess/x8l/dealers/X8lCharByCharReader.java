@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.TextNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import com.xenoamess.x8l.X8lTree;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Stack;
+
+/**
+ * the old char-by-char ContentNode reading loop of X8lDealer,
+ * kept here as the reference X8lParser is compared with.
+ *
+ * @author XenoAmess
+ */
+public class X8lCharByCharReader {
+    public static void read(Reader reader, ContentNode contentNode) throws IOException {
+        contentNode.close();
+        int nowInt;
+        ContentNode nowNode = contentNode;
+        boolean lastCharIsModulus = false;
+        Stack<X8lStatusEnum> statusEnumStack = new Stack<>();
+        X8lStatusEnum nowStatus = X8lStatusEnum.ContentArea;
+
+        StringBuilder stringBuilder = new StringBuilder();
+        char nowChar;
+        while (true) {
+            nowInt = reader.read();
+            nowChar = (char) nowInt;
+            if (nowInt == -1) {
+                if (nowNode == contentNode && nowStatus == X8lStatusEnum.ContentArea && statusEnumStack.isEmpty()) {
+                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
+                    break;
+                } else {
+                    throw new X8lGrammarException("Unexpected stop of x8l file.");
+                }
+            } else if (lastCharIsModulus) {
+                stringBuilder.append(nowChar);
+                lastCharIsModulus = false;
+            } else if (nowChar == '%') {
+                lastCharIsModulus = true;
+            } else if (nowStatus == X8lStatusEnum.CommentArea) {
+                if (nowChar == '>') {
+                    new CommentNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
+                    stringBuilder = new StringBuilder();
+                    nowStatus = statusEnumStack.pop();
+                } else {
+                    stringBuilder.append(nowChar);
+                }
+            } else if (nowChar == '<') {
+                if (nowStatus == X8lStatusEnum.AttributeArea) {
+                    if (!nowNode.getAttributes().isEmpty() || stringBuilder.length() != 0) {
+                        throw new X8lGrammarException("Unexpected < in attribute area of a content node.");
+                    } else {
+                        ContentNode nowParent = nowNode.getParent();
+                        nowNode.close();
+                        nowNode = nowParent;
+                        nowStatus = X8lStatusEnum.CommentArea;
+                    }
+                } else {
+                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
+                    stringBuilder = new StringBuilder();
+                    nowNode = new ContentNode(nowNode);
+                    statusEnumStack.push(nowStatus);
+                    nowStatus = X8lStatusEnum.AttributeArea;
+                }
+            } else if (nowChar == '>') {
+                if (nowStatus != X8lStatusEnum.AttributeArea) {
+                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
+                    stringBuilder = new StringBuilder();
+                    nowNode = nowNode.getParent();
+                } else {
+                    if (stringBuilder.length() != 0) {
+                        nowNode.addAttributeFromTranscodedExpression(stringBuilder.toString());
+                        stringBuilder = new StringBuilder();
+                    }
+                    nowStatus = statusEnumStack.pop();
+                }
+            } else if (Character.isWhitespace(nowChar)) {
+                if (nowStatus == X8lStatusEnum.AttributeArea) {
+                    if (stringBuilder.length() != 0) {
+                        nowNode.addAttributeFromTranscodedExpression(stringBuilder.toString());
+                        stringBuilder = new StringBuilder();
+                    }
+                } else {
+                    stringBuilder.append(nowChar);
+                }
+            } else if (nowChar == '&') {
+                if (nowStatus == X8lStatusEnum.ContentArea) {
+                    new TextNode(nowNode, X8lTree.untranscode(stringBuilder.toString()));
+                    stringBuilder = new StringBuilder();
+                } else {
+                    stringBuilder.append(nowChar);
+                }
+            } else {
+                stringBuilder.append(nowChar);
+            }
+        }
+        if (!nowNode.getAttributeSegments().isEmpty()) {
+            nowNode.getAttributeSegments().set(nowNode.getAttributeSegments().size() - 1, "");
+        }
+    }
+}
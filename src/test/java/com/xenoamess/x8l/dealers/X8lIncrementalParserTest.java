@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lIncrementalParserTest {
+    @Test
+    public void testEdit() {
+        X8lIncrementalParser x8lIncrementalParser = new X8lIncrementalParser("<a>x<b c=d>y>z>&w");
+        ContentNode a = x8lIncrementalParser.getRoot().getContentNodesFromChildren().get(0);
+        ContentNode b = a.getContentNodesFromChildren().get(0);
+
+        assertSame(b, x8lIncrementalParser.edit(11, 1, "yy"));
+        assertEquals("<a>x<b c=d>yy>z>&w", x8lIncrementalParser.getText());
+        assertSame(b, a.getContentNodesFromChildren().get(0));
+        assertEquals("yy", b.getTextNodesFromChildren().get(0).getTextContent());
+
+        // not complete in b, so a is re-parsed.
+        assertSame(a, x8lIncrementalParser.edit(13, 0, "><c>"));
+        assertEquals("<a>x<b c=d>yy><c>>z>&w", x8lIncrementalParser.getText());
+        assertSame(a, x8lIncrementalParser.getRoot().getContentNodesFromChildren().get(0));
+        assertEquals("c", a.getContentNodesFromChildren().get(1).getName());
+        assertEquals(new X8lIncrementalParser(x8lIncrementalParser.getText()).getRoot(),
+                x8lIncrementalParser.getRoot());
+
+        assertSame(x8lIncrementalParser.getRoot(), x8lIncrementalParser.edit(22, 0, "&v"));
+        assertEquals("<a>x<b c=d>yy><c>>z>&w&v", x8lIncrementalParser.getText());
+        assertEquals("v", x8lIncrementalParser.getRoot().getTextNodesFromChildren().get(3).getTextContent());
+
+        assertThrows(X8lGrammarException.class, () -> x8lIncrementalParser.edit(0, 1, ""));
+        assertEquals("<a>x<b c=d>yy><c>>z>&w&v", x8lIncrementalParser.getText());
+        assertThrows(IndexOutOfBoundsException.class, () -> x8lIncrementalParser.edit(20, 5, ""));
+    }
+
+    @Test
+    public void testRandomEdits() throws IOException {
+        final String alphabet = "<<>>%&= \nab";
+        final String input = IOUtils.toString(X8lIncrementalParserTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        Random random = new Random(20200101L);
+        X8lIncrementalParser x8lIncrementalParser = new X8lIncrementalParser(input);
+        for (int i = 0; i < 3000; i++) {
+            String text = x8lIncrementalParser.getText();
+            int offset = random.nextInt(text.length() + 1);
+            int removedLength = random.nextInt(Math.min(4, text.length() - offset) + 1);
+            StringBuilder inserted = new StringBuilder();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String newText = text.substring(0, offset) + inserted + text.substring(offset + removedLength);
+
+            RootNode expected = new RootNode(null);
+            try {
+                new X8lParser(expected).parse(newText);
+            } catch (X8lGrammarException e) {
+                RootNode before = x8lIncrementalParser.getRoot().copy((ContentNode) null);
+                assertThrows(X8lGrammarException.class,
+                        () -> x8lIncrementalParser.edit(offset, removedLength, inserted));
+                assertEquals(text, x8lIncrementalParser.getText());
+                assertEquals(before, x8lIncrementalParser.getRoot());
+                continue;
+            }
+            x8lIncrementalParser.edit(offset, removedLength, inserted);
+            assertEquals(newText, x8lIncrementalParser.getText());
+            assertEquals(expected, x8lIncrementalParser.getRoot());
+            assertEquals(expected.toString(), x8lIncrementalParser.getRoot().toString());
+        }
+    }
+}
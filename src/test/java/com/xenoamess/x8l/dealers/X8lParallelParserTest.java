@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import com.xenoamess.x8l.X8lTree;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class X8lParallelParserTest {
+    private static final int[] CHUNK_SIZES = new int[]{1, 2, 3, 7, 64, 1000};
+
+    @Test
+    public void testSameAsX8lParser() throws IOException {
+        String settings =
+                IOUtils.toString(X8lParallelParserTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                        StandardCharsets.UTF_8);
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            stringBuilder.append(settings).append("<<comment %> \u3042>text%<&<a b=%>>c>");
+        }
+        String[] inputs = new String[]{
+                "",
+                "<a>b>",
+                "<< ><a>b>",
+                "a<a><b><c>>>>d<e>>",
+                stringBuilder.toString(),
+                IOUtils.toString(X8lParallelParserTest.class.getResource("/large_sample_benchmark.x8l"),
+                        StandardCharsets.UTF_8),
+        };
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            for (String input : inputs) {
+                assertSameAsX8lParser(forkJoinPool, input);
+            }
+            assertEquals(X8lTree.load(inputs[4]).getRoot(), X8lTree.loadParallel(inputs[4]).getRoot());
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRandomInputs() {
+        final int[] alphabet = "<<<>>>%&= \na\u3000\u3042".codePoints().toArray();
+        Random random = new Random(20200102L);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                StringBuilder stringBuilder = new StringBuilder();
+                for (int j = random.nextInt(40); j > 0; j--) {
+                    stringBuilder.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+                }
+                String input = stringBuilder.toString();
+                RootNode expected = new RootNode(null);
+                try {
+                    new X8lParser(expected).parse(input);
+                } catch (X8lGrammarException e) {
+                    for (int chunkSize : CHUNK_SIZES) {
+                        X8lParallelParser x8lParallelParser = new X8lParallelParser(forkJoinPool, chunkSize);
+                        assertThrows(X8lGrammarException.class,
+                                () -> x8lParallelParser.parse(input, new RootNode(null)));
+                        assertThrows(X8lGrammarException.class,
+                                () -> x8lParallelParser.parse(input.getBytes(StandardCharsets.UTF_8),
+                                        new RootNode(null)));
+                    }
+                    continue;
+                }
+                assertSameAsX8lParser(forkJoinPool, input);
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    private static void assertSameAsX8lParser(ForkJoinPool forkJoinPool, String input) {
+        RootNode expected = new RootNode(null);
+        new X8lParser(expected).parse(input);
+        for (int chunkSize : CHUNK_SIZES) {
+            X8lParallelParser x8lParallelParser = new X8lParallelParser(forkJoinPool, chunkSize);
+            RootNode actual = new RootNode(null);
+            x8lParallelParser.parse(input, actual);
+            assertEquals(expected, actual);
+            assertEquals(expected.toString(), actual.toString());
+            actual = new RootNode(null);
+            x8lParallelParser.parse(input.getBytes(StandardCharsets.UTF_8), actual);
+            assertEquals(expected, actual);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.TextNode;
+import com.xenoamess.x8l.X8lTree;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class X8lParallelWriterTest {
+    private static final int[] CHUNK_SIZES = new int[]{1, 2, 3, 7, 64, 1000};
+
+    @Test
+    public void testSameAsX8lWriter() throws IOException {
+        String settings = IOUtils.toString(X8lParallelWriterTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        final String alphabet = "<>%&= \nab\u3000\ud83d\ude00";
+        Random random = new Random(20200105L);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 60; i++) {
+                RootNode rootNode = i == 0 ? X8lTree.load(settings, X8lDealer.INSTANCE).getRoot() : new RootNode(null);
+                randomChildren(rootNode, random, alphabet, 4);
+                assertSameAsX8lWriter(rootNode, forkJoinPool);
+                for (ContentNode contentNode : rootNode.getContentNodesFromChildren()) {
+                    assertSameAsX8lWriter(contentNode, forkJoinPool);
+                }
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCachedAndSave() throws IOException {
+        String input = IOUtils.toString(X8lParallelWriterTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree x8lTree = X8lTree.load(input + input + input, X8lDealer.INSTANCE);
+        x8lTree.getRoot().getContentNodesFromChildren().get(1).setSerializedCacheEnabled(true);
+        x8lTree.getRoot().getContentNodesFromChildren().get(1).toString();
+        ForkJoinPool forkJoinPool = new ForkJoinPool(3);
+        try {
+            assertSameAsX8lWriter(x8lTree.getRoot(), forkJoinPool);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+
+        Path path = Files.createTempFile("X8lParallelWriterTest", ".x8l");
+        try {
+            X8lTree.saveParallel(path, x8lTree);
+            assertEquals(x8lTree.toString(), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void assertSameAsX8lWriter(AbstractTreeNode abstractTreeNode, ForkJoinPool forkJoinPool)
+            throws IOException {
+        String expected = abstractTreeNode.toString();
+        for (int chunkSize : CHUNK_SIZES) {
+            X8lParallelWriter x8lParallelWriter = new X8lParallelWriter(forkJoinPool, chunkSize);
+            StringWriter stringWriter = new StringWriter();
+            x8lParallelWriter.write(abstractTreeNode, stringWriter);
+            assertEquals(expected, stringWriter.toString());
+
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            x8lParallelWriter.write(abstractTreeNode, byteArrayOutputStream);
+            assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), byteArrayOutputStream.toByteArray());
+        }
+    }
+
+    private static String randomString(Random random, String alphabet) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int j = random.nextInt(12); j > 0; j--) {
+            stringBuilder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return stringBuilder.toString();
+    }
+
+    private static void randomChildren(ContentNode contentNode, Random random, String alphabet, int depth) {
+        for (int i = random.nextInt(8); i > 0; i--) {
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    new TextNode(contentNode, randomString(random, alphabet));
+                    break;
+                case 2:
+                    new CommentNode(contentNode, randomString(random, alphabet));
+                    break;
+                default:
+                    if (depth == 0) {
+                        break;
+                    }
+                    ContentNode child = new ContentNode(contentNode);
+                    for (int j = random.nextInt(3); j > 0; j--) {
+                        child.addAttribute(randomString(random, alphabet), randomString(random, alphabet));
+                    }
+                    randomChildren(child, random, alphabet, depth - 1);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import com.xenoamess.x8l.X8lTree;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lParserTest {
+    private static final int[] BUFFER_SIZES = new int[]{1, 2, 3, 7, 64, X8lParser.DEFAULT_BUFFER_SIZE};
+
+    @Test
+    public void testSameAsCharByCharReader() throws IOException {
+        String[] inputs = new String[]{
+                "",
+                "<a>b>",
+                "<< ><a>b>",
+                "<>a<a>b>>",
+                "< <or this this>  ",
+                "<a%=b c=d%>e>100%%x&y<<com%>m>>",
+                "<views\n    windowWidth=1280\n    value=valueA% valueB>>",
+                "<a\u3000b=\u00e9>\u3000&&%>>%",
+                IOUtils.toString(X8lParserTest.class.getResource("/RpgModuleDemoSettings.x8l"), StandardCharsets.UTF_8),
+                IOUtils.toString(X8lParserTest.class.getResource("/large_sample_benchmark.x8l"),
+                        StandardCharsets.UTF_8),
+        };
+        for (String input : inputs) {
+            assertSameAsCharByCharReader(input);
+        }
+    }
+
+    @Test
+    public void testRandomInputs() throws IOException {
+        final int[] alphabet = "<<>>%&= \nab\u3000\u00e9\u3042\u2028\ud83d\ude00".codePoints().toArray();
+        Random random = new Random(20200101L);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int j = random.nextInt(24); j > 0; j--) {
+                stringBuilder.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String input = stringBuilder.toString();
+            RootNode expected = new RootNode(null);
+            try {
+                X8lCharByCharReader.read(new StringReader(input), expected);
+            } catch (RuntimeException e) {
+                for (int bufferSize : BUFFER_SIZES) {
+                    assertThrows(
+                            X8lGrammarException.class,
+                            () -> new X8lParser(new RootNode(null), bufferSize).parse(new StringReader(input))
+                    );
+                    assertThrows(
+                            X8lGrammarException.class,
+                            () -> feedInChunks(new X8lParser(new RootNode(null)), input, bufferSize)
+                    );
+                    assertThrows(
+                            X8lGrammarException.class,
+                            () -> feedBytesInChunks(new X8lParser(new RootNode(null)),
+                                    ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)), bufferSize)
+                    );
+                    assertThrows(
+                            X8lGrammarException.class,
+                            () -> new X8lParser(new SkippingTreeBuilder(), bufferSize).parse(new StringReader(input))
+                    );
+                }
+                continue;
+            }
+            assertSameAsCharByCharReader(input);
+            for (int bufferSize : BUFFER_SIZES) {
+                SkippingTreeBuilder skippingTreeBuilder = new SkippingTreeBuilder();
+                new X8lParser(skippingTreeBuilder, bufferSize).parse(new StringReader(input));
+                assertEquals(skippingTreeBuilder.expected(expected), skippingTreeBuilder.getNowNode());
+            }
+        }
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        String input = "<a\u3000b=\u00e9 c=%\u3042>\u3000&&%>>%<<\ud83d\ude00>>"
+                + IOUtils.toString(X8lParserTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        RootNode expected = new RootNode(null);
+        X8lCharByCharReader.read(new StringReader(input), expected);
+        Path path = Files.createTempFile("X8lParserTest", ".x8l");
+        try {
+            Files.write(path, input.getBytes(StandardCharsets.UTF_8));
+            for (int windowSize : BUFFER_SIZES) {
+                RootNode actual = new RootNode(null);
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    new X8lParser(actual).parse(fileChannel, windowSize);
+                }
+                assertEquals(expected, actual);
+            }
+            assertEquals(expected, X8lTree.loadMapped(path).getRoot());
+            assertEquals(expected, X8lTree.loadMapped(path, X8lDealer.INSTANCE).getRoot());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testEventHandler() throws IOException {
+        List<String> events = new ArrayList<>();
+        new X8lParser(new X8lEventHandler() {
+            @Override
+            public void startContentNode(List<String> attributesKeyList, List<String> attributesValueList) {
+                events.add("start" + attributesKeyList + attributesValueList);
+            }
+
+            @Override
+            public void endContentNode() {
+                events.add("end");
+            }
+
+            @Override
+            public void text(String textContent) {
+                events.add("text[" + textContent + "]");
+            }
+
+            @Override
+            public void comment(String textContent) {
+                events.add("comment[" + textContent + "]");
+            }
+        }).parse(new StringReader("<a b=c%>>x&y<<d>>"));
+        assertEquals(
+                Arrays.asList("text[]", "start[a, b][, c>]", "text[x]", "text[y]", "comment[d]", "text[]", "end",
+                        "text[]"),
+                events
+        );
+    }
+
+    @Test
+    public void testGrammarException() {
+        assertThrows(X8lGrammarException.class, () -> X8lTree.load("<a", X8lDealer.INSTANCE));
+        assertThrows(X8lGrammarException.class, () -> X8lTree.load("<<a", X8lDealer.INSTANCE));
+        assertThrows(X8lGrammarException.class, () -> X8lTree.load("<a <>>", X8lDealer.INSTANCE));
+        assertThrows(X8lGrammarException.class, () -> X8lTree.load("a>>", X8lDealer.INSTANCE));
+    }
+
+    /**
+     * builds only the ContentNodes at depth 1, without anything in them.
+     */
+    private static class SkippingTreeBuilder extends X8lTreeBuilder {
+        private int depth;
+
+        private SkippingTreeBuilder() {
+            super(new RootNode(null));
+        }
+
+        @Override
+        public boolean acceptContentNode(List<String> attributesKeyList, List<String> attributesValueList) {
+            return depth == 0;
+        }
+
+        @Override
+        public void startContentNode(List<String> attributesKeyList, List<String> attributesValueList) {
+            assertEquals(0, depth++);
+            super.startContentNode(attributesKeyList, attributesValueList);
+        }
+
+        @Override
+        public void endContentNode() {
+            depth--;
+            super.endContentNode();
+        }
+
+        @Override
+        public void transcodedText(String transcodedTextContent, boolean escaped) {
+            if (depth == 0) {
+                super.transcodedText(transcodedTextContent, escaped);
+            }
+        }
+
+        @Override
+        public void text(String textContent) {
+            if (depth == 0) {
+                super.text(textContent);
+            }
+        }
+
+        @Override
+        public void transcodedComment(String transcodedTextContent, boolean escaped) {
+            if (depth == 0) {
+                super.transcodedComment(transcodedTextContent, escaped);
+            }
+        }
+
+        @Override
+        public void comment(String textContent) {
+            if (depth == 0) {
+                super.comment(textContent);
+            }
+        }
+
+        private RootNode expected(RootNode full) {
+            RootNode res = full.copy((ContentNode) null);
+            for (ContentNode contentNode : res.getContentNodesFromChildren()) {
+                contentNode.getChildren().clear();
+            }
+            return res;
+        }
+    }
+
+    private static void assertSameAsCharByCharReader(String input) throws IOException {
+        RootNode expected = new RootNode(null);
+        X8lCharByCharReader.read(new StringReader(input), expected);
+        for (int bufferSize : BUFFER_SIZES) {
+            RootNode actual = new RootNode(null);
+            new X8lParser(actual, bufferSize).parse(new StringReader(input));
+            assertEquals(expected, actual);
+            assertEquals(expected.toString(), actual.toString());
+
+            actual = new RootNode(null);
+            feedInChunks(new X8lParser(actual), input, bufferSize);
+            assertEquals(expected, actual);
+            actual = new RootNode(null);
+            feedInChunks(new X8lParser(actual), new StringBuilder(input), bufferSize);
+            assertEquals(expected, actual);
+
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+            actual = new RootNode(null);
+            new X8lParser(actual, bufferSize).parse(new ByteArrayInputStream(bytes));
+            assertEquals(expected, actual);
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            actual = new RootNode(null);
+            feedBytesInChunks(new X8lParser(actual), direct, bufferSize);
+            assertEquals(expected, actual);
+        }
+        RootNode actual = new RootNode(null);
+        new X8lParser(actual).parse(input);
+        assertEquals(expected, actual);
+        assertEquals(expected.toString(), actual.toString());
+        X8lTree tree = X8lTree.load(input, X8lDealer.INSTANCE);
+        assertEquals(expected, tree.getRoot());
+        assertEquals(expected.toString(), tree.getRoot().toString());
+        tree = X8lTree.load(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), X8lDealer.INSTANCE);
+        assertEquals(expected, tree.getRoot());
+        tree = X8lTree.load(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)), X8lDealer.INSTANCE);
+        assertEquals(expected, tree.getRoot());
+    }
+
+    private static void feedInChunks(X8lParser parser, CharSequence input, int chunkSize) {
+        for (int start = 0; start < input.length(); start += chunkSize) {
+            parser.feed(input, start, Math.min(input.length(), start + chunkSize));
+        }
+        parser.endOfInput();
+    }
+
+    private static void feedBytesInChunks(X8lParser parser, ByteBuffer input, int chunkSize) {
+        while (input.hasRemaining()) {
+            ByteBuffer chunk = input.duplicate();
+            chunk.limit(Math.min(input.limit(), input.position() + chunkSize));
+            parser.feed(chunk);
+            assertEquals(chunk.limit(), chunk.position());
+            input.position(chunk.limit());
+        }
+        parser.endOfInput();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.X8lGrammarException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lPushParserTest {
+    private static final String INPUT = "<a\u3000b=\u00e9 c=%\u3042>\u3000&&%>><<\ud83d\ude00%>>100%%x<d%\u3042>>%";
+
+    @Test
+    public void testFeedInChunks() throws IOException {
+        RootNode expected = new RootNode(null);
+        X8lCharByCharReader.read(new StringReader(INPUT), expected);
+        byte[] bytes = INPUT.getBytes(StandardCharsets.UTF_8);
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            RootNode actual = new RootNode(null);
+            X8lPushParser x8lPushParser = new X8lPushParser(new X8lTreeBuilder(actual), 3);
+            for (int start = 0; start < bytes.length; start += chunkSize) {
+                ByteBuffer chunk = ByteBuffer.allocateDirect(Math.min(chunkSize, bytes.length - start));
+                chunk.put(bytes, start, chunk.capacity()).flip();
+                x8lPushParser.feed(chunk);
+            }
+            assertFalse(x8lPushParser.isFinished());
+            x8lPushParser.endOfInput();
+            assertTrue(x8lPushParser.isFinished());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testParseFor() throws IOException {
+        String input = IOUtils.toString(X8lPushParserTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8) + INPUT;
+        RootNode expected = new RootNode(null);
+        X8lCharByCharReader.read(new StringReader(input), expected);
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+
+        RootNode actual = new RootNode(null);
+        X8lPushParser x8lPushParser = new X8lPushParser(new X8lTreeBuilder(actual), 7);
+        x8lPushParser.offer(ByteBuffer.wrap(bytes, 0, 100));
+        x8lPushParser.offer(ByteBuffer.wrap(bytes, 100, bytes.length - 100));
+        x8lPushParser.endOfInput();
+        assertEquals(bytes.length, x8lPushParser.getRemaining());
+        int steps = 0;
+        while (!x8lPushParser.parseFor(Duration.ZERO)) {
+            steps++;
+        }
+        assertEquals(0, x8lPushParser.getRemaining());
+        assertTrue(steps > 1);
+        assertEquals(expected, actual);
+        assertThrows(IllegalStateException.class, () -> x8lPushParser.offer(ByteBuffer.allocate(1)));
+    }
+
+    @Test
+    public void testNonBlockingChannel() throws IOException {
+        RootNode expected = new RootNode(null);
+        X8lCharByCharReader.read(new StringReader(INPUT), expected);
+        byte[] bytes = INPUT.getBytes(StandardCharsets.UTF_8);
+
+        Pipe pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+        RootNode actual = new RootNode(null);
+        X8lPushParser x8lPushParser = new X8lPushParser(actual);
+        assertEquals(0, x8lPushParser.offer(pipe.source()));
+        pipe.sink().write(ByteBuffer.wrap(bytes, 0, 5));
+        assertEquals(5, x8lPushParser.offer(pipe.source()));
+        x8lPushParser.parseFor(Duration.ofSeconds(1));
+        pipe.sink().write(ByteBuffer.wrap(bytes, 5, bytes.length - 5));
+        pipe.sink().close();
+        while (x8lPushParser.offer(pipe.source()) != -1) {
+        }
+        assertTrue(x8lPushParser.parseFor(null));
+        assertEquals(expected, actual);
+        pipe.source().close();
+    }
+
+    @Test
+    public void testGrammarException() {
+        X8lPushParser x8lPushParser = new X8lPushParser(new RootNode(null));
+        x8lPushParser.feed(ByteBuffer.wrap("<a".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(X8lGrammarException.class, x8lPushParser::endOfInput);
+        assertFalse(x8lPushParser.isFinished());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lStreamReaderTest {
+    @Test
+    public void testEvents() throws IOException {
+        String input = "<a b=c%>>x&y<<d%%>>";
+        try (X8lStreamReader x8lStreamReader = new X8lStreamReader(input)) {
+            assertEquals(X8lEventType.START_DOCUMENT, x8lStreamReader.getEventType());
+            assertEquals(X8lEventType.TEXT, x8lStreamReader.next());
+            assertEquals("", x8lStreamReader.getText());
+            assertEquals(X8lEventType.START_CONTENT_NODE, x8lStreamReader.next());
+            assertEquals(1, x8lStreamReader.getDepth());
+            assertEquals(2, x8lStreamReader.getAttributeCount());
+            assertEquals("a", x8lStreamReader.getName());
+            assertEquals("b", x8lStreamReader.getAttributeKey(1));
+            assertEquals("c>", x8lStreamReader.getAttributeValue(1));
+            assertEquals(X8lEventType.TEXT, x8lStreamReader.next());
+            assertEquals("x", x8lStreamReader.getText());
+            assertEquals(X8lEventType.TEXT, x8lStreamReader.next());
+            assertEquals("y", x8lStreamReader.getText());
+            assertEquals(X8lEventType.COMMENT, x8lStreamReader.next());
+            assertEquals("d", x8lStreamReader.getText());
+            assertEquals(X8lEventType.TEXT, x8lStreamReader.next());
+            assertEquals(X8lEventType.END_CONTENT_NODE, x8lStreamReader.next());
+            assertEquals(0, x8lStreamReader.getDepth());
+            assertEquals(X8lEventType.TEXT, x8lStreamReader.next());
+            assertEquals(X8lEventType.END_DOCUMENT, x8lStreamReader.next());
+            assertFalse(x8lStreamReader.hasNext());
+        }
+    }
+
+    @Test
+    public void testReadFirstSectionsOnly() throws IOException {
+        try (X8lStreamReader x8lStreamReader = new X8lStreamReader(
+                X8lStreamReaderTest.class.getResourceAsStream("/RpgModuleDemoSettings.x8l"))) {
+            while (x8lStreamReader.next() != X8lEventType.START_CONTENT_NODE || x8lStreamReader.getDepth() != 2) {
+            }
+            assertEquals("commonSettings", x8lStreamReader.getName());
+            assertEquals("gameName", x8lStreamReader.getAttributeKey(1));
+            assertEquals("CyanPotionRpgModuleDemo", x8lStreamReader.getAttributeValue(1));
+            x8lStreamReader.skipSubtree();
+            assertEquals(X8lEventType.END_CONTENT_NODE, x8lStreamReader.getEventType());
+
+            while (x8lStreamReader.next() != X8lEventType.START_CONTENT_NODE) {
+            }
+            assertEquals("views", x8lStreamReader.getName());
+            x8lStreamReader.skipSubtree();
+            while (x8lStreamReader.next() != X8lEventType.START_CONTENT_NODE) {
+            }
+            assertEquals("specialSettings", x8lStreamReader.getName());
+        }
+    }
+
+    @Test
+    public void testSources() throws IOException {
+        String input = "<\u4e2d\u6587 a=%%1>\u6587\u5b57>";
+        try (
+                X8lStreamReader fromCharSequence = new X8lStreamReader(new StringBuilder(input));
+                X8lStreamReader fromString = new X8lStreamReader(input, 2);
+                X8lStreamReader fromInputStream =
+                        new X8lStreamReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+                X8lStreamReader fromReader = new X8lStreamReader(new InputStreamReader(
+                        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8), 3)
+        ) {
+            for (X8lStreamReader x8lStreamReader : new X8lStreamReader[]{fromCharSequence, fromString,
+                    fromInputStream, fromReader}) {
+                x8lStreamReader.next();
+                assertEquals(X8lEventType.START_CONTENT_NODE, x8lStreamReader.next());
+                assertEquals("\u4e2d\u6587", x8lStreamReader.getName());
+                assertEquals("%1", x8lStreamReader.getAttributeValue(1));
+                assertEquals(X8lEventType.TEXT, x8lStreamReader.next());
+                assertEquals("\u6587\u5b57", x8lStreamReader.getText());
+                assertThrows(IllegalStateException.class, x8lStreamReader::skipSubtree);
+            }
+        }
+    }
+}
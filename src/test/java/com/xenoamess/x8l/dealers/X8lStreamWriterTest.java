@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.TextNode;
+import com.xenoamess.x8l.X8lTree;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lStreamWriterTest {
+    @Test
+    public void testSimple() throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(stringWriter)) {
+            x8lStreamWriter.startNode("a").attribute("b", "c>").text("x").text("y").comment("d%")
+                    .startNode().endNode().endNode().text("");
+        }
+        assertEquals("<a b=c%>>x&y<<d%%><>>>", stringWriter.toString());
+
+        stringWriter = new StringWriter();
+        try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(stringWriter, true)) {
+            x8lStreamWriter.startNode("a").attribute("b", "c").text(" x ").endNode()
+                    .startNode("e").startNode("f").endNode().text(" ").endNode();
+        }
+        assertEquals("<a b=c>x>\n<e>\n    <f>>\n>\n", stringWriter.toString());
+    }
+
+    @Test
+    public void testSameAsTree() throws IOException {
+        final String alphabet = "<>%&= \n\tab\u3000\u00e9";
+        Random random = new Random(20200103L);
+        for (int i = 0; i < 300; i++) {
+            X8lTree x8lTree = new X8lTree();
+            randomChildren(x8lTree.getRoot(), random, alphabet, 3);
+
+            StringWriter stringWriter = new StringWriter();
+            try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(stringWriter)) {
+                writeChildren(x8lStreamWriter, x8lTree.getRoot());
+            }
+            assertEquals(x8lTree.toString(), stringWriter.toString());
+
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(byteArrayOutputStream, true)) {
+                writeChildren(x8lStreamWriter, x8lTree.getRoot());
+            }
+            assertEquals(x8lTree.copy().format().toString(),
+                    new String(byteArrayOutputStream.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testLoaded() throws IOException {
+        String input = IOUtils.toString(X8lStreamWriterTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree x8lTree = X8lTree.load(input, X8lDealer.INSTANCE);
+        StringWriter stringWriter = new StringWriter();
+        try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(stringWriter, true)) {
+            writeChildren(x8lStreamWriter, x8lTree.getRoot());
+        }
+        assertEquals(x8lTree.toFormattedString(), stringWriter.toString());
+        assertEquals(x8lTree.format().toString(), stringWriter.toString());
+    }
+
+    @Test
+    public void testWriteNode() throws IOException {
+        final String alphabet = "<>%&= \n\tab\u3000\u00e9";
+        Random random = new Random(20200104L);
+        for (int i = 0; i < 300; i++) {
+            X8lTree generated = new X8lTree();
+            randomChildren(generated.getRoot(), random, alphabet, 3);
+            // a loaded tree keeps its texts transcoded.
+            for (X8lTree x8lTree : new X8lTree[]{generated, X8lTree.load(generated.toString(), X8lDealer.INSTANCE)}) {
+                final String original = x8lTree.toString();
+                final String expected = x8lTree.copy().format().toString();
+
+                assertEquals(expected, x8lTree.toFormattedString());
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                x8lTree.writeFormatted(byteArrayOutputStream);
+                assertEquals(expected, new String(byteArrayOutputStream.toByteArray(), StandardCharsets.UTF_8));
+
+                StringWriter stringWriter = new StringWriter();
+                try (X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(stringWriter)) {
+                    x8lStreamWriter.write(x8lTree.getRoot());
+                }
+                assertEquals(original, stringWriter.toString());
+                assertEquals(original, x8lTree.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testIllegalState() throws IOException {
+        X8lStreamWriter x8lStreamWriter = new X8lStreamWriter(new StringWriter());
+        assertThrows(IllegalStateException.class, x8lStreamWriter::endNode);
+        x8lStreamWriter.startNode("a").text("b");
+        assertThrows(IllegalStateException.class, () -> x8lStreamWriter.attribute("c", "d"));
+        assertThrows(IllegalStateException.class, x8lStreamWriter::endDocument);
+        x8lStreamWriter.endNode();
+        x8lStreamWriter.close();
+        assertThrows(IllegalStateException.class, () -> x8lStreamWriter.text("e"));
+    }
+
+    private static void writeChildren(X8lStreamWriter x8lStreamWriter, ContentNode contentNode)
+            throws IOException {
+        for (AbstractTreeNode child : contentNode.getChildren()) {
+            if (child instanceof ContentNode) {
+                ContentNode childContentNode = (ContentNode) child;
+                x8lStreamWriter.startNode();
+                for (String key : childContentNode.getAttributesKeyList()) {
+                    x8lStreamWriter.attribute(key, childContentNode.getAttributes().get(key));
+                }
+                writeChildren(x8lStreamWriter, childContentNode);
+                x8lStreamWriter.endNode();
+            } else if (child instanceof TextNode) {
+                x8lStreamWriter.text(((TextNode) child).getTextContent());
+            } else {
+                x8lStreamWriter.comment(((CommentNode) child).getTextContent());
+            }
+        }
+    }
+
+    private static String randomString(Random random, String alphabet) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int j = random.nextInt(8); j > 0; j--) {
+            stringBuilder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return stringBuilder.toString();
+    }
+
+    private static void randomChildren(ContentNode contentNode, Random random, String alphabet, int depth) {
+        for (int i = random.nextInt(5); i > 0; i--) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    new TextNode(contentNode, randomString(random, alphabet));
+                    break;
+                case 1:
+                    new CommentNode(contentNode, randomString(random, alphabet));
+                    break;
+                default:
+                    if (depth == 0) {
+                        break;
+                    }
+                    ContentNode child = new ContentNode(contentNode);
+                    for (int j = random.nextInt(6); j > 0; j--) {
+                        child.addAttribute(randomString(random, alphabet) + j, randomString(random, alphabet));
+                    }
+                    randomChildren(child, random, alphabet, depth - 1);
+                    break;
+            }
+        }
+    }
+}
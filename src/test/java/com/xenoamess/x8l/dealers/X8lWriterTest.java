@@ -0,0 +1,230 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 XenoAmess
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.xenoamess.x8l.dealers;
+
+import com.xenoamess.x8l.AbstractTreeNode;
+import com.xenoamess.x8l.CommentNode;
+import com.xenoamess.x8l.ContentNode;
+import com.xenoamess.x8l.RootNode;
+import com.xenoamess.x8l.TextNode;
+import com.xenoamess.x8l.X8lTree;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author XenoAmess
+ */
+public class X8lWriterTest {
+    private static final int[] BUFFER_SIZES = new int[]{0, 1, 2, 7, 64, X8lWriter.DEFAULT_BUFFER_SIZE};
+
+    @Test
+    public void testSameAsTranscode() throws IOException {
+        final String alphabet = "<>%&= \n\tab\u3000\u00e9";
+        Random random = new Random(20200101L);
+        for (int i = 0; i < 200; i++) {
+            RootNode rootNode = new RootNode(null);
+            randomChildren(rootNode, random, alphabet, 3);
+            String expected = referenceWrite(rootNode);
+            assertEquals(expected, rootNode.toString());
+            for (int bufferSize : BUFFER_SIZES) {
+                StringWriter stringWriter = new StringWriter();
+                X8lWriter x8lWriter = new X8lWriter(stringWriter, bufferSize);
+                x8lWriter.write(rootNode);
+                x8lWriter.flushBuffer();
+                assertEquals(expected, stringWriter.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testLoaded() throws IOException {
+        String input = IOUtils.toString(X8lWriterTest.class.getResource("/large_sample_benchmark.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree x8lTree = X8lTree.load(input, X8lDealer.INSTANCE);
+        String expected = referenceWrite(x8lTree.getRoot());
+        assertEquals(expected, x8lTree.toString());
+        for (int bufferSize : BUFFER_SIZES) {
+            StringWriter stringWriter = new StringWriter();
+            X8lWriter x8lWriter = new X8lWriter(stringWriter, bufferSize);
+            x8lWriter.write(x8lTree.getRoot());
+            x8lWriter.flushBuffer();
+            assertEquals(expected, stringWriter.toString());
+        }
+    }
+
+    @Test
+    public void testBytes() throws IOException {
+        final String alphabet = "<>%&= \nab\u3000\u00e9\u0080\u07ff\u0800\uffff\ud83d\ude00";
+        Random random = new Random(20200102L);
+        for (int i = 0; i < 200; i++) {
+            RootNode rootNode = new RootNode(null);
+            randomChildren(rootNode, random, alphabet, 3);
+            byte[] expected = rootNode.toString().getBytes(StandardCharsets.UTF_8);
+            for (int bufferSize : new int[]{4, 5, 7, 64, X8lWriter.DEFAULT_BUFFER_SIZE}) {
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                X8lWriter x8lWriter = new X8lWriter(byteArrayOutputStream, null, bufferSize);
+                x8lWriter.write(rootNode);
+                x8lWriter.flushBuffer();
+                assertArrayEquals(expected, byteArrayOutputStream.toByteArray());
+
+                byteArrayOutputStream = new ByteArrayOutputStream();
+                x8lWriter = new X8lWriter(null, Channels.newChannel(byteArrayOutputStream), bufferSize);
+                x8lWriter.write(rootNode);
+                x8lWriter.flushBuffer();
+                assertArrayEquals(expected, byteArrayOutputStream.toByteArray());
+            }
+
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            X8lDealer.INSTANCE.write(byteArrayOutputStream, rootNode);
+            assertArrayEquals(expected, byteArrayOutputStream.toByteArray());
+        }
+    }
+
+    @Test
+    public void testMapped() throws IOException {
+        String input = IOUtils.toString(X8lWriterTest.class.getResource("/RpgModuleDemoSettings.x8l"),
+                StandardCharsets.UTF_8);
+        X8lTree x8lTree = X8lTree.load(input, X8lDealer.INSTANCE);
+        new TextNode(x8lTree.getRoot(), "\ud83d\ude00\u3042");
+        byte[] expected = x8lTree.getRoot().toString().getBytes(StandardCharsets.UTF_8);
+        Path path = Files.createTempFile("X8lWriterTest", ".x8l");
+        try {
+            Files.write(path, new byte[expected.length * 2 + 3]);
+            X8lTree.saveMapped(path, x8lTree);
+            assertArrayEquals(expected, Files.readAllBytes(path));
+
+            for (int windowSize : new int[]{1, 3, 64}) {
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+                    fileChannel.position(5);
+                    try (X8lMappedWriteChannel channel = new X8lMappedWriteChannel(fileChannel, windowSize)) {
+                        X8lWriter x8lWriter = new X8lWriter(channel);
+                        x8lWriter.write(x8lTree.getRoot());
+                        x8lWriter.flushBuffer();
+                    }
+                    assertEquals(5 + expected.length, fileChannel.size());
+                    assertEquals(5 + expected.length, fileChannel.position());
+                }
+                byte[] actual = Files.readAllBytes(path);
+                assertArrayEquals(expected, Arrays.copyOfRange(actual, 5, actual.length));
+            }
+
+            X8lTree.save(path, x8lTree);
+            assertArrayEquals(expected, Files.readAllBytes(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static String randomString(Random random, String alphabet) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int j = random.nextInt(12); j > 0; j--) {
+            stringBuilder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return stringBuilder.toString();
+    }
+
+    private static void randomChildren(ContentNode contentNode, Random random, String alphabet, int depth) {
+        for (int i = random.nextInt(5); i > 0; i--) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    new TextNode(contentNode, randomString(random, alphabet));
+                    break;
+                case 1:
+                    new CommentNode(contentNode, randomString(random, alphabet));
+                    break;
+                default:
+                    if (depth == 0) {
+                        break;
+                    }
+                    ContentNode child = new ContentNode(contentNode);
+                    for (int j = random.nextInt(3); j > 0; j--) {
+                        child.addAttribute(randomString(random, alphabet), randomString(random, alphabet));
+                    }
+                    randomChildren(child, random, alphabet, depth - 1);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * the way X8lDealer wrote before X8lWriter.
+     */
+    private static String referenceWrite(AbstractTreeNode abstractTreeNode) {
+        StringBuilder stringBuilder = new StringBuilder();
+        if (abstractTreeNode instanceof ContentNode) {
+            ContentNode contentNode = (ContentNode) abstractTreeNode;
+            boolean isRoot = contentNode instanceof RootNode;
+            if (!isRoot) {
+                stringBuilder.append('<');
+                for (int i = 0; i < contentNode.getAttributesKeyList().size(); i++) {
+                    String key = contentNode.getAttributesKeyList().get(i);
+                    stringBuilder.append(X8lTree.transcodeKey(key));
+                    String value = contentNode.getAttributes().get(key);
+                    if (!value.isEmpty()) {
+                        stringBuilder.append('=').append(X8lTree.transcodeValue(value));
+                    }
+                    stringBuilder.append(contentNode.getAttributeSegments().get(i));
+                }
+                stringBuilder.append('>');
+            }
+            boolean lastChildIsTextNode = false;
+            for (AbstractTreeNode nowChild : contentNode.getChildren()) {
+                boolean nowChildIsTextNode = nowChild instanceof TextNode;
+                if (lastChildIsTextNode && nowChildIsTextNode) {
+                    stringBuilder.append('&');
+                }
+                lastChildIsTextNode = nowChildIsTextNode;
+                stringBuilder.append(referenceWrite(nowChild));
+            }
+            if (!isRoot) {
+                stringBuilder.append('>');
+            }
+        } else if (abstractTreeNode instanceof TextNode) {
+            TextNode textNode = (TextNode) abstractTreeNode;
+            stringBuilder.append(textNode.getTranscodedTextContent() != null ? textNode.getTranscodedTextContent()
+                    : X8lTree.transcodeText(textNode.getTextContent()));
+        } else {
+            CommentNode commentNode = (CommentNode) abstractTreeNode;
+            stringBuilder.append("<<").append(commentNode.getTranscodedTextContent() != null
+                    ? commentNode.getTranscodedTextContent() : X8lTree.transcodeComment(commentNode.getTextContent()))
+                    .append('>');
+        }
+        return stringBuilder.toString();
+    }
+}